@@ -14,6 +14,12 @@ public class Config {
     private static final int RAND_ROLL_FREQUENCY_DEFAULT = 10;
     private static final double RAND_ROLL_TIME_BUDGET_DEFAULT = 0.3;
     private static final int MAX_RAND_ROLL_ITERATIONS_DEFAULT = 20;
+    private static final boolean PATTERN_EVALUATION_DEFAULT = false;
+    private static final boolean PRINCIPAL_VARIATION_SEARCH_DEFAULT = false;
+    private static final boolean MOVE_HISTORY_DEFAULT = false;
+    private static final int LATE_MOVE_REDUCTION_DEFAULT = 0;
+    private static final boolean FUTILITY_PRUNING_DEFAULT = false;
+    private static final boolean INTERNAL_ITERATIVE_DEEPENING_DEFAULT = false;
 
     private final boolean helpRequested;
     private final String host;
@@ -28,6 +34,13 @@ public class Config {
     private final double randRollTimeBudget;
     private final int maxRandRollIterations;
 
+    private final boolean patternEvaluation;
+    private final boolean principalVariationSearch;
+    private final boolean moveHistory;
+    private final int lateMoveReduction;
+    private final boolean futilityPruning;
+    private final boolean internalIterativeDeepening;
+
     /**
      * Creates an empty configuration, that only indicates a help request via {@code --help}.
      * <p>
@@ -48,10 +61,19 @@ public class Config {
         this.randRollFrequency = RAND_ROLL_FREQUENCY_DEFAULT;
         this.randRollTimeBudget = RAND_ROLL_TIME_BUDGET_DEFAULT;
         this.maxRandRollIterations = MAX_RAND_ROLL_ITERATIONS_DEFAULT;
+
+        this.patternEvaluation = PATTERN_EVALUATION_DEFAULT;
+        this.principalVariationSearch = PRINCIPAL_VARIATION_SEARCH_DEFAULT;
+        this.moveHistory = MOVE_HISTORY_DEFAULT;
+        this.lateMoveReduction = LATE_MOVE_REDUCTION_DEFAULT;
+        this.futilityPruning = FUTILITY_PRUNING_DEFAULT;
+        this.internalIterativeDeepening = INTERNAL_ITERATIVE_DEEPENING_DEFAULT;
     }
 
     /**
-     * Creates a new {@code Config} with the given configuration data.
+     * Creates a new {@code Config} with the given configuration data. Pattern evaluation, principal variation
+     * search, the move history, late move reductions, futility pruning and internal iterative deepening are
+     * turned off.
      *
      * @param host              host name to connect to
      * @param port              port number to connect to
@@ -65,6 +87,46 @@ public class Config {
      *                          Use this when running the ai locally.
      */
     public Config(String host, int port, boolean pruning, boolean moveSorting, int beamWidth, boolean aspirationWindows, int rolloutFrequency, boolean enableErr) {
+        this(host, port, pruning, moveSorting, beamWidth, aspirationWindows, rolloutFrequency, enableErr,
+                PATTERN_EVALUATION_DEFAULT, PRINCIPAL_VARIATION_SEARCH_DEFAULT, MOVE_HISTORY_DEFAULT,
+                LATE_MOVE_REDUCTION_DEFAULT, FUTILITY_PRUNING_DEFAULT, INTERNAL_ITERATIVE_DEEPENING_DEFAULT);
+    }
+
+    /**
+     * Creates a new {@code Config} with the given configuration data.
+     *
+     * @param host              host name to connect to
+     * @param port              port number to connect to
+     * @param pruning           {@code true} if pruning should be used, {@code false} otherwise
+     * @param moveSorting       {@code true} if move sorting should be used, {@code false} otherwise
+     * @param beamWidth         width of beam used in beam search or {@code 0} if no beam search should be done.
+     *                          This is ignored if {@code moveSorting} is set to {@code false}.
+     * @param aspirationWindows {@code true} if aspiration windows should be used, {@code false} otherwise
+     * @param rolloutFrequency  number of turns after which to do a random rollout
+     * @param enableErr         {@code true} if errors and warnings should be printed to {@code stderr}, {@code false} otherwise.
+     *                          Use this when running the ai locally.
+     * @param patternEvaluation {@code true} if the pattern heuristics should replace stability and line clustering,
+     *                          {@code false} otherwise
+     * @param principalVariationSearch {@code true} if all but the first move of a node should be searched with a null
+     *                                 window first, {@code false} otherwise. This is ignored if {@code pruning} is set
+     *                                 to {@code false}.
+     * @param moveHistory       {@code true} if moves should be ordered by killer moves and the history heuristic,
+     *                          {@code false} otherwise. This is ignored if {@code moveSorting} is set to {@code false}.
+     * @param lateMoveReduction number of moves of a node searched at full depth before the later moves are searched
+     *                          with reduced depth, or {@code 0} if no moves should be reduced. This is ignored if
+     *                          {@code pruning} or {@code moveSorting} is set to {@code false}.
+     * @param futilityPruning   {@code true} if moves near the leaves should be skipped when their estimated value cannot
+     *                          reach the alpha-beta window, {@code false} otherwise. This is ignored if
+     *                          {@code pruning} is set to {@code false}.
+     * @param internalIterativeDeepening {@code true} if nodes without a known best move should search for one with
+     *                                   reduced depth first, {@code false} otherwise. This is ignored if
+     *                                   {@code pruning} is set to {@code false} or {@code moveSorting} is set to
+     *                                   {@code true}.
+     */
+    public Config(String host, int port, boolean pruning, boolean moveSorting, int beamWidth, boolean aspirationWindows,
+                  int rolloutFrequency, boolean enableErr, boolean patternEvaluation, boolean principalVariationSearch,
+                  boolean moveHistory, int lateMoveReduction, boolean futilityPruning,
+                  boolean internalIterativeDeepening) {
         this.host = host;
         this.port = port;
         this.pruning = pruning;
@@ -79,6 +141,12 @@ public class Config {
         this.randRollTimeBudget = RAND_ROLL_TIME_BUDGET_DEFAULT;
         this.maxRandRollIterations = MAX_RAND_ROLL_ITERATIONS_DEFAULT;
 
+        this.patternEvaluation = patternEvaluation;
+        this.principalVariationSearch = principalVariationSearch;
+        this.moveHistory = moveHistory;
+        this.lateMoveReduction = lateMoveReduction;
+        this.futilityPruning = futilityPruning;
+        this.internalIterativeDeepening = internalIterativeDeepening;
     }
 
     /**
@@ -196,6 +264,76 @@ public class Config {
         return maxRandRollIterations;
     }
 
+    /**
+     * Returns whether the pattern heuristics should be used instead of stability and line clustering.
+     *
+     * @return {@code true} if pattern evaluation is enabled, {@code false} otherwise
+     */
+    public boolean isPatternEvaluationEnabled() {
+        return patternEvaluation;
+    }
+
+    /**
+     * Returns whether principal variation search should be used.
+     * <p>
+     * This value is ignored if pruning is turned off.
+     *
+     * @return {@code true} if principal variation search is enabled, {@code false} otherwise
+     */
+    public boolean isPrincipalVariationSearchEnabled() {
+        return principalVariationSearch;
+    }
+
+    /**
+     * Returns whether moves should be ordered by killer moves and the history heuristic. Moves without a beam search
+     * are not evaluated for ordering then, while the beam search uses the history to order moves of equal value.
+     * <p>
+     * This value is ignored if move sorting is turned off entirely.
+     *
+     * @return {@code true} if the move history is enabled, {@code false} otherwise
+     */
+    public boolean isMoveHistoryEnabled() {
+        return moveHistory;
+    }
+
+    /**
+     * Returns the number of moves of a node that are searched at full depth, before the later moves are searched with
+     * reduced depth. Returns {@code 0} if late move reductions are turned off.
+     * <p>
+     * This value is ignored if pruning or move sorting is turned off.
+     *
+     * @return number of moves searched at full depth or {@code 0} if no moves should be reduced
+     */
+    public int getLateMoveReduction() {
+        return lateMoveReduction;
+    }
+
+    /**
+     * Returns whether futility pruning is turned on. Moves near the leaves are then skipped, if their estimated value
+     * cannot reach the alpha-beta window. The estimate is learned from earlier moves, so this is a heuristic that can
+     * change the chosen move.
+     * <p>
+     * This value is ignored if pruning is turned off.
+     *
+     * @return {@code true} if futility pruning should be used, {@code false} otherwise
+     */
+    public boolean isFutilityPruningEnabled() {
+        return futilityPruning;
+    }
+
+    /**
+     * Returns whether internal iterative deepening is turned on. Nodes without a known best move then search for one
+     * with reduced depth, which is searched first.
+     * <p>
+     * This value is ignored if pruning is turned off or move sorting is turned on, as sorted moves already have an
+     * order.
+     *
+     * @return {@code true} if internal iterative deepening should be used, {@code false} otherwise
+     */
+    public boolean isInternalIterativeDeepeningEnabled() {
+        return internalIterativeDeepening;
+    }
+
     /**
      * Parser that parses command line arguments and returns a {@link Config}.
      */
@@ -220,6 +358,12 @@ public class Config {
             boolean enableErr = ENABLE_ERR_DEFAULT;
             boolean aspiration = ASPIRATION_WINDOWS_DEFAULT;
             int rollout = RAND_ROLL_FREQUENCY_DEFAULT;
+            boolean patterns = PATTERN_EVALUATION_DEFAULT;
+            boolean pvs = PRINCIPAL_VARIATION_SEARCH_DEFAULT;
+            boolean history = MOVE_HISTORY_DEFAULT;
+            int lmr = LATE_MOVE_REDUCTION_DEFAULT;
+            boolean futility = FUTILITY_PRUNING_DEFAULT;
+            boolean iid = INTERNAL_ITERATIVE_DEEPENING_DEFAULT;
 
             // the type of token that is expected to follow -- state machine lite
             State expect = State.EXPECT_ARG;
@@ -262,6 +406,24 @@ public class Config {
                             case "--rollout":
                                 expect = State.EXPECT_ROLLOUT_FREQ;
                                 break;
+                            case "--patterns":
+                                patterns = true;
+                                break;
+                            case "--pvs":
+                                pvs = true;
+                                break;
+                            case "--history":
+                                history = true;
+                                break;
+                            case "--lmr":
+                                expect = State.EXPECT_LMR_MOVES;
+                                break;
+                            case "--futility":
+                                futility = true;
+                                break;
+                            case "--iid":
+                                iid = true;
+                                break;
                             case "--no-rollout":
                                 rollout = 0;
                             case "--err":
@@ -311,13 +473,25 @@ public class Config {
                         }
                         expect = State.EXPECT_ARG;
                         break;
+                    case EXPECT_LMR_MOVES:
+                        // read number of moves searched at full depth
+                        if (arg.charAt(0) == '-')
+                            throw new IllegalArgumentException();
+                        try {
+                            lmr = Integer.parseInt(arg);
+                        } catch (NumberFormatException nfe) {
+                            throw new IllegalArgumentException();
+                        }
+                        expect = State.EXPECT_ARG;
+                        break;
                 }
             }
 
             // host and port have to be both present
             if (host == null || port == -1)
                 throw new IllegalArgumentException();
-            return new Config(host, port, pruning, moveSorting, beamWidth, aspiration, rollout, enableErr);
+            return new Config(host, port, pruning, moveSorting, beamWidth, aspiration, rollout, enableErr, patterns,
+                    pvs, history, lmr, futility, iid);
         }
 
         /**
@@ -329,6 +503,7 @@ public class Config {
             EXPECT_PORT,
             EXPECT_BEAM_WIDTH,
             EXPECT_ROLLOUT_FREQ,
+            EXPECT_LMR_MOVES,
         }
     }
 }
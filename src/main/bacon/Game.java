@@ -214,6 +214,8 @@ public class Game {
             LOGGER.log(Level.FINE, "Move #{0}: Received legal move by player {1} on ({2}, {3}).",
                     new Object[]{moveCount, move.getPlayerId(), move.getX(), move.getY()});
             move.doMove();
+            // moves received from the server are never undone
+            currentGameState.getJournal().clear();
         } else LOGGER.log(Level.SEVERE, "Move #{0}: Can't execute move by player {1} on ({2}, {3}): is illegal!",
                 new Object[]{moveCount, move.getPlayerId(), move.getX(), move.getY()});
 
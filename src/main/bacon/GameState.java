@@ -19,6 +19,10 @@ public class GameState {
      * {@code id} of the {@link Player} that is controlled by the ai.
      */
     private int me;
+    /**
+     * Journal of the changes made by moves, used to undo them.
+     */
+    private final UndoJournal journal = new UndoJournal();
 
     /**
      * Creates a new {@code GameState} with default values.
@@ -120,6 +124,15 @@ public class GameState {
         this.me = me;
     }
 
+    /**
+     * Returns the {@link UndoJournal} the moves on this {@code GameState} record their changes in.
+     *
+     * @return the {@code UndoJournal} of this {@code GameState}
+     */
+    public UndoJournal getJournal() {
+        return journal;
+    }
+
     /**
      * Sets the array of {@link Player}s that participate in the game.
      *
@@ -0,0 +1,231 @@
+package bacon;
+
+import java.util.Arrays;
+
+/**
+ * An index of the {@link Tile}s each {@link Player} can currently make a regular move on.
+ * <p>
+ * Whether a free {@code Tile} is a legal target only depends on the stones on its rays up to the first empty
+ * {@code Tile}. The index therefore does not rebuild the targets after every move. Instead, the {@link Map} reports
+ * every changed {@code Tile} to the index, and only the {@code Tile}s that can see a changed {@code Tile} are checked
+ * again when the targets of a {@code Player} are requested. As undoing a move changes {@code Tile}s as well, undone
+ * moves are handled the same way.
+ * <p>
+ * The targets are stored by physical player id (see {@link Map#toPhysicalId(int)}), so inversion and choice
+ * {@code Tile}s do not invalidate the index.
+ */
+public class LegalMoveIndex {
+
+    /**
+     * Number of {@link Tile} changes that are remembered. {@code Player}s whose targets are older than this are
+     * rebuilt from scratch.
+     */
+    private static final int LOG_CAPACITY = 1 << 12;
+
+    private final Map map;
+    /**
+     * The legal targets of each player, indexed by the physical player id.
+     */
+    private final TileSet[] targets;
+    /**
+     * The number of changes the targets of each player are up to date with, indexed by the physical player id.
+     * {@code -1} if the targets have to be rebuilt.
+     */
+    private final long[] synced;
+    /**
+     * Ring buffer of the indices of the changed {@link Tile}s.
+     */
+    private final int[] changes;
+    /**
+     * The total number of changes reported.
+     */
+    private long changeCount;
+    /**
+     * Marks the {@link Tile}s that have already been checked during an update. A {@code Tile} is marked, if its
+     * element is equal to {@link #stamp}.
+     */
+    private final int[] stamps;
+    private int stamp;
+
+    /**
+     * Creates a new empty {@code LegalMoveIndex} for the given {@link Map}.
+     *
+     * @param map   the {@code Map} the index belongs to
+     * @param tiles the {@link Tile}s of the {@code Map} in index order. The array may be filled after creation.
+     */
+    LegalMoveIndex(Map map, Tile[] tiles) {
+        this.map = map;
+        this.targets = new TileSet[Map.MAX_PLAYER_COUNT + 1];
+        for (int i = 0; i <= Map.MAX_PLAYER_COUNT; i++) {
+            this.targets[i] = new TileSet(tiles);
+        }
+        this.synced = new long[Map.MAX_PLAYER_COUNT + 1];
+        Arrays.fill(this.synced, -1);
+        this.changes = new int[LOG_CAPACITY];
+        this.stamps = new int[tiles.length];
+    }
+
+    /**
+     * Reports that the owner or {@link Tile.Property} of the {@link Tile} with the given index changed.
+     *
+     * @param index the index of the {@code Tile}
+     */
+    void tileChanged(int index) {
+        changes[(int) (changeCount & (LOG_CAPACITY - 1))] = index;
+        changeCount++;
+    }
+
+    /**
+     * Reports that the transitions of the {@link Map} changed. All targets are rebuilt when requested next.
+     */
+    void transitionsChanged() {
+        Arrays.fill(synced, -1);
+    }
+
+    /**
+     * Returns the {@link Tile}s the given {@link Player} can currently make a regular move on.
+     * <p>
+     * The returned set is owned by the index. It is only valid until the {@link Map} changes.
+     *
+     * @param playerId the {@code id} of the {@code Player}
+     * @return a set containing the legal targets of the {@code Player}
+     */
+    public TileSet getTargets(int playerId) {
+        int physicalId = map.toPhysicalId(playerId);
+        update(1 << physicalId);
+        return targets[physicalId];
+    }
+
+    /**
+     * Brings the targets of all given {@link Player}s up to date at once.
+     * <p>
+     * Each {@link Tile} that has to be checked is only walked once for all {@code Player}s. Call this before
+     * requesting the targets of several {@code Player}s with {@link #getTargets(int)}.
+     *
+     * @param playerIds the {@code id}s of the {@code Player}s
+     */
+    public void updateTargets(int[] playerIds) {
+        int physicalIds = 0;
+        for (int playerId : playerIds) {
+            physicalIds |= 1 << map.toPhysicalId(playerId);
+        }
+        update(physicalIds);
+    }
+
+    /**
+     * Brings the targets of the given physical player ids up to date.
+     *
+     * @param physicalIds the physical player ids as a bitmask, bit {@code i} represents physical id {@code i}
+     */
+    private void update(int physicalIds) {
+        // find the oldest state any of the players is in
+        long from = changeCount;
+        for (int physicalId = 1; physicalId <= Map.MAX_PLAYER_COUNT; physicalId++) {
+            if ((physicalIds & (1 << physicalId)) == 0) continue;
+
+            if (synced[physicalId] == changeCount) physicalIds &= ~(1 << physicalId);
+            else if (synced[physicalId] < 0 || changeCount - synced[physicalId] > LOG_CAPACITY) from = -1;
+            else if (from >= 0) from = Math.min(from, synced[physicalId]);
+        }
+        if (physicalIds == 0) return;
+
+        if (from < 0) {
+            // too many changes, start from scratch
+            for (int physicalId = 1; physicalId <= Map.MAX_PLAYER_COUNT; physicalId++) {
+                if ((physicalIds & (1 << physicalId)) != 0) targets[physicalId].clear();
+            }
+            TileSet frontier = map.getFrontierTiles();
+            for (int tile = frontier.nextIndex(0); tile >= 0; tile = frontier.nextIndex(tile + 1)) {
+                int capturing = getCapturingPlayers(tile) & physicalIds;
+                for (int physicalId = 1; physicalId <= Map.MAX_PLAYER_COUNT; physicalId++) {
+                    if ((capturing & (1 << physicalId)) != 0) targets[physicalId].add(tile);
+                }
+            }
+        } else {
+            // players that are already further ahead are checked again, which does not hurt
+            nextStamp();
+            for (long change = from; change < changeCount; change++) {
+                int changed = changes[(int) (change & (LOG_CAPACITY - 1))];
+                check(changed, physicalIds);
+
+                // only the first empty tile on each ray can see the changed tile, the empty tile hides all others
+                for (int direction = 0; direction < Direction.DIRECTION_COUNT; direction++) {
+                    for (int tile : map.getRay(changed, direction)) {
+                        if (map.getOwnerId(tile) == Player.NULL_PLAYER_ID && map.getProperty(tile) != Tile.Property.EXPANSION) {
+                            check(tile, physicalIds);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int physicalId = 1; physicalId <= Map.MAX_PLAYER_COUNT; physicalId++) {
+            if ((physicalIds & (1 << physicalId)) != 0) synced[physicalId] = changeCount;
+        }
+    }
+
+    /**
+     * Checks for which of the given physical player ids the {@link Tile} with the given index is a legal target
+     * and updates the targets accordingly. Every {@code Tile} is only checked once per update.
+     *
+     * @param index       the index of the {@code Tile}
+     * @param physicalIds the physical player ids as a bitmask
+     */
+    private void check(int index, int physicalIds) {
+        if (stamps[index] == stamp) return;
+        stamps[index] = stamp;
+
+        // only tiles on the frontier can be captured from
+        int capturing = map.getFrontierTiles().contains(index) ? getCapturingPlayers(index) : 0;
+        for (int physicalId = 1; physicalId <= Map.MAX_PLAYER_COUNT; physicalId++) {
+            int bit = 1 << physicalId;
+            if ((physicalIds & bit) == 0) continue;
+
+            if ((capturing & bit) != 0) targets[physicalId].add(index);
+            else targets[physicalId].remove(index);
+        }
+    }
+
+    /**
+     * Returns the physical player ids that capture any stones by placing a stone on the free {@link Tile} with the
+     * given index.
+     * <p>
+     * Each ray is walked only once for all players. A player captures in a direction, if its first stone on the ray
+     * is preceded by at least one other stone.
+     *
+     * @param index the index of the {@code Tile}
+     * @return the capturing physical player ids as a bitmask, bit {@code i} represents physical id {@code i}
+     */
+    private int getCapturingPlayers(int index) {
+        int capturing = 0;
+        for (int direction = 0; direction < Direction.DIRECTION_COUNT; direction++) {
+            int[] ray = map.getRay(index, direction);
+            int passed = 0;     // players whose stones have been passed on this ray
+            for (int i = 0; i < ray.length; i++) {
+                int owner = map.getPhysicalOwnerId(ray[i]);
+                if (owner == Player.NULL_PLAYER_ID) {
+                    // empty tiles end the ray, expansion stones are passed
+                    if (map.getProperty(ray[i]) != Tile.Property.EXPANSION) break;
+                } else {
+                    int bit = 1 << owner;
+                    if (i > 0 && (passed & bit) == 0) capturing |= bit;
+                    passed |= bit;
+                }
+            }
+        }
+        return capturing;
+    }
+
+    /**
+     * Invalidates the marks of all checked {@link Tile}s.
+     */
+    private void nextStamp() {
+        stamp++;
+        if (stamp == 0) {
+            // the stamps wrapped around, so old marks could become valid again
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+    }
+}
@@ -77,13 +77,20 @@ public class Main {
         String nl = System.getProperty("line.separator");
         String helpInfo =
                 "usage: bacon [--help] [-s <server> | --server <server> -p <port> | --port <port> [--no-prune]" + nl +
-                        "             [--no-sort] [-b <width> | --beam <width> | --no-beam] [--err]]" + nl +
+                        "             [--no-sort] [-b <width> | --beam <width> | --no-beam] [--patterns]" + nl +
+                        "             [--pvs] [--history] [--lmr <moves>] [--futility] [--iid] [--err]]" + nl +
                         "-s, --server <host>\t server to connect with (mandatory)" + nl +
                         "-p, --port <port>  \t port to connect to (mandatory)" + nl +
                         "    --no-prune     \t disable alpha-beta-pruning" + nl +
                         "    --no-sort      \t disable move sorting entirely" + nl +
                         "-b, --beam <width> \t set beam width for forward pruning" + nl +
                         "    --no-beam      \t disable beam search, same as '-b 0'" + nl +
+                        "    --patterns     \t evaluate line patterns instead of stability and clustering" + nl +
+                        "    --pvs          \t search all but the first move with a null window first" + nl +
+                        "    --history      \t order moves by killer moves and the history heuristic" + nl +
+                        "    --lmr <moves>  \t search moves after the first <moves> with reduced depth" + nl +
+                        "    --futility     \t skip moves near the leaves that cannot reach the window" + nl +
+                        "    --iid          \t with --no-sort, search for a first move with reduced depth" + nl +
                         "    --err          \t write errors and warnings to stderr" + nl +
                         "    --help         \t display this help text" + nl;
 
@@ -9,12 +9,129 @@ import java.util.*;
  */
 public class Map {
 
+    /**
+     * The maximum number of {@link Player}s a {@code Map} can be played with.
+     */
+    public static final int MAX_PLAYER_COUNT = 8;
+    /**
+     * Number of distinct inventory counts used for hashing. Larger counts share the keys of smaller ones.
+     */
+    private static final int INVENTORY_HASH_COUNTS = 64;
+
     public final int width;
     public final int height;
     /**
      * The {@link Tile}s this map consists of. This is guaranteed to be non-empty.
      */
     private final Tile[][] tiles;
+    /**
+     * The non-hole {@link Tile}s of this map, ordered by their {@link Tile#index}.
+     */
+    private final Tile[] tilesByIndex;
+    /**
+     * The owner of each {@link Tile}, indexed by {@link Tile#index}.
+     * The last element belongs to the holes and is always {@link Player#NULL_PLAYER_ID}.
+     */
+    private final int[] owners;
+    /**
+     * The {@link Tile.Property} of each {@link Tile}, indexed by {@link Tile#index}.
+     * The last element belongs to the holes and is always {@link Tile.Property#HOLE}.
+     */
+    private final Tile.Property[] properties;
+    /**
+     * The transition table. {@code transitions[direction][index]} is the index of the {@link Tile} that the transition
+     * in the given {@link Direction} leads to, or the hole index {@link #getTileCount()} if there is no transition.
+     * The hole index only leads to itself.
+     */
+    private final int[][] transitions;
+    /**
+     * The arrival table. {@code arrivals[direction][index]} is the {@link Direction} in which the according transition
+     * arrives at the other {@link Tile}, or {@link Direction#NULL_DIRECTION_ID} if there is no transition.
+     */
+    private final byte[][] arrivals;
+    /**
+     * The rays starting at each {@link Tile}, indexed by {@code index * DIRECTION_COUNT + direction}.
+     * Rays are built on first use and discarded when a transition on them changes.
+     * See {@link #getRay(int, int)}.
+     */
+    private final int[][] rays;
+    /**
+     * The {@link Tile}s whose transitions changed since the {@link #rays} were last checked.
+     */
+    private final TileSet transitionChanges;
+    /**
+     * The {@link Tile}s owned by each player, indexed by the physical player id.
+     */
+    private final TileSet[] stones;
+    /**
+     * Maps the physical player ids stored in {@link #owners} to the {@link Player#id}s they currently belong to.
+     * <p>
+     * Inversion and choice {@link Tile}s exchange the stones of all or two {@code Player}s. Instead of touching every
+     * stone on the {@code Map}, only this permutation is changed.
+     */
+    private final int[] logicalIds;
+    /**
+     * The inverse of {@link #logicalIds}. Maps the {@link Player#id}s to the physical player ids.
+     */
+    private final int[] physicalIds;
+    /**
+     * The {@link Tile}s with a given {@link Tile.Property}, indexed by the ordinal of the {@code Property}.
+     */
+    private final TileSet[] propertyTiles;
+    /**
+     * The {@link Tile}s that are free, i.e. not occupied by any player nor expansion stone and isn't a hole.
+     */
+    private final TileSet freeTiles;
+    /**
+     * The {@link Tile}s that are occupied by any player or by an expansion stone.
+     */
+    private final TileSet occupiedOrExpansionTiles;
+    /**
+     * The number of transitions leading to each {@link Tile} from {@link #occupiedOrExpansionTiles},
+     * indexed by {@link Tile#index}.
+     */
+    private final int[] occupiedNeighbours;
+    /**
+     * The free {@link Tile}s that can be reached in one transition from a {@code Tile} that is occupied
+     * or an expansion field. Only these {@code Tile}s can be targets of a regular move.
+     */
+    private final TileSet frontierTiles;
+    /**
+     * The legal targets of regular moves for each {@link Player}.
+     */
+    private final LegalMoveIndex legalMoveIndex;
+    /**
+     * The stability values of the {@link Player}s.
+     */
+    private final StabilityIndex stabilityIndex;
+    /**
+     * The pattern scores of the {@link Player}s.
+     */
+    private final PatternIndex patternIndex;
+    /**
+     * The line clustering sums of the players, indexed by the physical player id. See
+     * {@link #getLineClusteringSum(int)}.
+     */
+    private final int[] lineClusteringSums;
+    /*
+    Scratch space for getLineClusteringSum(int, int[], int[], int, int): the touched lines and the changes of their
+    shares and references.
+     */
+    private TileLine[] touchedLines = new TileLine[16];
+    private int[] shareChanges = new int[16];
+    private int[] referenceChanges = new int[16];
+    /**
+     * Random keys for <i>Zobrist hashing</i>. See {@link #getHash()}.
+     * <p>
+     * Contains one key per physical owner and {@link Tile}, followed by one key per {@link Tile.Property} and
+     * {@code Tile}, one key per physical and logical player id, and one key per player, kind of inventory item and
+     * item count.
+     */
+    private final long[] hashKeys;
+    /**
+     * The hash of the current position. See {@link #getHash()}.
+     */
+    private long hash;
     /**
      * Amount of {@link Tile}s occupied by any {@link Player}.
      */
@@ -31,14 +148,6 @@ public class Map {
      * Amount of bonus {@link Tile}s on the map
      */
     private int bonusTiles;
-    /**
-     * The {@link Tile}s that are free, i.e. not occupied by any player nor expansion stone and isn't a hole.
-     */
-    private Set<Tile> freeTiles;
-    /**
-     * The {@link Tile}s that have an expansion stone on them.
-     */
-    private Set<Tile> expansionTiles;
 
     /**
      * Result of Random Rollouts
@@ -61,30 +170,67 @@ public class Map {
     private double avgBombArea;
 
     /**
-     * Constructs a new {@code Map} from the given {@link Tile}s.
-     * {@code width} and {@code height} are set to the x and y dimensions of the {@code tiles} array,
-     * both being required to be positive.
+     * Constructs a new empty {@code Map} with the given dimensions.
+     * Both {@code width} and {@code height} are required to be positive.
+     * <p>
+     * The {@link Tile}s have to be created and initialized afterwards.
      *
-     * @param tiles          an array containing the {@code Tile}s of the new {@code Map}
-     * @param initOccupied   the initial count of occupied {@code Tile}s
-     * @param freeTiles      a set containing the unoccupied {@code Tiles} of the new {@code Map}
-     * @param expansionTiles a set containing those tiles, that have an expansion stone on them.
-     *                       This is required and asserted to be a subset of {@code tiles}.
+     * @param width     width of the {@code Map}
+     * @param height    height of the {@code Map}
+     * @param tileCount the number of {@code Tile}s of the {@code Map} that are not holes
      */
-    private Map(Tile[][] tiles, int initOccupied, int inversionTiles, int choiceTiles, int bonusTiles, Set<Tile> freeTiles, Set<Tile> expansionTiles) {
-        this.tiles = tiles;
-
-        assert tiles.length > 0 && tiles[0].length > 0 : "Dimensions of tiles have to be positive";
+    private Map(int width, int height, int tileCount) {
+        assert width > 0 && height > 0 : "Dimensions of tiles have to be positive";
+
+        this.width = width;
+        this.height = height;
+        this.tiles = new Tile[width][height];
+        this.tilesByIndex = new Tile[tileCount];
+
+        this.owners = new int[tileCount + 1];
+        this.properties = new Tile.Property[tileCount + 1];
+        Arrays.fill(this.properties, Tile.Property.HOLE);
+
+        this.transitions = new int[Direction.DIRECTION_COUNT][tileCount + 1];
+        this.arrivals = new byte[Direction.DIRECTION_COUNT][tileCount + 1];
+        for (int direction = 0; direction < Direction.DIRECTION_COUNT; direction++) {
+            Arrays.fill(this.transitions[direction], tileCount);
+            Arrays.fill(this.arrivals[direction], (byte) Direction.NULL_DIRECTION_ID);
+        }
+        this.rays = new int[Direction.DIRECTION_COUNT * (tileCount + 1)][];
 
-        this.width = tiles.length;
-        this.height = tiles[0].length;
+        this.stones = new TileSet[MAX_PLAYER_COUNT + 1];
+        for (int i = 1; i <= MAX_PLAYER_COUNT; i++) {
+            this.stones[i] = new TileSet(tilesByIndex);
+        }
+        this.propertyTiles = new TileSet[Tile.Property.values().length];
+        for (int i = 0; i < propertyTiles.length; i++) {
+            this.propertyTiles[i] = new TileSet(tilesByIndex);
+        }
+        this.freeTiles = new TileSet(tilesByIndex);
+        this.occupiedOrExpansionTiles = new TileSet(tilesByIndex);
+        this.occupiedNeighbours = new int[tileCount + 1];
+        this.frontierTiles = new TileSet(tilesByIndex);
+        this.legalMoveIndex = new LegalMoveIndex(this, tilesByIndex);
+        this.stabilityIndex = new StabilityIndex(this);
+        this.patternIndex = new PatternIndex(this, PatternIndex.defaultTable());
+        this.lineClusteringSums = new int[MAX_PLAYER_COUNT + 1];
+
+        this.hashKeys = new long[(MAX_PLAYER_COUNT + 1 + Tile.Property.values().length) * (tileCount + 1)
+                + (MAX_PLAYER_COUNT + 1) * (MAX_PLAYER_COUNT + 1) + 2 * (MAX_PLAYER_COUNT + 1) * INVENTORY_HASH_COUNTS];
+        // fixed seed, so hashes are reproducible
+        var random = new SplittableRandom(0x5DEECE66DL);
+        for (int i = 0; i < hashKeys.length; i++) {
+            this.hashKeys[i] = random.nextLong();
+        }
+        this.transitionChanges = new TileSet(tilesByIndex);
 
-        this.occupiedTiles = initOccupied;
-        this.inversionTiles = inversionTiles;
-        this.choiceTiles = choiceTiles;
-        this.bonusTiles = bonusTiles;
-        this.freeTiles = freeTiles;
-        this.expansionTiles = expansionTiles;
+        this.logicalIds = new int[MAX_PLAYER_COUNT + 1];
+        this.physicalIds = new int[MAX_PLAYER_COUNT + 1];
+        for (int i = 0; i <= MAX_PLAYER_COUNT; i++) {
+            this.logicalIds[i] = i;
+            this.physicalIds[i] = i;
+        }
 
         this.rolloutsAvailable = false;
     }
@@ -106,56 +252,68 @@ public class Map {
      * @return a new {@code Map} instance containing new {@code Tile} instances
      */
     static Map readFromString(final int width, final int height, String[] lines) {
-        Tile[][] tiles = new Tile[width][height];
+        // count the tiles that are not holes to determine the dense tile indices
+        int tileCount = 0;
+        for (int h = 0; h < height; h++) {
+            String[] tile = lines[h].split(" ");
+            for (int w = 0; w < width; w++) {
+                if (tile[w].charAt(0) != '-') tileCount++;
+            }
+        }
+
+        Map map = new Map(width, height, tileCount);
+        Tile[][] tiles = map.tiles;
         int occupiedCount = 0;
-        Set<Tile> freeTiles = new HashSet<>();
-        Set<Tile> expansionTiles = new HashSet<>();
         int inversionTiles = 0;
         int choiceTiles = 0;
         int bonusTiles = 0;
 
         // putting tile information into the array
+        int index = 0;
         for (int h = 0; h < height; h++) {
             String[] tile = lines[h].split(" ");
             for (int w = 0; w < width; w++) {
                 char symbol = tile[w].charAt(0);
 
+                if (symbol == '-') {
+                    // Tile is a hole
+                    tiles[w][h] = new Tile(map, tileCount, w, h);
+                    continue;
+                }
+
+                tiles[w][h] = new Tile(map, index, w, h);
+                map.tilesByIndex[index] = tiles[w][h];
+
                 if (symbol == '0') {
                     // Tile is empty
-                    tiles[w][h] = new Tile(Player.NULL_PLAYER_ID, Tile.Property.DEFAULT, w, h);
-                    freeTiles.add(tiles[w][h]);
+                    map.setProperty(index, Tile.Property.DEFAULT);
                 } else if (symbol <= '8' && symbol > '0') {
                     // Tile has a Stone (an owner)
-                    int playerId = Character.getNumericValue(symbol);
-                    tiles[w][h] = new Tile(playerId, Tile.Property.DEFAULT, w, h);
-                    Game.getGame().getCurrentState().getPlayerFromId(playerId).addStone(tiles[w][h]);
+                    map.setProperty(index, Tile.Property.DEFAULT);
+                    map.setOwnerId(index, Character.getNumericValue(symbol));
                     occupiedCount++;
-                } else if (symbol != '-') {
-                    // Tile is not a hole --> Tile has Property
-                    tiles[w][h] = new Tile(Player.NULL_PLAYER_ID, Tile.Property.fromChar(symbol), w, h);
-                    if (symbol == 'x') {
-                        occupiedCount++;
-                        expansionTiles.add(tiles[w][h]);
-                    }
-                    if (symbol == 'i') {
-                        freeTiles.add(tiles[w][h]);
-                        inversionTiles++;
-                    }
-                    if (symbol == 'c') {
-                        freeTiles.add(tiles[w][h]);
-                        choiceTiles++;
-                    }
-                    if (symbol == 'b') {
-                        freeTiles.add(tiles[w][h]);
-                        bonusTiles++;
-                    }
                 } else {
-                    // Tile is a hole
-                    tiles[w][h] = new Tile(Player.NULL_PLAYER_ID, Tile.Property.HOLE, w, h);
+                    // Tile has Property
+                    map.setProperty(index, Tile.Property.fromChar(symbol));
+                    if (symbol == 'x') occupiedCount++;
+                    if (symbol == 'i') inversionTiles++;
+                    if (symbol == 'c') choiceTiles++;
+                    if (symbol == 'b') bonusTiles++;
                 }
+                index++;
             }
         }
 
+        map.occupiedTiles = occupiedCount;
+        map.inversionTiles = inversionTiles;
+        map.choiceTiles = choiceTiles;
+        map.bonusTiles = bonusTiles;
+
+        GameState state = Game.getGame().getCurrentState();
+        for (int i = 1; i <= state.getTotalPlayerCount(); i++) {
+            state.getPlayerFromId(i).setMap(map);
+        }
+
         // setting ordinary transitions (neighbours) while avoiding ArrayIndexOutOfBounds
         for (int x = 0; x < width; x++) {
             for (int y = 0; y < height; y++) {
@@ -194,9 +352,6 @@ public class Map {
             }
         }
 
-        Map map = new Map(tiles, occupiedCount, inversionTiles, choiceTiles, bonusTiles, freeTiles, expansionTiles);
-
-
         // adding additional transitions from map specification
         for (int l = height; l < lines.length; l++) {
             String[] elements = lines[l].split(" ");
@@ -209,7 +364,7 @@ public class Map {
 
         // compute the bomb effect of each tile; stays the same during the whole game
         // also calculate average size of affected area
-        int tileCount = 1;
+        int bombTileCount = 1;
         int bombEffectSum = 0;
         if (map.width * map.height * Math.pow(2 * Game.getGame().getBombRadius() + 1, 2) <= 100000) {
             for (int x = 0; x < map.width; x++) {
@@ -217,15 +372,16 @@ public class Map {
                     if (map.getTileAt(x, y) != null) {
                         map.getTileAt(x, y).setBombEffect(BombMove.getAffectedTiles(map.getTileAt(x, y), Game.getGame().getBombRadius()));
                         bombEffectSum += map.getTileAt(x, y).getBombEffect().size();
-                        tileCount++;
+                        bombTileCount++;
                     }
                 }
             }
-            map.avgBombArea = bombEffectSum / tileCount;
+            map.avgBombArea = bombEffectSum / bombTileCount;
         }
 
         // compute the static line geometry
         map.lineGeometry = map.new LineGeometry();
+        map.assignLineGeometryPlayers();
 
         return map;
     }
@@ -243,15 +399,273 @@ public class Map {
         tile2.setTransition(tile1, direction2, direction1);
     }
 
+    /**
+     * Returns the index of the {@link Tile} the transition in the given {@link Direction} leads to.
+     * <p>
+     * Returns the hole index {@link #getTileCount()} if there is no transition, so walking along transitions never
+     * requires {@code null} checks. The hole index itself only leads to the hole index again.
+     *
+     * @param index     the index of the {@code Tile} the transition starts at
+     * @param direction {@code Direction} in integer representation in which the transition is applied
+     * @return the index of the {@code Tile} the transition leads to or {@link #getTileCount()}
+     */
+    public int getTransition(int index, int direction) {
+        return transitions[direction][index];
+    }
+
+    /**
+     * Returns the {@link Direction} in which the transition in the given {@code Direction} arrives.
+     *
+     * @param index     the index of the {@link Tile} the transition starts at
+     * @param direction {@code Direction} in integer representation in which the transition is applied
+     * @return the arriving {@code Direction} in integer representation
+     * or {@link Direction#NULL_DIRECTION_ID} if no transition is present in the given direction
+     */
+    public int getArrivalDirection(int index, int direction) {
+        return arrivals[direction][index];
+    }
+
+    /**
+     * Sets the transition of the {@link Tile} with the given index in the given {@link Direction}.
+     *
+     * @param index     the index of the {@code Tile} the transition starts at
+     * @param direction {@code Direction} in integer representation in which the transition is applied
+     * @param other     the index of the {@code Tile} the transition leads to
+     * @param arrival   {@code Direction} in integer representation in which the transition arrives at the other tile
+     */
+    void setTransition(int index, int direction, int other, int arrival) {
+        int previous = transitions[direction][index];
+        transitions[direction][index] = other;
+        arrivals[direction][index] = (byte) arrival;
+        transitionChanges.add(index);
+        legalMoveIndex.transitionsChanged();
+        stabilityIndex.transitionsChanged();
+        patternIndex.transitionsChanged();
+
+        if (occupiedOrExpansionTiles.contains(index)) {
+            occupiedNeighbours[previous]--;
+            updateFrontier(previous);
+            occupiedNeighbours[other]++;
+            updateFrontier(other);
+        }
+    }
+
+    /**
+     * Returns the ray starting at the {@link Tile} with the given index in the given {@link Direction}.
+     * <p>
+     * The ray contains the indices of all {@code Tile}s that are passed when following the transitions, starting with
+     * the neighbour in the given {@code Direction}. After each transition the walk continues opposite to the arrival
+     * direction. The ray ends before a hole or when it leads back to the starting {@code Tile}.
+     * <p>
+     * Rays only depend on the transitions, so they are built once and reused until a transition on them changes,
+     * i.e. when a {@code Tile} on the ray is bombed. The returned array must not be modified.
+     *
+     * @param index     the index of the {@code Tile} the ray starts at
+     * @param direction {@code Direction} in integer representation in which the ray starts
+     * @return the indices of the {@code Tile}s on the ray in walking order
+     */
+    public int[] getRay(int index, int direction) {
+        if (!transitionChanges.isEmpty()) discardChangedRays();
+
+        int slot = index * Direction.DIRECTION_COUNT + direction;
+        int[] ray = rays[slot];
+        if (ray == null) {
+            ray = buildRay(index, direction);
+            rays[slot] = ray;
+        }
+        return ray;
+    }
+
+    /**
+     * Walks along the transitions starting at the {@link Tile} with the given index in the given {@link Direction}.
+     *
+     * @param origin    the index of the {@code Tile} the ray starts at
+     * @param direction {@code Direction} in integer representation in which the ray starts
+     * @return the indices of the {@code Tile}s on the ray in walking order
+     */
+    private int[] buildRay(int origin, int direction) {
+        int hole = getTileCount();
+        // every tile can be entered from at most 8 directions, so longer walks are stuck in a cycle
+        int maxLength = Direction.DIRECTION_COUNT * hole;
+
+        int[] ray = new int[16];
+        int length = 0;
+        int last = origin;
+        int searchDirection = direction;
+        while (length < maxLength) {
+            int next = transitions[searchDirection][last];
+            if (next == hole || next == origin) break;
+
+            // continue opposite to the arrival direction
+            searchDirection = Direction.oppositeOf(arrivals[searchDirection][last]);
+            last = next;
+
+            if (length == ray.length) ray = Arrays.copyOf(ray, 2 * length);
+            ray[length++] = last;
+        }
+        return Arrays.copyOf(ray, length);
+    }
+
+    /**
+     * Discards all {@link #rays} that start at or pass a {@link Tile} whose transitions changed.
+     */
+    private void discardChangedRays() {
+        for (int slot = 0; slot < rays.length; slot++) {
+            int[] ray = rays[slot];
+            if (ray == null) continue;
+
+            boolean changed = transitionChanges.contains(slot / Direction.DIRECTION_COUNT);
+            for (int i = 0; i < ray.length && !changed; i++) {
+                changed = transitionChanges.contains(ray[i]);
+            }
+            if (changed) rays[slot] = null;
+        }
+        transitionChanges.clear();
+    }
+
+    /**
+     * Removes all transitions from and to the {@link Tile} with the given index.
+     * <p>
+     * Use this when the {@code Tile} is bombed away.
+     *
+     * @param index the index of the {@code Tile}
+     */
+    void removeTransitions(int index) {
+        int holeIndex = getTileCount();
+        // remove transition from neighbors to bombed tile
+        for (int direction = 0; direction < Direction.DIRECTION_COUNT; direction++) {
+            int neighbor = transitions[direction][index];
+            if (neighbor == holeIndex) continue;
+            for (int neighborDirection = 0; neighborDirection < Direction.DIRECTION_COUNT; neighborDirection++) {
+                if (transitions[neighborDirection][neighbor] == index) {
+                    setTransition(neighbor, neighborDirection, holeIndex, Direction.NULL_DIRECTION_ID);
+                }
+            }
+        }
+        // remove transitions from bombed tile to neighbors
+        for (int direction = 0; direction < Direction.DIRECTION_COUNT; direction++) {
+            setTransition(index, direction, holeIndex, Direction.NULL_DIRECTION_ID);
+        }
+    }
+
     /**
      * Updates player share of {@link TileLine}s in the {@link LineGeometry}.
      * <p>
-     * Call this method after the player {@code id} has been assigned.
+     * The shares are kept up to date for all players afterwards.
      */
     public void assignLineGeometryPlayers() {
+        Arrays.fill(lineClusteringSums, 0);
         lineGeometry.assignTileLinePlayers();
     }
 
+    /**
+     * Returns the line clustering sum of the given {@link Player}.
+     * <p>
+     * This is the sum of the player shares of the row, column, diagonal and indiagonal of every stone of the
+     * {@code Player}. See {@link TileLine#getPlayerShare(int)}. The sum is updated with every change of a
+     * {@link Tile}.
+     *
+     * @param playerId the {@code id} of the {@code Player}
+     * @return the line clustering sum
+     */
+    public int getLineClusteringSum(int playerId) {
+        return lineClusteringSums[physicalIds[playerId]];
+    }
+
+    /**
+     * Returns the line clustering sum the given physical id would have if the given {@link Tile}s were taken over by
+     * another physical id. The {@code Map} is not changed.
+     * <p>
+     * See {@link #getLineClusteringSum(int)}.
+     *
+     * @param physicalId the physical id to compute the sum for
+     * @param tiles      the indices of the {@code Tile}s that change their owner
+     * @param oldOwners  the physical ids of the current owners of the {@code Tile}s
+     * @param count      the number of {@code Tile}s
+     * @param newOwner   the physical id of the new owner of all {@code Tile}s
+     * @return the line clustering sum after the change
+     */
+    public int getLineClusteringSum(int physicalId, int[] tiles, int[] oldOwners, int count, int newOwner) {
+        int touchedCount = 0;
+        for (int i = 0; i < count; i++) {
+            int change = 0;
+            if (oldOwners[i] == physicalId) change--;
+            if (newOwner == physicalId) change++;
+            if (change == 0) continue;
+
+            Tile tile = tilesByIndex[tiles[i]];
+            for (TileLine line : tile.getLines()) {
+                int slot = touchLine(line, touchedCount);
+                if (slot == touchedCount) touchedCount++;
+                shareChanges[slot] += change;
+            }
+            touchedCount = changeReferences(tile.getRow(), change, touchedCount);
+            touchedCount = changeReferences(tile.getColumn(), change, touchedCount);
+            touchedCount = changeReferences(tile.getDiagonal(), change, touchedCount);
+            touchedCount = changeReferences(tile.getIndiagonal(), change, touchedCount);
+        }
+
+        // the sum is made of share * references for each line
+        int sum = lineClusteringSums[physicalId];
+        for (int slot = 0; slot < touchedCount; slot++) {
+            int share = touchedLines[slot].getPhysicalShare(physicalId);
+            int references = touchedLines[slot].getPhysicalReferences(physicalId);
+            sum += share * referenceChanges[slot] + shareChanges[slot] * references
+                    + shareChanges[slot] * referenceChanges[slot];
+            touchedLines[slot] = null;
+        }
+        return sum;
+    }
+
+    /**
+     * Adds the given change to the references of the given {@link TileLine}, a line in one of the four axes of a
+     * changed {@code Tile}.
+     *
+     * @param line         the {@code TileLine}, or {@code null} if the {@code Tile} has none along the axis
+     * @param change       the change of the number of stones of the player
+     * @param touchedCount the number of touched lines
+     * @return the number of touched lines afterwards
+     */
+    private int changeReferences(TileLine line, int change, int touchedCount) {
+        if (line == null) return touchedCount;
+
+        int slot = touchLine(line, touchedCount);
+        referenceChanges[slot] += change;
+        return slot == touchedCount ? touchedCount + 1 : touchedCount;
+    }
+
+    /**
+     * Finds the given {@link TileLine} in the touched lines or appends it.
+     *
+     * @param line         the {@code TileLine}
+     * @param touchedCount the number of touched lines
+     * @return the slot of the line, equal to {@code touchedCount} if it was appended
+     */
+    private int touchLine(TileLine line, int touchedCount) {
+        for (int slot = 0; slot < touchedCount; slot++) {
+            if (touchedLines[slot] == line) return slot;
+        }
+        if (touchedCount == touchedLines.length) {
+            touchedLines = Arrays.copyOf(touchedLines, 2 * touchedCount);
+            shareChanges = Arrays.copyOf(shareChanges, 2 * touchedCount);
+            referenceChanges = Arrays.copyOf(referenceChanges, 2 * touchedCount);
+        }
+        touchedLines[touchedCount] = line;
+        shareChanges[touchedCount] = 0;
+        referenceChanges[touchedCount] = 0;
+        return touchedCount;
+    }
+
+    /**
+     * Changes the line clustering sum of the given physical id.
+     *
+     * @param physicalId the physical id
+     * @param delta      the amount to add
+     */
+    void changeLineClusteringSum(int physicalId, int delta) {
+        lineClusteringSums[physicalId] += delta;
+    }
+
     /**
      * Returns a new {@code String} representing the {@code Map}.
      *
@@ -300,6 +714,213 @@ public class Map {
         return tiles[x][y];
     }
 
+    /**
+     * Returns the {@link Tile} with the given {@link Tile#index}. This operation is unchecked.
+     *
+     * @param index the index of the tile
+     * @return Tile with given index
+     * @throws ArrayIndexOutOfBoundsException when index is out of bounds
+     */
+    public Tile getTile(int index) {
+        return tilesByIndex[index];
+    }
+
+    /**
+     * Returns the number of {@link Tile}s of the {@code Map} that were not holes when the {@code Map} was loaded.
+     * <p>
+     * This is also the index shared by all holes, see {@link Tile#index}.
+     *
+     * @return the number of {@code Tile}s
+     */
+    public int getTileCount() {
+        return tilesByIndex.length;
+    }
+
+    /**
+     * Returns the owner of the {@link Tile} with the given index.
+     *
+     * @param index the index of the {@code Tile}
+     * @return the {@code id} of the owning {@link Player} or {@link Player#NULL_PLAYER_ID}
+     */
+    public int getOwnerId(int index) {
+        return logicalIds[owners[index]];
+    }
+
+    /**
+     * Returns the physical owner of the {@link Tile} with the given index. See {@link #toPhysicalId(int)}.
+     *
+     * @param index the index of the {@code Tile}
+     * @return the physical id of the owner or {@link Player#NULL_PLAYER_ID}
+     */
+    public int getPhysicalOwnerId(int index) {
+        return owners[index];
+    }
+
+    /**
+     * Sets the owner of the {@link Tile} with the given index and updates the stones of the {@link Player}s and the
+     * free tiles accordingly.
+     *
+     * @param index   the index of the {@code Tile}
+     * @param ownerId the {@code id} of the new owner or {@link Player#NULL_PLAYER_ID}
+     */
+    void setOwnerId(int index, int ownerId) {
+        assert index < tilesByIndex.length : "Cannot set owner of a hole";
+
+        int oldPhysicalId = owners[index];
+        int newPhysicalId = physicalIds[ownerId];
+        if (oldPhysicalId != Player.NULL_PLAYER_ID) stones[oldPhysicalId].remove(index);
+        if (newPhysicalId != Player.NULL_PLAYER_ID) stones[newPhysicalId].add(index);
+        owners[index] = newPhysicalId;
+        hash ^= ownerKey(oldPhysicalId, index) ^ ownerKey(newPhysicalId, index);
+        updateFree(index);
+        legalMoveIndex.tileChanged(index);
+        stabilityIndex.tileChanged(index, (oldPhysicalId == Player.NULL_PLAYER_ID) != (newPhysicalId == Player.NULL_PLAYER_ID));
+        patternIndex.tileChanged(index, oldPhysicalId, newPhysicalId);
+    }
+
+    /**
+     * Returns the physical id the stones of the given {@link Player} are stored under.
+     * <p>
+     * The physical id of a stone never changes while it is on the {@code Map}. Inversion and choice {@link Tile}s
+     * change which {@code Player} a physical id belongs to instead.
+     *
+     * @param playerId the {@code id} of the {@code Player} or {@link Player#NULL_PLAYER_ID}
+     * @return the physical id of the {@code Player}
+     */
+    public int toPhysicalId(int playerId) {
+        return physicalIds[playerId];
+    }
+
+    /**
+     * Returns the {@link Player} the given physical id currently belongs to.
+     *
+     * @param physicalId the physical id
+     * @return the {@code id} of the {@code Player} or {@link Player#NULL_PLAYER_ID}
+     */
+    public int toPlayerId(int physicalId) {
+        return logicalIds[physicalId];
+    }
+
+    /**
+     * Returns the {@link Tile}s owned by the given {@link Player}.
+     *
+     * @param playerId the {@code id} of the {@code Player}
+     * @return a set containing all of the {@code Player}s tiles
+     */
+    public TileSet getStones(int playerId) {
+        return stones[physicalIds[playerId]];
+    }
+
+    /**
+     * Passes the stones of each {@link Player} on to the {@code Player} with the next higher {@code id}.
+     * The stones of the last {@code Player} are passed to the first one.
+     * <p>
+     * This is the effect of an inversion {@link Tile}. Use a negative amount of {@code steps} to undo it.
+     *
+     * @param playerCount the number of {@code Player}s participating
+     * @param steps       how many times the stones are passed on
+     */
+    public void rotatePlayers(int playerCount, int steps) {
+        for (int physicalId = 1; physicalId <= playerCount; physicalId++) {
+            int playerId = Math.floorMod(logicalIds[physicalId] - 1 + steps, playerCount) + 1;
+            hash ^= permutationKey(physicalId, logicalIds[physicalId]) ^ permutationKey(physicalId, playerId);
+            logicalIds[physicalId] = playerId;
+            physicalIds[playerId] = physicalId;
+        }
+    }
+
+    /**
+     * Exchanges the stones of the given {@link Player}s.
+     * <p>
+     * This is the effect of a choice {@link Tile}. Swapping the same {@code Player}s again undoes it.
+     *
+     * @param playerId1 {@code id} of the first {@code Player}
+     * @param playerId2 {@code id} of the second {@code Player}
+     */
+    public void swapPlayers(int playerId1, int playerId2) {
+        int physicalId1 = physicalIds[playerId1];
+        int physicalId2 = physicalIds[playerId2];
+        hash ^= permutationKey(physicalId1, playerId1) ^ permutationKey(physicalId1, playerId2)
+                ^ permutationKey(physicalId2, playerId2) ^ permutationKey(physicalId2, playerId1);
+        physicalIds[playerId1] = physicalId2;
+        physicalIds[playerId2] = physicalId1;
+        logicalIds[physicalId1] = playerId2;
+        logicalIds[physicalId2] = playerId1;
+    }
+
+    /**
+     * Returns the {@link Tile.Property} of the {@link Tile} with the given index.
+     *
+     * @param index the index of the {@code Tile}
+     * @return the {@code Property} of the {@code Tile}
+     */
+    public Tile.Property getProperty(int index) {
+        return properties[index];
+    }
+
+    /**
+     * Sets the {@link Tile.Property} of the {@link Tile} with the given index and updates the free tiles accordingly.
+     *
+     * @param index    the index of the {@code Tile}
+     * @param property the new {@code Property} of the {@code Tile}
+     */
+    void setProperty(int index, Tile.Property property) {
+        assert index < tilesByIndex.length : "Cannot set property of a hole";
+
+        propertyTiles[properties[index].ordinal()].remove(index);
+        propertyTiles[property.ordinal()].add(index);
+        hash ^= propertyKey(properties[index], index) ^ propertyKey(property, index);
+        properties[index] = property;
+        updateFree(index);
+        legalMoveIndex.tileChanged(index);
+    }
+
+    /**
+     * Adds the {@link Tile} with the given index to the free tiles, if it is neither occupied nor a hole,
+     * and removes it otherwise.
+     * <p>
+     * If the {@code Tile} became occupied or unoccupied, the frontier {@code Tile}s around it are updated as well.
+     *
+     * @param index the index of the {@code Tile}
+     */
+    private void updateFree(int index) {
+        Tile.Property property = properties[index];
+        boolean occupied = owners[index] != Player.NULL_PLAYER_ID || property == Tile.Property.EXPANSION;
+
+        if (occupied ? occupiedOrExpansionTiles.add(index) : occupiedOrExpansionTiles.remove(index)) {
+            // every tile reachable in one transition gains or loses an occupied neighbour
+            int delta = occupied ? 1 : -1;
+            for (int direction = 0; direction < Direction.DIRECTION_COUNT; direction++) {
+                int neighbour = transitions[direction][index];
+                occupiedNeighbours[neighbour] += delta;
+                updateFrontier(neighbour);
+            }
+        }
+
+        if (!occupied && property != Tile.Property.HOLE) {
+            freeTiles.add(index);
+        } else {
+            freeTiles.remove(index);
+        }
+        updateFrontier(index);
+    }
+
+    /**
+     * Adds the {@link Tile} with the given index to the frontier tiles, if it is free and has an occupied neighbour,
+     * and removes it otherwise.
+     *
+     * @param index the index of the {@code Tile}, may be the hole index
+     */
+    private void updateFrontier(int index) {
+        if (index == tilesByIndex.length) return;
+
+        if (occupiedNeighbours[index] > 0 && freeTiles.contains(index)) {
+            frontierTiles.add(index);
+        } else {
+            frontierTiles.remove(index);
+        }
+    }
+
     /**
      * Returns the average number of {@code Tile}s destroyed with one bomb.
      *
@@ -319,7 +940,6 @@ public class Map {
     }
 
     /**
-<<<<<<< HEAD
      * Returns the amount of occupied {@code Tile}s.
      *
      * @return number of occupied {@code Tile}s.
@@ -393,55 +1013,117 @@ public class Map {
     }
 
     /**
-     * Adds a free tile to the map
-=======
-     * Adds a free tile to the map.
->>>>>>> 83d41a9... Fix doc comments and code style
+     * Returns current free tiles on the {@code Map}.
      * <p>
-     * Use this to undo certain moves.
+     * The set is kept up to date by the {@code Map} whenever owner or {@link Tile.Property} of a {@code Tile} changes.
      *
-     * @param tile the {@code Tile} that has just been freed
+     * @return a set containing the current free tiles on the {@code Map}
      */
-    public void addFreeTile(Tile tile) {
-        freeTiles.add(tile);
+    public TileSet getFreeTiles() {
+        return freeTiles;
     }
 
     /**
-     * Removes a free tile from the map.
+     * Returns the current frontier tiles on the {@code Map}.
+     * <p>
+     * These are the free {@link Tile}s that can be reached in one transition from a {@code Tile} that is occupied
+     * by any {@link Player} or an expansion stone. Every {@code Tile} a regular move can be made on is a frontier tile.
      *
-     * @param tile the {@code Tile} that previously was free
+     * @return a set containing the current frontier tiles on the {@code Map}
      */
-    public void removeFreeTile(Tile tile) {
-        freeTiles.remove(tile);
+    public TileSet getFrontierTiles() {
+        return frontierTiles;
     }
 
     /**
-     * Returns current free tiles on the {@code Map}.
+     * Returns the hash of the current position.
+     * <p>
+     * The hash covers the owners and {@link Tile.Property}s of all {@link Tile}s, which {@link Player} the stones
+     * of each physical id belong to and the override stones and bombs of all {@code Player}s. It is updated
+     * incrementally with every change using <i>Zobrist hashing</i>, so equal positions reached by different move
+     * orders have equal hashes.
      *
-     * @return a set containing the current free tiles on the {@code Map}
+     * @return the hash of the position
      */
-    public Set<Tile> getFreeTiles() {
-        return freeTiles;
+    public long getHash() {
+        return hash;
     }
 
     /**
-     * Adds an expansion stone onto the given {@code Tile}.
-     * <p>
-     * Use this to undo certain moves.
+     * Updates the hash after the inventory of the given {@link Player} changed.
+     *
+     * @param playerId the {@code id} of the {@code Player}
+     * @param bombs    {@code true} if the bombs changed, {@code false} if the override stones changed
+     * @param oldCount the previous number of items
+     * @param newCount the new number of items
+     */
+    void updateInventoryHash(int playerId, boolean bombs, int oldCount, int newCount) {
+        int offset = (MAX_PLAYER_COUNT + 1 + Tile.Property.values().length) * (tilesByIndex.length + 1)
+                + (MAX_PLAYER_COUNT + 1) * (MAX_PLAYER_COUNT + 1)
+                + ((bombs ? MAX_PLAYER_COUNT + 1 : 0) + playerId) * INVENTORY_HASH_COUNTS;
+        hash ^= hashKeys[offset + Math.floorMod(oldCount, INVENTORY_HASH_COUNTS)]
+                ^ hashKeys[offset + Math.floorMod(newCount, INVENTORY_HASH_COUNTS)];
+    }
+
+    /**
+     * Returns the hash key of a stone of the given physical id on the {@link Tile} with the given index.
+     *
+     * @param physicalId the physical id or {@link Player#NULL_PLAYER_ID}
+     * @param index      the index of the {@code Tile}
+     * @return the key, {@code 0} for {@link Player#NULL_PLAYER_ID}
+     */
+    private long ownerKey(int physicalId, int index) {
+        return physicalId == Player.NULL_PLAYER_ID ? 0 : hashKeys[physicalId * (tilesByIndex.length + 1) + index];
+    }
+
+    /**
+     * Returns the hash key of the given {@link Tile.Property} on the {@link Tile} with the given index.
+     *
+     * @param property the {@code Property}
+     * @param index    the index of the {@code Tile}
+     * @return the key
+     */
+    private long propertyKey(Tile.Property property, int index) {
+        return hashKeys[(MAX_PLAYER_COUNT + 1 + property.ordinal()) * (tilesByIndex.length + 1) + index];
+    }
+
+    /**
+     * Returns the hash key of the given physical id belonging to the given {@link Player}.
+     *
+     * @param physicalId the physical id
+     * @param playerId   the {@code id} of the {@code Player}
+     * @return the key
+     */
+    private long permutationKey(int physicalId, int playerId) {
+        return hashKeys[(MAX_PLAYER_COUNT + 1 + Tile.Property.values().length) * (tilesByIndex.length + 1)
+                + physicalId * (MAX_PLAYER_COUNT + 1) + playerId];
+    }
+
+    /**
+     * Returns the {@link LegalMoveIndex} that keeps track of the legal regular moves on the {@code Map}.
+     *
+     * @return the {@code LegalMoveIndex} of the {@code Map}
+     */
+    public LegalMoveIndex getLegalMoveIndex() {
+        return legalMoveIndex;
+    }
+
+    /**
+     * Returns the {@link StabilityIndex} that keeps track of the stability values of the {@link Player}s.
      *
-     * @param tile the {@code Tile} that the expansion stone should be placed on
+     * @return the {@code StabilityIndex} of the {@code Map}
      */
-    public void addExpansionStone(Tile tile) {
-        expansionTiles.add(tile);
+    public StabilityIndex getStabilityIndex() {
+        return stabilityIndex;
     }
 
     /**
-     * Removes an expansion stone from the given {@code Tile}.
+     * Returns the {@link PatternIndex} that keeps track of the pattern scores of the {@link Player}s.
      *
-     * @param tile the {@code Tile} that previously had an expansion stone
+     * @return the {@code PatternIndex} of the {@code Map}
      */
-    public void removeExpansionStone(Tile tile) {
-        expansionTiles.remove(tile);
+    public PatternIndex getPatternIndex() {
+        return patternIndex;
     }
 
     /**
@@ -449,8 +1131,8 @@ public class Map {
      *
      * @return a set containing the current expansion tiles on the {@code Map}
      */
-    public Set<Tile> getExpansionTiles() {
-        return expansionTiles;
+    public TileSet getExpansionTiles() {
+        return propertyTiles[Tile.Property.EXPANSION.ordinal()];
     }
 
     /**
@@ -557,7 +1239,7 @@ public class Map {
                             if (originTile.getColumn() != null) {
                                 tileLine = originTile.getColumn();
                             } else {
-                                tileLine = new TileLine();
+                                tileLine = new TileLine(Map.this);
                                 tileLines.add(tileLine);
                                 originTile.setColumn(tileLine);
                                 tileLine.lineSearch(originTile, Direction.UP.id);
@@ -567,7 +1249,7 @@ public class Map {
                             if (originTile.getRow() != null) {
                                 tileLine = originTile.getRow();
                             } else {
-                                tileLine = new TileLine();
+                                tileLine = new TileLine(Map.this);
                                 tileLines.add(tileLine);
                                 originTile.setRow(tileLine);
                                 tileLine.lineSearch(originTile, Direction.LEFT.id);
@@ -577,7 +1259,7 @@ public class Map {
                             if (originTile.getIndiagonal() != null) {
                                 tileLine = originTile.getIndiagonal();
                             } else {
-                                tileLine = new TileLine();
+                                tileLine = new TileLine(Map.this);
                                 tileLines.add(tileLine);
                                 originTile.setIndiagonal(tileLine);
                                 tileLine.lineSearch(originTile, Direction.UP_LEFT.id);
@@ -587,14 +1269,14 @@ public class Map {
                             if (originTile.getDiagonal() != null) {
                                 tileLine = originTile.getDiagonal();
                             } else {
-                                tileLine = new TileLine();
+                                tileLine = new TileLine(Map.this);
                                 tileLines.add(tileLine);
                                 originTile.setDiagonal(tileLine);
                                 tileLine.lineSearch(originTile, Direction.UP_RIGHT.id);
                                 tileLine.lineSearch(originTile, Direction.DOWN_LEFT.id);
                             }
                         } else {
-                            tileLine = new TileLine();
+                            tileLine = new TileLine(Map.this);
                         }
 
                         tileLine.lineSearch(originTile, lineDirection);
@@ -0,0 +1,218 @@
+package bacon;
+
+import java.util.Arrays;
+
+/**
+ * Scores the owner configurations of short segments of the lines of the {@link Map} by table lookup.
+ * <p>
+ * A window consists of {@link #WINDOW_LENGTH} consecutive {@link Tile}s, following the transitions along one of the
+ * axes of the {@link TileLine}s. Seen from a player, each {@code Tile} of a window is either free, owned by the player
+ * or owned by another player. The configuration of a window is therefore a number in base three, its pattern. The
+ * score of a player is the sum of the table entries of the patterns of all windows.
+ * <p>
+ * The patterns and scores of all players are kept up to date while stones change their owner, so reading a score takes
+ * constant time. They are stored by physical player id (see {@link Map#toPhysicalId(int)}), so inversion and choice
+ * {@code Tile}s do not invalidate the index. As the index is optional, it is only built when it is used the first time.
+ */
+public class PatternIndex {
+
+    /**
+     * Number of {@link Tile}s in a window.
+     */
+    public static final int WINDOW_LENGTH = 4;
+    /**
+     * Number of distinct patterns, the size of a pattern table.
+     */
+    public static final int PATTERN_COUNT = 81;
+
+    /*
+    The digits of a tile in a pattern.
+     */
+    private static final int FREE = 0;
+    private static final int OWN = 1;
+    private static final int OTHER = 2;
+
+    /**
+     * Number of axes. Windows start in the {@link Direction}s whose {@code id} is lower than this.
+     */
+    private static final int AXIS_COUNT = Direction.DIRECTION_COUNT / 2;
+
+    private final Map map;
+    /**
+     * The score of each pattern.
+     */
+    private final int[] table;
+    /**
+     * {@code true} if the windows have to be rebuilt before they can be used.
+     */
+    private boolean outdated;
+
+    /*
+    The windows containing each tile. The windows of tile t are stored in tileWindows from tileStarts[t] to
+    tileStarts[t + 1], along with the place value of the tile in the pattern of the window in tilePlaces.
+     */
+    private int[] tileStarts;
+    private int[] tileWindows;
+    private int[] tilePlaces;
+    /**
+     * The pattern of each window and physical player id, stored at {@code window * (Map.MAX_PLAYER_COUNT + 1) + id}.
+     */
+    private int[] patterns;
+    /**
+     * The scores of the players, indexed by the physical player id.
+     */
+    private final int[] scores;
+
+    /**
+     * Creates a new {@code PatternIndex} for the given {@link Map} using the given pattern table.
+     * <p>
+     * The index is built when it is used the first time, i.e. after the {@code Map} has been read completely.
+     *
+     * @param map   the {@code Map} the index belongs to
+     * @param table the score of each pattern, e.g. fitted from played games. Must have {@link #PATTERN_COUNT} entries.
+     */
+    PatternIndex(Map map, int[] table) {
+        if (table.length != PATTERN_COUNT) throw new IllegalArgumentException("Pattern table has wrong size");
+
+        this.map = map;
+        this.table = table.clone();
+        this.scores = new int[Map.MAX_PLAYER_COUNT + 1];
+        this.outdated = true;
+    }
+
+    /**
+     * Returns the default pattern table.
+     * <p>
+     * Windows only containing stones of the player score the square of the number of stones, windows only containing
+     * stones of other players score the negative square. Contested windows score zero, as they can still go either
+     * way.
+     *
+     * @return a new pattern table
+     */
+    static int[] defaultTable() {
+        int[] table = new int[PATTERN_COUNT];
+        for (int pattern = 0; pattern < PATTERN_COUNT; pattern++) {
+            int own = 0;
+            int other = 0;
+            for (int rest = pattern; rest > 0; rest /= 3) {
+                if (rest % 3 == OWN) own++;
+                else if (rest % 3 == OTHER) other++;
+            }
+
+            if (other == 0) table[pattern] = own * own;
+            else if (own == 0) table[pattern] = -other * other;
+        }
+        return table;
+    }
+
+    /**
+     * Reports that the owner of the {@link Tile} with the given index changed.
+     *
+     * @param index         the index of the {@code Tile}
+     * @param oldPhysicalId the physical id of the previous owner
+     * @param newPhysicalId the physical id of the new owner
+     */
+    void tileChanged(int index, int oldPhysicalId, int newPhysicalId) {
+        if (outdated) return;
+
+        // a stone changing between two players only changes the patterns of these players
+        boolean occupation = oldPhysicalId == Player.NULL_PLAYER_ID || newPhysicalId == Player.NULL_PLAYER_ID;
+        for (int physicalId = 1; physicalId <= Map.MAX_PLAYER_COUNT; physicalId++) {
+            if (!occupation && physicalId != oldPhysicalId && physicalId != newPhysicalId) continue;
+
+            int change = getDigit(newPhysicalId, physicalId) - getDigit(oldPhysicalId, physicalId);
+            for (int i = tileStarts[index]; i < tileStarts[index + 1]; i++) {
+                int slot = tileWindows[i] * (Map.MAX_PLAYER_COUNT + 1) + physicalId;
+                scores[physicalId] -= table[patterns[slot]];
+                patterns[slot] += change * tilePlaces[i];
+                scores[physicalId] += table[patterns[slot]];
+            }
+        }
+    }
+
+    /**
+     * Reports that the transitions of the {@link Map} changed. The index is rebuilt when used next.
+     */
+    void transitionsChanged() {
+        outdated = true;
+    }
+
+    /**
+     * Returns the score of the given {@link Player}.
+     *
+     * @param playerId the {@code id} of the {@code Player}
+     * @return the sum of the table entries of the patterns of all windows
+     */
+    public int getScore(int playerId) {
+        if (outdated) build();
+        return scores[map.toPhysicalId(playerId)];
+    }
+
+    /**
+     * Collects the windows of the {@link Map} and computes the patterns and scores from scratch.
+     */
+    private void build() {
+        int tileCount = map.getTileCount();
+
+        // every tile starts a window along each axis, if the line is long enough
+        int[] windowTiles = new int[tileCount * AXIS_COUNT * WINDOW_LENGTH];
+        int windowCount = 0;
+        tileStarts = new int[tileCount + 1];
+        for (int tile = 0; tile < tileCount; tile++) {
+            for (int axis = 0; axis < AXIS_COUNT; axis++) {
+                int[] ray = map.getRay(tile, axis);
+                if (ray.length < WINDOW_LENGTH - 1) continue;
+
+                windowTiles[windowCount * WINDOW_LENGTH] = tile;
+                System.arraycopy(ray, 0, windowTiles, windowCount * WINDOW_LENGTH + 1, WINDOW_LENGTH - 1);
+                for (int i = 0; i < WINDOW_LENGTH; i++) {
+                    tileStarts[windowTiles[windowCount * WINDOW_LENGTH + i] + 1]++;
+                }
+                windowCount++;
+            }
+        }
+
+        for (int tile = 0; tile < tileCount; tile++) {
+            tileStarts[tile + 1] += tileStarts[tile];
+        }
+        tileWindows = new int[tileStarts[tileCount]];
+        tilePlaces = new int[tileStarts[tileCount]];
+        int[] next = Arrays.copyOf(tileStarts, tileCount);
+        patterns = new int[windowCount * (Map.MAX_PLAYER_COUNT + 1)];
+        Arrays.fill(scores, 0);
+
+        for (int window = 0; window < windowCount; window++) {
+            int place = 1;
+            for (int i = 0; i < WINDOW_LENGTH; i++) {
+                int tile = windowTiles[window * WINDOW_LENGTH + i];
+                tileWindows[next[tile]] = window;
+                tilePlaces[next[tile]] = place;
+                next[tile]++;
+
+                int owner = map.getPhysicalOwnerId(tile);
+                for (int physicalId = 1; physicalId <= Map.MAX_PLAYER_COUNT; physicalId++) {
+                    patterns[window * (Map.MAX_PLAYER_COUNT + 1) + physicalId] += getDigit(owner, physicalId) * place;
+                }
+                place *= 3;
+            }
+
+            for (int physicalId = 1; physicalId <= Map.MAX_PLAYER_COUNT; physicalId++) {
+                scores[physicalId] += table[patterns[window * (Map.MAX_PLAYER_COUNT + 1) + physicalId]];
+            }
+        }
+
+        outdated = false;
+    }
+
+    /**
+     * Returns the digit of a {@link Tile} with the given owner in the patterns of the given player.
+     *
+     * @param owner      the physical id of the owner of the {@code Tile}
+     * @param physicalId the physical id of the player
+     * @return the digit of the {@code Tile}
+     */
+    private static int getDigit(int owner, int physicalId) {
+        if (owner == Player.NULL_PLAYER_ID) return FREE;
+        return owner == physicalId ? OWN : OTHER;
+    }
+}
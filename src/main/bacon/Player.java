@@ -1,9 +1,5 @@
 package bacon;
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
-
 /**
  * A Player class which contains player data and performs player actions.
  */
@@ -18,7 +14,10 @@ public class Player {
      * The index of the player.
      */
     public final int id;
-    private final Set<Tile> stones;
+    /**
+     * The {@link Map} the {@code Player} plays on. The {@code Map} keeps track of the {@code Player}s stones.
+     */
+    private Map map;
     private int overrideStoneCount;
     private int bombCount;
     private boolean disqualified;
@@ -35,7 +34,6 @@ public class Player {
         this.overrideStoneCount = overrideStoneCount;
         this.bombCount = bombCount;
         this.disqualified = false;
-        this.stones = new HashSet<>();
     }
 
     /**
@@ -44,7 +42,7 @@ public class Player {
      * @return the number of {@code Tile}s of the {@code Player}
      */
     public int getStoneCount() {
-        return this.stones.size();
+        return this.map == null ? 0 : this.map.getStones(this.id).size();
     }
 
     /**
@@ -75,23 +73,14 @@ public class Player {
     }
 
     /**
-     * Puts the given {@code Tile} in {@code Player}s possession.
-     * <p>
-     * Behavior is undefined on {@code null} values.
-     *
-     * @param tile {@code Tile} which now belongs to the {@code Player}
-     */
-    void addStone(Tile tile) {
-        stones.add(tile);
-    }
-
-    /**
-     * Removes ownership of the {@code Tile} formerly owned by this {@code Player}
+     * Sets the {@link Map} the {@code Player} plays on.
      *
-     * @param tile {@code Tile} which no longer belongs to this {@code Player}
+     * @param map the {@code Map} that keeps track of the {@code Player}s stones
      */
-    void removeStone(Tile tile) {
-        stones.remove(tile);
+    void setMap(Map map) {
+        this.map = map;
+        map.updateInventoryHash(this.id, false, 0, this.overrideStoneCount);
+        map.updateInventoryHash(this.id, true, 0, this.bombCount);
     }
 
     /**
@@ -99,8 +88,8 @@ public class Player {
      *
      * @return a set containing all of the {@code Player}s tiles
      */
-    public Set<Tile> getStones() {
-        return Collections.unmodifiableSet(this.stones);
+    public TileSet getStones() {
+        return this.map.getStones(this.id);
     }
 
     /**
@@ -110,6 +99,8 @@ public class Player {
      * @param n amount of override stones that are added, if value is positive, or removed, if value is negative
      */
     public void receiveOverrideStone(int n) {
+        if (this.map != null)
+            this.map.updateInventoryHash(this.id, false, this.overrideStoneCount, this.overrideStoneCount + n);
         this.overrideStoneCount += n;
     }
 
@@ -120,6 +111,8 @@ public class Player {
      * @param n amount of bombs that are added, if value is positive, or removed, if value is negative
      */
     public void receiveBomb(int n) {
+        if (this.map != null)
+            this.map.updateInventoryHash(this.id, true, this.bombCount, this.bombCount + n);
         this.bombCount += n;
     }
 
@@ -0,0 +1,487 @@
+package bacon;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Keeps track of the stability value of each {@link Player}.
+ * <p>
+ * A stone is stable along an axis (horizontal, vertical, diagonal or indiagonal) if it lies at the border of the
+ * {@link Map} on that axis, if its {@link TileLine} on that axis is full or if its neighbour on the axis is a stone of
+ * the same {@code Player} that is stable along the axis the transition arrives in. The stability value is the number
+ * of pairs of a stone and an axis the stone is stable along.
+ * <p>
+ * Following the transitions, the pairs of {@link Tile} and axis form chains, which are either open or closed to a
+ * cycle. Stability spreads along a chain through consecutive stones of the same {@code Player}, so such a run of
+ * stones is stable as a whole if at least one of its stones is stable on its own. Therefore the value of a chain
+ * can be computed with a single walk. The index stores the values of all chains and only recomputes the chains that
+ * contain a changed {@code Tile} or a {@code TileLine} that became full or not full anymore. As undoing a move
+ * changes {@code Tile}s as well, undone moves are handled the same way.
+ * <p>
+ * Transitions that do not lead back the same way, e.g. because another transition overwrote the way back, only
+ * spread stability in one direction. The chains connected by such transitions are recomputed together.
+ * <p>
+ * The values are stored by physical player id (see {@link Map#toPhysicalId(int)}), so inversion and choice
+ * {@code Tile}s do not invalidate the index.
+ */
+public class StabilityIndex {
+
+    /**
+     * Number of axes. The axis of a {@link Direction} is its {@code id} modulo the number of axes.
+     */
+    private static final int AXIS_COUNT = Direction.DIRECTION_COUNT / 2;
+
+    private final Map map;
+    /**
+     * {@code true} if the chains have to be rebuilt before they can be used.
+     */
+    private boolean outdated;
+
+    /*
+    The chains. Nodes are pairs of a tile and an axis, represented by tile index * AXIS_COUNT + axis. The nodes of
+    chain c are stored in chainNodes from chainStarts[c] to chainStarts[c + 1] in walking order.
+     */
+    private int[] chainNodes;
+    private int[] chainStarts;
+    private boolean[] cyclic;
+    private int[] chainOfNode;
+    private int chainCount;
+
+    /*
+    The one-way transitions as pairs of the node they start at and the node they lead to, and the chains connected by
+    them. These chains form a group, which uses the slot after the last chain for its values.
+     */
+    private int[] oneWayEdges;
+    private int[] groupChains;
+    private boolean[] grouped;
+
+    /**
+     * {@code true} for each node that lies at the border of the {@link Map}.
+     */
+    private boolean[] borderNodes;
+    /**
+     * The {@link TileLine} of each node, as index into {@link #lines}.
+     */
+    private int[] lineOfNode;
+    private TileLine[] lines;
+    /**
+     * The nodes that belong to each {@link TileLine}.
+     */
+    private int[][] lineNodes;
+    /**
+     * The {@link TileLine}s containing each {@link Tile}.
+     */
+    private int[][] tileLines;
+    private boolean[] fullLines;
+
+    /**
+     * The value of each chain for each player, indexed by chain * (MAX_PLAYER_COUNT + 1) + physical player id.
+     */
+    private int[] chainValues;
+    /**
+     * The stability values of the players, indexed by the physical player id.
+     */
+    private final int[] values;
+    private boolean[] dirty;
+    private int[] dirtyChains;
+    private int dirtyCount;
+
+    /*
+    Scratch space for the runs of consecutive stones of the same player found while recomputing chains.
+     */
+    private int[] runOfNode;
+    private int[] runOwners;
+    private int[] runLengths;
+    private boolean[] stableRuns;
+
+    /**
+     * Creates a new empty {@code StabilityIndex} for the given {@link Map}.
+     * <p>
+     * The index is built when it is used the first time, i.e. after the {@link TileLine}s have been computed.
+     *
+     * @param map the {@code Map} the index belongs to
+     */
+    StabilityIndex(Map map) {
+        this.map = map;
+        this.values = new int[Map.MAX_PLAYER_COUNT + 1];
+        this.outdated = true;
+    }
+
+    /**
+     * Reports that the owner of the {@link Tile} with the given index changed.
+     *
+     * @param index    the index of the {@code Tile}
+     * @param occupied {@code true} if the {@code Tile} was occupied or freed, which changes the fill level of its
+     *                 {@link TileLine}s
+     */
+    void tileChanged(int index, boolean occupied) {
+        if (outdated) return;
+
+        for (int axis = 0; axis < AXIS_COUNT; axis++) {
+            markDirty(chainOfNode[index * AXIS_COUNT + axis]);
+        }
+
+        if (occupied) {
+            for (int line : tileLines[index]) {
+                boolean full = lines[line].getFillLevel() == lines[line].getLineSize();
+                if (full == fullLines[line]) continue;
+
+                fullLines[line] = full;
+                for (int node : lineNodes[line]) {
+                    markDirty(chainOfNode[node]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports that the transitions of the {@link Map} changed. The index is rebuilt when used next.
+     */
+    void transitionsChanged() {
+        outdated = true;
+    }
+
+    /**
+     * Returns the stability value of the given {@link Player}.
+     *
+     * @param playerId the {@code id} of the {@code Player}
+     * @return the number of pairs of a stone and an axis the stone is stable along
+     */
+    public int getStability(int playerId) {
+        if (outdated) build();
+
+        while (dirtyCount > 0) {
+            int chain = dirtyChains[--dirtyCount];
+            dirty[chain] = false;
+            if (chain == chainCount) updateGroup();
+            else updateChain(chain);
+        }
+        return values[map.toPhysicalId(playerId)];
+    }
+
+    /**
+     * Schedules the given chain to be recomputed. Chains of the group schedule the whole group.
+     *
+     * @param chain the chain
+     */
+    private void markDirty(int chain) {
+        if (grouped[chain]) chain = chainCount;
+        if (dirty[chain]) return;
+        dirty[chain] = true;
+        dirtyChains[dirtyCount++] = chain;
+    }
+
+    /**
+     * Recomputes the values of the given chain and updates the stability values of all players.
+     *
+     * @param chain the chain
+     */
+    private void updateChain(int chain) {
+        int runCount = findRuns(chain, 0);
+        storeValues(chain, runCount);
+    }
+
+    /**
+     * Recomputes the values of the chains connected by one-way transitions and updates the stability values of all
+     * players.
+     */
+    private void updateGroup() {
+        int runCount = 0;
+        for (int chain : groupChains) {
+            runCount = findRuns(chain, runCount);
+        }
+
+        // spread stability along the one-way transitions until nothing changes
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < oneWayEdges.length; i += 2) {
+                int from = runOfNode[oneWayEdges[i]];
+                int to = runOfNode[oneWayEdges[i + 1]];
+                if (from < 0 || to < 0 || !stableRuns[from] || stableRuns[to]) continue;
+                if (runOwners[from] != runOwners[to]) continue;
+
+                stableRuns[to] = true;
+                changed = true;
+            }
+        }
+        storeValues(chainCount, runCount);
+    }
+
+    /**
+     * Stores the sum of the lengths of the stable runs as values of the given chain.
+     *
+     * @param chain    the chain, or the number of chains for the group
+     * @param runCount the number of runs found
+     */
+    private void storeValues(int chain, int runCount) {
+        int offset = chain * (Map.MAX_PLAYER_COUNT + 1);
+        for (int physicalId = 1; physicalId <= Map.MAX_PLAYER_COUNT; physicalId++) {
+            values[physicalId] -= chainValues[offset + physicalId];
+            chainValues[offset + physicalId] = 0;
+        }
+        for (int run = 0; run < runCount; run++) {
+            if (stableRuns[run]) chainValues[offset + runOwners[run]] += runLengths[run];
+        }
+        for (int physicalId = 1; physicalId <= Map.MAX_PLAYER_COUNT; physicalId++) {
+            values[physicalId] += chainValues[offset + physicalId];
+        }
+    }
+
+    /**
+     * Splits the given chain into runs of consecutive stones of the same player and checks which runs are stable on
+     * their own.
+     *
+     * @param chain    the chain
+     * @param runCount the number of runs that have already been found
+     * @return the number of runs found including the runs of this chain
+     */
+    private int findRuns(int chain, int runCount) {
+        int start = chainStarts[chain];
+        int length = chainStarts[chain + 1] - start;
+        // cycles are walked from the start of a run, so no run is split
+        int first = 0;
+        if (cyclic[chain]) {
+            while (first < length && getOwner(start + first) == getOwner(start + Math.floorMod(first - 1, length)))
+                first++;
+            if (first == length) first = 0;
+        }
+
+        int runOwner = Player.NULL_PLAYER_ID;
+        for (int i = 0; i < length; i++) {
+            int position = start + (first + i) % length;
+            int node = chainNodes[position];
+            int owner = getOwner(position);
+            if (owner == Player.NULL_PLAYER_ID) {
+                runOfNode[node] = -1;
+                runOwner = owner;
+                continue;
+            }
+
+            if (owner != runOwner) {
+                runOwners[runCount] = owner;
+                runLengths[runCount] = 0;
+                stableRuns[runCount] = false;
+                runCount++;
+                runOwner = owner;
+            }
+            int run = runCount - 1;
+            runOfNode[node] = run;
+            runLengths[run]++;
+            stableRuns[run] |= borderNodes[node] || (lineOfNode[node] >= 0 && fullLines[lineOfNode[node]]);
+        }
+        return runCount;
+    }
+
+    /**
+     * Returns the physical owner of the node at the given position in {@link #chainNodes}.
+     *
+     * @param position the position of the node
+     * @return the physical player id or {@link Player#NULL_PLAYER_ID}
+     */
+    private int getOwner(int position) {
+        return map.getPhysicalOwnerId(chainNodes[position] / AXIS_COUNT);
+    }
+
+    /**
+     * Builds the chains, the {@link TileLine} assignments and the values of all players from scratch.
+     */
+    private void build() {
+        outdated = false;
+        int tileCount = map.getTileCount();
+        int nodeCount = tileCount * AXIS_COUNT;
+
+        buildChains(tileCount, nodeCount);
+        buildGroup(tileCount, nodeCount);
+        buildLines(tileCount, nodeCount);
+
+        chainValues = new int[(chainCount + 1) * (Map.MAX_PLAYER_COUNT + 1)];
+        Arrays.fill(values, 0);
+        dirty = new boolean[chainCount + 1];
+        dirtyChains = new int[chainCount + 1];
+        dirtyCount = 0;
+        for (int chain = 0; chain <= chainCount; chain++) {
+            markDirty(chain);
+        }
+
+        runOfNode = new int[nodeCount];
+        runOwners = new int[nodeCount];
+        runLengths = new int[nodeCount];
+        stableRuns = new boolean[nodeCount];
+    }
+
+    /**
+     * Splits the nodes into chains by following the transitions that lead back the same way.
+     *
+     * @param tileCount the number of {@link Tile}s
+     * @param nodeCount the number of nodes
+     */
+    private void buildChains(int tileCount, int nodeCount) {
+        chainNodes = new int[nodeCount];
+        chainStarts = new int[nodeCount + 2];
+        cyclic = new boolean[nodeCount];
+        chainOfNode = new int[nodeCount];
+        Arrays.fill(chainOfNode, -1);
+        borderNodes = new boolean[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            int tile = node / AXIS_COUNT;
+            int axis = node % AXIS_COUNT;
+            borderNodes[node] = map.getTransition(tile, axis) == tileCount
+                    || map.getTransition(tile, axis + AXIS_COUNT) == tileCount;
+        }
+
+        int size = 0;
+        chainCount = 0;
+        // open chains first, starting at their ends, then the remaining cycles
+        for (int pass = 0; pass < 2; pass++) {
+            for (int node = 0; node < nodeCount; node++) {
+                if (chainOfNode[node] >= 0) continue;
+
+                int axis = node % AXIS_COUNT;
+                int direction = -1;
+                if (pass == 1 || !isLinked(node / AXIS_COUNT, axis + AXIS_COUNT, tileCount)) direction = axis;
+                else if (!isLinked(node / AXIS_COUNT, axis, tileCount)) direction = axis + AXIS_COUNT;
+                if (direction < 0) continue;
+
+                chainStarts[chainCount] = size;
+                cyclic[chainCount] = pass == 1;
+                int current = node;
+                while (chainOfNode[current] < 0) {
+                    chainOfNode[current] = chainCount;
+                    chainNodes[size++] = current;
+
+                    int currentTile = current / AXIS_COUNT;
+                    if (!isLinked(currentTile, direction, tileCount)) break;
+                    int arrival = map.getArrivalDirection(currentTile, direction);
+                    current = map.getTransition(currentTile, direction) * AXIS_COUNT + arrival % AXIS_COUNT;
+                    // continue opposite to the arrival direction
+                    direction = Direction.oppositeOf(arrival);
+                }
+                chainCount++;
+            }
+        }
+        chainStarts[chainCount] = size;
+    }
+
+    /**
+     * Collects the one-way transitions and the chains connected by them.
+     *
+     * @param tileCount the number of {@link Tile}s
+     * @param nodeCount the number of nodes
+     */
+    private void buildGroup(int tileCount, int nodeCount) {
+        grouped = new boolean[chainCount + 1];
+        int[] edges = new int[0];
+        for (int node = 0; node < nodeCount; node++) {
+            int tile = node / AXIS_COUNT;
+            for (int direction = node % AXIS_COUNT; direction < Direction.DIRECTION_COUNT; direction += AXIS_COUNT) {
+                int other = map.getTransition(tile, direction);
+                if (other == tileCount || isLinked(tile, direction, tileCount)) continue;
+
+                int target = other * AXIS_COUNT + map.getArrivalDirection(tile, direction) % AXIS_COUNT;
+                if (target == node) continue;
+                edges = Arrays.copyOf(edges, edges.length + 2);
+                edges[edges.length - 2] = node;
+                edges[edges.length - 1] = target;
+                grouped[chainOfNode[node]] = true;
+                grouped[chainOfNode[target]] = true;
+            }
+        }
+        oneWayEdges = edges;
+
+        int groupSize = 0;
+        groupChains = new int[chainCount];
+        for (int chain = 0; chain < chainCount; chain++) {
+            if (grouped[chain]) groupChains[groupSize++] = chain;
+        }
+        groupChains = Arrays.copyOf(groupChains, groupSize);
+    }
+
+    /**
+     * Checks whether the transition of the given {@link Tile} in the given {@link Direction} leads back the same way.
+     * Transitions of a {@code Tile} to the same side of itself do not count.
+     *
+     * @param tile      the index of the {@code Tile}
+     * @param direction the {@code Direction} in integer representation
+     * @param tileCount the number of {@code Tile}s
+     * @return {@code true} if the transition links two sides of nodes, {@code false} otherwise
+     */
+    private boolean isLinked(int tile, int direction, int tileCount) {
+        int other = map.getTransition(tile, direction);
+        if (other == tileCount) return false;
+
+        int arrival = map.getArrivalDirection(tile, direction);
+        if (other == tile && arrival == direction) return false;
+        return map.getTransition(other, arrival) == tile && map.getArrivalDirection(other, arrival) == direction;
+    }
+
+    /**
+     * Assigns the {@link TileLine}s to the nodes and {@link Tile}s.
+     *
+     * @param tileCount the number of {@link Tile}s
+     * @param nodeCount the number of nodes
+     */
+    private void buildLines(int tileCount, int nodeCount) {
+        lines = map.getTileLines().toArray(new TileLine[0]);
+        var lineIds = new IdentityHashMap<TileLine, Integer>();
+        for (int line = 0; line < lines.length; line++) {
+            lineIds.put(lines[line], line);
+        }
+
+        fullLines = new boolean[lines.length];
+        int[] tileLineCounts = new int[tileCount];
+        for (int line = 0; line < lines.length; line++) {
+            fullLines[line] = lines[line].getFillLevel() == lines[line].getLineSize();
+            for (Tile tile : lines[line].getLineTiles()) {
+                tileLineCounts[tile.index]++;
+            }
+        }
+        tileLines = new int[tileCount][];
+        for (int tile = 0; tile < tileCount; tile++) {
+            tileLines[tile] = new int[tileLineCounts[tile]];
+            tileLineCounts[tile] = 0;
+        }
+        for (int line = 0; line < lines.length; line++) {
+            for (Tile tile : lines[line].getLineTiles()) {
+                tileLines[tile.index][tileLineCounts[tile.index]++] = line;
+            }
+        }
+
+        int[] lineSizes = new int[lines.length];
+        lineOfNode = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            TileLine line = getLine(map.getTile(node / AXIS_COUNT), node % AXIS_COUNT);
+            lineOfNode[node] = line == null ? -1 : lineIds.get(line);
+            if (line != null) lineSizes[lineOfNode[node]]++;
+        }
+        lineNodes = new int[lines.length][];
+        for (int line = 0; line < lines.length; line++) {
+            lineNodes[line] = new int[lineSizes[line]];
+            lineSizes[line] = 0;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            int line = lineOfNode[node];
+            if (line >= 0) lineNodes[line][lineSizes[line]++] = node;
+        }
+    }
+
+    /**
+     * Returns the {@link TileLine} of the given {@link Tile} on the given axis.
+     *
+     * @param tile the {@code Tile}
+     * @param axis the axis
+     * @return the {@code TileLine} or {@code null} if the {@code Tile} is a hole
+     */
+    private static TileLine getLine(Tile tile, int axis) {
+        switch (Direction.fromId(axis)) {
+            case UP:
+                return tile.getColumn();
+            case UP_RIGHT:
+                return tile.getDiagonal();
+            case RIGHT:
+                return tile.getRow();
+            default:
+                return tile.getIndiagonal();
+        }
+    }
+}
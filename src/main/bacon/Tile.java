@@ -17,21 +17,17 @@ public class Tile {
     public final int x;
     public final int y;
     /**
-     * Neighbouring {@code Tile}s in each {@link Direction}. May also contains extraneous transitions.
-     * The array index corresponds to the {@link Direction#id}.
+     * Dense index of this {@code Tile} in its {@link Map}. Non-hole tiles are numbered consecutively starting at zero,
+     * holes share the index {@link Map#getTileCount()} which never belongs to an actual {@code Tile}.
      * <p>
-     * If no transition is possible in a given direction, the value is set to {@code null}.
+     * The stateful information about the {@code Tile}, i.e. owner and {@link Property}, as well as its transitions
+     * are kept in the {@code Map} under this index.
      */
-    private final Tile[] transitions;
+    public final int index;
     /**
-     * {@link Direction} in which the according transition arrives at the other tile.
-     * The array index corresponds to the {@link Direction#id}.
-     * <p>
-     * If no transition is possible in a given direction, the array element is set to {@link Direction#NULL_DIRECTION_ID}.
+     * The {@link Map} this {@code Tile} belongs to.
      */
-    private final int[] arrivals;
-    private int ownerId;
-    private Property property;
+    private final Map map;
     // tiles that would be affected if this tile was bombed
     private Set<Tile> bombEffect;
     // the tile lines this tile is part of
@@ -39,31 +35,30 @@ public class Tile {
     private TileLine column;
     private TileLine diagonal;
     private TileLine indiagonal;
+    /**
+     * All {@link TileLine}s that contain this {@code Tile}. Due to transitions, a {@code Tile} may be part of more
+     * {@code TileLine}s than its row, column, diagonal and indiagonal.
+     */
+    private TileLine[] lines;
 
     /**
      * Creates a new {@code Tile} at the given position.
      * <p>
-     * If the tile owner is set, the {@link Property} has to be set to {@link Property#DEFAULT}.
+     * Owner and {@link Property} of the new {@code Tile} are read from the given {@link Map}.
      *
-     * @param ownerId  id of {@link Player} that owns the stone on this {@code Tile}.
-     *                 Set to {@link Player#NULL_PLAYER_ID} if there is no stone on this {@code Tile}.
-     * @param property Special {@code Property} that this {@code Tile} has
-     * @param x        horizontal coordinate of this {@code Tile}
-     * @param y        vertical coordinate of this {@code Tile}
+     * @param map   the {@code Map} the {@code Tile} belongs to
+     * @param index the dense index of the {@code Tile} or {@link Map#getTileCount()} if the {@code Tile} is a hole
+     * @param x     horizontal coordinate of this {@code Tile}
+     * @param y     vertical coordinate of this {@code Tile}
      */
-    public Tile(int ownerId, Property property, int x, int y) {
-        this.ownerId = ownerId;
-        this.property = property;
-
-        assert this.ownerId == Player.NULL_PLAYER_ID || property == Property.DEFAULT : "Only default state can define initial owner";
-
+    Tile(Map map, int index, int x, int y) {
+        this.map = map;
+        this.index = index;
         this.x = x;
         this.y = y;
 
         this.bombEffect = new HashSet<>();
-        this.transitions = new Tile[Direction.DIRECTION_COUNT];
-        this.arrivals = new int[Direction.DIRECTION_COUNT];
-        Arrays.fill(this.arrivals, Direction.NULL_DIRECTION_ID);
+        this.lines = new TileLine[0];
     }
 
     /**
@@ -75,8 +70,7 @@ public class Tile {
      * @param arrival   {@code Direction} in integer representation in which the transition arrives at the other tile
      */
     void setTransition(Tile other, int direction, int arrival) {
-        this.transitions[direction] = other;
-        this.arrivals[direction] = arrival;
+        map.setTransition(index, direction, other.index, arrival);
     }
 
     /**
@@ -169,6 +163,25 @@ public class Tile {
         this.indiagonal = indiagonal;
     }
 
+    /**
+     * Returns all {@link TileLine}s that contain this {@code Tile}.
+     *
+     * @return the {@code TileLine}s of this {@code Tile}. The array must not be modified.
+     */
+    TileLine[] getLines() {
+        return lines;
+    }
+
+    /**
+     * Registers a {@link TileLine} that contains this {@code Tile}.
+     *
+     * @param line the {@code TileLine} that contains this {@code Tile}
+     */
+    void addLine(TileLine line) {
+        lines = Arrays.copyOf(lines, lines.length + 1);
+        lines[lines.length - 1] = line;
+    }
+
     /**
      * Applies a bomb to this {@code Tile}.
      * <p>
@@ -180,20 +193,7 @@ public class Tile {
         setProperty(Property.HOLE);
         setOwnerId(Player.NULL_PLAYER_ID);
 
-        // remove transition from neighbors to bombed tile
-        for (int direction = 0; direction < Direction.DIRECTION_COUNT; direction++) {
-            Tile neighbor = this.getTransition(direction);
-            if (neighbor == null) continue;
-            for (int neighborDirection = 0; neighborDirection < Direction.DIRECTION_COUNT; neighborDirection++) {
-                Tile t = neighbor.getTransition(neighborDirection);
-                if (t == this) neighbor.setTransition(null, neighborDirection, Direction.NULL_DIRECTION_ID);
-            }
-        }
-        // remove transitions from bombed tile to neighbors
-        for (int direction = 0; direction < Direction.DIRECTION_COUNT; direction++) {
-            this.setTransition(null, direction, Direction.NULL_DIRECTION_ID);
-        }
-
+        map.removeTransitions(index);
     }
 
     /**
@@ -204,7 +204,8 @@ public class Tile {
      * @return the {@code Tile} the transition points to or {@code null} if no transition is present
      */
     public Tile getTransition(int direction) {
-        return this.transitions[direction];
+        int other = map.getTransition(index, direction);
+        return other == map.getTileCount() ? null : map.getTile(other);
     }
 
     /**
@@ -215,7 +216,7 @@ public class Tile {
      * or {@link Direction#NULL_DIRECTION_ID} if no transition is present in the given direction
      */
     public int getArrivalDirection(int direction) {
-        return this.arrivals[direction];
+        return map.getArrivalDirection(index, direction);
     }
 
     /**
@@ -224,7 +225,7 @@ public class Tile {
      * @return the id of the owner of this {@code Tile} or {@link Player#NULL_PLAYER_ID} if tile is unoccupied
      */
     public int getOwnerId() {
-        return this.ownerId;
+        return map.getOwnerId(index);
     }
 
     /**
@@ -234,38 +235,36 @@ public class Tile {
      * @param ownerId id of new owner of this {@code Tile}.
      */
     public void setOwnerId(int ownerId) {
-        int myId = Game.getGame().getCurrentState().getMe();
-        if (this.ownerId != Player.NULL_PLAYER_ID) {
-            Game.getGame().getCurrentState().getPlayerFromId(this.ownerId).removeStone(this);
-        }
-        if (ownerId != Player.NULL_PLAYER_ID) {
-            Game.getGame().getCurrentState().getPlayerFromId(ownerId).addStone(this);
-        }
+        int oldPhysicalId = map.getPhysicalOwnerId(index);
+        int newPhysicalId = map.toPhysicalId(ownerId);
 
-        if (this.ownerId == Player.NULL_PLAYER_ID && ownerId != Player.NULL_PLAYER_ID) {
-            this.row.changeFillLevel(1);
-            this.column.changeFillLevel(1);
-            this.diagonal.changeFillLevel(1);
-            this.indiagonal.changeFillLevel(1);
-        } else if (this.ownerId != Player.NULL_PLAYER_ID && ownerId == Player.NULL_PLAYER_ID) {
-            this.row.changeFillLevel(-1);
-            this.column.changeFillLevel(-1);
-            this.diagonal.changeFillLevel(-1);
-            this.indiagonal.changeFillLevel(-1);
-        }
-        if (this.ownerId != myId && ownerId == myId) {
-            this.row.changePlayerShare(1);
-            this.column.changePlayerShare(1);
-            this.diagonal.changePlayerShare(1);
-            this.indiagonal.changePlayerShare(1);
-        } else if (this.ownerId == myId && ownerId != myId) {
-            this.row.changePlayerShare(-1);
-            this.column.changePlayerShare(-1);
-            this.diagonal.changePlayerShare(-1);
-            this.indiagonal.changePlayerShare(-1);
+        if (oldPhysicalId == newPhysicalId) return;
+
+        for (TileLine line : lines) {
+            if (oldPhysicalId == Player.NULL_PLAYER_ID) line.changeFillLevel(1);
+            else line.changePlayerShare(oldPhysicalId, -1);
+            if (newPhysicalId == Player.NULL_PLAYER_ID) line.changeFillLevel(-1);
+            else line.changePlayerShare(newPhysicalId, 1);
         }
+        changePlayerReferences(row, oldPhysicalId, newPhysicalId);
+        changePlayerReferences(column, oldPhysicalId, newPhysicalId);
+        changePlayerReferences(diagonal, oldPhysicalId, newPhysicalId);
+        changePlayerReferences(indiagonal, oldPhysicalId, newPhysicalId);
+
+        map.setOwnerId(index, ownerId);
+    }
 
-        this.ownerId = ownerId;
+    /**
+     * Moves the reference of this {@code Tile} to the given {@link TileLine} from the old to the new owner.
+     *
+     * @param line          the row, column, diagonal or indiagonal of this {@code Tile}, may be {@code null}
+     * @param oldPhysicalId the physical id of the old owner
+     * @param newPhysicalId the physical id of the new owner
+     */
+    private static void changePlayerReferences(TileLine line, int oldPhysicalId, int newPhysicalId) {
+        if (line == null) return;
+        if (oldPhysicalId != Player.NULL_PLAYER_ID) line.changePlayerReferences(oldPhysicalId, -1);
+        if (newPhysicalId != Player.NULL_PLAYER_ID) line.changePlayerReferences(newPhysicalId, 1);
     }
 
     /**
@@ -274,7 +273,7 @@ public class Tile {
      * @return the {@code Property} of this {@code Tile}
      */
     public Property getProperty() {
-        return this.property;
+        return map.getProperty(index);
     }
 
     /**
@@ -283,7 +282,16 @@ public class Tile {
      * @param property the {@code Property} of this {@code Tile}
      */
     public void setProperty(Property property) {
-        this.property = property;
+        map.setProperty(index, property);
+    }
+
+    /**
+     * Returns the {@link Map} this {@code Tile} belongs to.
+     *
+     * @return the {@code Map} of this {@code Tile}
+     */
+    public Map getMap() {
+        return map;
     }
 
     /**
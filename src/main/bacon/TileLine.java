@@ -2,6 +2,7 @@ package bacon;
 
 import bacon.move.Move;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -15,21 +16,35 @@ import java.util.Set;
  */
 public class TileLine {
 
+    private final Map map;
     private final Set<Tile> lineTiles;
     private int lineSize;
     private int fillLevel;
-    private int playerShare;
+    /**
+     * The amount of {@link Tile}s in the {@code TileLine} owned by each player, indexed by the physical player id
+     * that is stored in the {@link Map}. See {@link Map#toPhysicalId(int)}.
+     */
+    private final int[] playerShares;
+    /**
+     * The amount of {@link Tile}s owned by each player that have this {@code TileLine} as their row, column, diagonal
+     * or indiagonal, indexed by the physical player id. A {@code Tile} is counted once for each of these lines.
+     */
+    private final int[] playerReferences;
 
     /**
      * Creates a new {@code TileLine} instance.
      * <p>
      * Call this in the static map analysis.
+     *
+     * @param map the {@link Map} the {@code TileLine} belongs to
      */
-    public TileLine() {
+    public TileLine(Map map) {
+        this.map = map;
         this.lineTiles = new HashSet<>();
         this.lineSize = 0;
         this.fillLevel = 0;
-        this.playerShare = 0;
+        this.playerShares = new int[Map.MAX_PLAYER_COUNT + 1];
+        this.playerReferences = new int[Map.MAX_PLAYER_COUNT + 1];
     }
 
     /**
@@ -42,22 +57,32 @@ public class TileLine {
     private void addTile(Tile tile) {
         if (!this.lineTiles.contains(tile)) {
             this.lineTiles.add(tile);
+            tile.addLine(this);
             this.lineSize++;
             if (tile.getOwnerId() != Player.NULL_PLAYER_ID) this.fillLevel++;
         }
     }
 
     /**
-     * Initializes the player share of the {@code TileLine}.
-     * <p>
-     * Call this after we have been assigned our player number by the server.
+     * Initializes the player shares of the {@code TileLine} and adds its part of the line clustering sums to the
+     * {@link Map}. See {@link Map#getLineClusteringSum(int)}.
      */
     void initializePlayerShare() {
+        Arrays.fill(this.playerShares, 0);
+        Arrays.fill(this.playerReferences, 0);
         for (Tile t : this.lineTiles) {
-            if (t.getOwnerId() != Player.NULL_PLAYER_ID) {
-                if (t.getOwnerId() == Game.getGame().getCurrentState().getMe()) this.playerShare++;
+            int physicalId = map.getPhysicalOwnerId(t.index);
+            if (physicalId != Player.NULL_PLAYER_ID) {
+                this.playerShares[physicalId]++;
+                if (t.getRow() == this) this.playerReferences[physicalId]++;
+                if (t.getColumn() == this) this.playerReferences[physicalId]++;
+                if (t.getDiagonal() == this) this.playerReferences[physicalId]++;
+                if (t.getIndiagonal() == this) this.playerReferences[physicalId]++;
             }
         }
+        for (int physicalId = 1; physicalId <= Map.MAX_PLAYER_COUNT; physicalId++) {
+            map.changeLineClusteringSum(physicalId, this.playerShares[physicalId] * this.playerReferences[physicalId]);
+        }
     }
 
     /**
@@ -65,10 +90,26 @@ public class TileLine {
      * <p>
      * Must be updated after every {@link Move#doMove()} and {@link Move#undoMove()}
      *
-     * @param count the number of new player's stones added
+     * @param physicalId the physical id of the player whose stone count changed
+     * @param count      the number of new player's stones added
      */
-    void changePlayerShare(int count) {
-        playerShare += count;
+    void changePlayerShare(int physicalId, int count) {
+        playerShares[physicalId] += count;
+        map.changeLineClusteringSum(physicalId, count * playerReferences[physicalId]);
+    }
+
+    /**
+     * Updates the amount of {@link Tile}s of a player that have this {@code TileLine} as row, column, diagonal or
+     * indiagonal after a move.
+     * <p>
+     * Must be updated after every {@link Move#doMove()} and {@link Move#undoMove()}
+     *
+     * @param physicalId the physical id of the player whose stone count changed
+     * @param count      the number of new player's stones added
+     */
+    void changePlayerReferences(int physicalId, int count) {
+        playerReferences[physicalId] += count;
+        map.changeLineClusteringSum(physicalId, count * playerShares[physicalId]);
     }
 
     /**
@@ -113,11 +154,46 @@ public class TileLine {
 
     /**
      * Returns the player share.
+     * <p>
+     * The player share is the amount of {@link Tile}s in the {@code TileLine} that belong to us.
      *
      * @return the player share
      */
     public int getPlayerShare() {
-        return playerShare;
+        return getPlayerShare(Game.getGame().getCurrentState().getMe());
+    }
+
+    /**
+     * Returns the player share of the given player.
+     * <p>
+     * The player share is the amount of {@link Tile}s in the {@code TileLine} that belong to the player.
+     *
+     * @param playerId the {@code id} of the {@link Player}
+     * @return the player share
+     */
+    public int getPlayerShare(int playerId) {
+        return playerShares[map.toPhysicalId(playerId)];
+    }
+
+    /**
+     * Returns the player share of the given physical id.
+     *
+     * @param physicalId the physical id. See {@link Map#toPhysicalId(int)}.
+     * @return the player share
+     */
+    int getPhysicalShare(int physicalId) {
+        return playerShares[physicalId];
+    }
+
+    /**
+     * Returns the amount of {@link Tile}s of the given physical id that have this {@code TileLine} as row, column,
+     * diagonal or indiagonal.
+     *
+     * @param physicalId the physical id. See {@link Map#toPhysicalId(int)}.
+     * @return the amount of {@code Tile}s, counted once per axis
+     */
+    int getPhysicalReferences(int physicalId) {
+        return playerReferences[physicalId];
     }
 
     /**
@@ -130,17 +206,20 @@ public class TileLine {
      * @param direction the {@link Direction} in integer representation to start the search
      */
     void lineSearch(Tile origin, int direction) {
-        Tile curTile = origin;
+        Map map = origin.getMap();
+        int hole = map.getTileCount();
+        int cur = origin.index;
         this.addTile(origin);
 
         int searchDirection = direction;
         int arrivalDirection;
 
-        while (curTile.getTransition(searchDirection) != null) {
-            arrivalDirection = curTile.getArrivalDirection(searchDirection);
+        while (map.getTransition(cur, searchDirection) != hole) {
+            arrivalDirection = map.getArrivalDirection(cur, searchDirection);
 
-            curTile = curTile.getTransition(searchDirection);
-            if (curTile == origin && Direction.oppositeOf(arrivalDirection) == direction) break;
+            cur = map.getTransition(cur, searchDirection);
+            if (cur == origin.index && Direction.oppositeOf(arrivalDirection) == direction) break;
+            Tile curTile = map.getTile(cur);
             this.addTile(curTile);
 
             switch (Direction.fromId(arrivalDirection)) {
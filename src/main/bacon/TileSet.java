@@ -0,0 +1,167 @@
+package bacon;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of {@link Tile}s of a single {@link Map}, stored as a bitset over the dense tile indices.
+ * <p>
+ * Every non-hole {@code Tile} of a {@code Map} owns a unique {@link Tile#index}. Membership is stored as a single bit
+ * in an array of {@code long} words, so insertions, removals and membership tests are single word operations and
+ * iteration only visits set bits. The size is tracked as well, making counts constant time.
+ * <p>
+ * The set is read-only outside of the {@code bacon} package. It is only modified by the {@code Map} it belongs to.
+ */
+public class TileSet extends AbstractSet<Tile> {
+
+    /**
+     * The {@link Tile}s of the {@link Map} in index order. Bit {@code i} of this set represents {@code tiles[i]}.
+     */
+    private final Tile[] tiles;
+    /**
+     * The bitset. Bit {@code i % 64} of word {@code i / 64} is set, if the {@link Tile} with index {@code i} is contained.
+     */
+    private final long[] words;
+    /**
+     * The number of set bits.
+     */
+    private int size;
+
+    /**
+     * Creates a new empty {@code TileSet} over the given {@link Tile}s.
+     *
+     * @param tiles the {@code Tile}s of the {@link Map} in index order. The array may be filled after creation.
+     */
+    TileSet(Tile[] tiles) {
+        this.tiles = tiles;
+        this.words = new long[(tiles.length + 63) >>> 6];
+        this.size = 0;
+    }
+
+    /**
+     * Adds the {@link Tile} with the given index to the set.
+     *
+     * @param index the index of the {@code Tile}
+     * @return {@code true} if the {@code Tile} was not contained before, {@code false} otherwise
+     */
+    boolean add(int index) {
+        long mask = 1L << index;
+        if ((words[index >>> 6] & mask) != 0) return false;
+        words[index >>> 6] |= mask;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes the {@link Tile} with the given index from the set.
+     *
+     * @param index the index of the {@code Tile}
+     * @return {@code true} if the {@code Tile} was contained before, {@code false} otherwise
+     */
+    boolean remove(int index) {
+        long mask = 1L << index;
+        if ((words[index >>> 6] & mask) == 0) return false;
+        words[index >>> 6] &= ~mask;
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes all {@link Tile}s from the set.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0);
+        size = 0;
+    }
+
+    /**
+     * Returns whether the {@link Tile} with the given index is contained in this set.
+     * <p>
+     * Indices outside of the {@link Map}, like the hole index, are never contained.
+     *
+     * @param index the index of the {@code Tile}
+     * @return {@code true} if the {@code Tile} is contained, {@code false} otherwise
+     */
+    public boolean contains(int index) {
+        return index >= 0 && index < tiles.length && (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns the smallest index of a contained {@link Tile} that is greater than or equal to {@code from}.
+     * <p>
+     * Use this to iterate the set without allocating an {@link Iterator}:
+     * <pre>{@code for (int i = set.nextIndex(0); i >= 0; i = set.nextIndex(i + 1)) }</pre>
+     *
+     * @param from the index to start searching from
+     * @return the next contained index or {@code -1} if there is none
+     */
+    public int nextIndex(int from) {
+        if (from >= tiles.length) return -1;
+        int w = from >>> 6;
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == words.length) return -1;
+            word = words[w];
+        }
+    }
+
+    /**
+     * Returns the word at the given position of the bitset.
+     * <p>
+     * The word contains the bits of the {@link Tile}s with the indices {@code 64 * word} to {@code 64 * word + 63}.
+     *
+     * @param word the position of the word
+     * @return the bits of the word
+     */
+    public long getWord(int word) {
+        return words[word];
+    }
+
+    /**
+     * Returns the number of words the bitset consists of.
+     *
+     * @return the number of words
+     */
+    public int getWordCount() {
+        return words.length;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Tile && contains(((Tile) o).index) && tiles[((Tile) o).index] == o;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Iterator<Tile> iterator() {
+        return new Iterator<>() {
+            private int next = nextIndex(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Tile next() {
+                if (next < 0) throw new NoSuchElementException();
+                Tile tile = tiles[next];
+                next = nextIndex(next + 1);
+                return tile;
+            }
+        };
+    }
+}
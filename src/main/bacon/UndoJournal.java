@@ -0,0 +1,170 @@
+package bacon;
+
+import java.util.Arrays;
+
+/**
+ * A journal of the {@link Tile} changes made by moves, used to undo them again.
+ * <p>
+ * Every move that can be undone opens a new frame and records each {@code Tile} before changing it. Undoing the move
+ * restores all {@code Tile}s recorded in the topmost frame and closes the frame. Therefore moves have to be undone
+ * in the reverse order they were done in.
+ * <p>
+ * The journal is backed by preallocated {@code int} arrays that only grow when needed, so doing and undoing moves
+ * does not allocate any objects.
+ */
+public class UndoJournal {
+
+    /**
+     * Number of {@code int}s per entry: tile index, previous owner and previous {@link Tile.Property} ordinal.
+     */
+    private static final int ENTRY_SIZE = 3;
+    private static final Tile.Property[] PROPERTIES = Tile.Property.values();
+
+    /**
+     * The recorded entries, {@link #ENTRY_SIZE} elements each.
+     */
+    private int[] entries;
+    /**
+     * Number of recorded entries.
+     */
+    private int size;
+    /**
+     * The entry each open frame starts at.
+     */
+    private int[] frames;
+    /**
+     * Number of open frames.
+     */
+    private int frameCount;
+    /**
+     * Marks the {@link Tile}s recorded in the topmost frame. A {@code Tile} is recorded, if its element is equal to
+     * {@link #stamp}.
+     */
+    private int[] stamps;
+    /**
+     * The mark of the topmost frame.
+     */
+    private int stamp;
+
+    /**
+     * Creates a new empty {@code UndoJournal}.
+     */
+    public UndoJournal() {
+        this.entries = new int[ENTRY_SIZE * 256];
+        this.frames = new int[64];
+        this.stamps = new int[0];
+    }
+
+    /**
+     * Opens a new frame. All {@link Tile}s recorded afterwards belong to this frame.
+     */
+    public void beginFrame() {
+        if (frameCount == frames.length) frames = Arrays.copyOf(frames, 2 * frames.length);
+        frames[frameCount++] = size;
+        nextStamp();
+    }
+
+    /**
+     * Records the current owner and {@link Tile.Property} of the given {@link Tile} in the topmost frame.
+     * <p>
+     * Nothing is recorded if the {@code Tile} has already been recorded in the topmost frame.
+     *
+     * @param tile the {@code Tile} that is about to be changed
+     * @return {@code true} if the {@code Tile} was recorded, {@code false} if it has already been recorded before
+     */
+    public boolean record(Tile tile) {
+        assert frameCount > 0 : "A frame has to be opened before recording";
+
+        if (stamps.length <= tile.index) stamps = Arrays.copyOf(stamps, tile.getMap().getTileCount());
+        if (stamps[tile.index] == stamp) return false;
+        stamps[tile.index] = stamp;
+
+        if (ENTRY_SIZE * (size + 1) > entries.length) entries = Arrays.copyOf(entries, 2 * entries.length);
+        int offset = ENTRY_SIZE * size++;
+        entries[offset] = tile.index;
+        entries[offset + 1] = tile.getOwnerId();
+        entries[offset + 2] = tile.getProperty().ordinal();
+        return true;
+    }
+
+    /**
+     * Returns the total number of recorded entries.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the entry the topmost frame starts at.
+     *
+     * @return the first entry of the topmost frame
+     */
+    public int getFrameStart() {
+        assert frameCount > 0 : "No frame is open";
+        return frames[frameCount - 1];
+    }
+
+    /**
+     * Returns the {@link Tile#index} recorded in the given entry.
+     *
+     * @param entry the position of the entry
+     * @return the index of the recorded {@code Tile}
+     */
+    public int getTileIndex(int entry) {
+        return entries[ENTRY_SIZE * entry];
+    }
+
+    /**
+     * Returns the {@link Tile.Property} recorded in the given entry.
+     *
+     * @param entry the position of the entry
+     * @return the {@code Property} the {@code Tile} had when it was recorded
+     */
+    public Tile.Property getPreviousProperty(int entry) {
+        return PROPERTIES[entries[ENTRY_SIZE * entry + 2]];
+    }
+
+    /**
+     * Restores all {@link Tile}s recorded in the topmost frame and closes the frame.
+     *
+     * @param map the {@link Map} the {@code Tile}s belong to
+     */
+    public void undoFrame(Map map) {
+        assert frameCount > 0 : "No frame is open";
+
+        int start = frames[--frameCount];
+        for (int entry = size - 1; entry >= start; entry--) {
+            int offset = ENTRY_SIZE * entry;
+            Tile tile = map.getTile(entries[offset]);
+            tile.setOwnerId(entries[offset + 1]);
+            tile.setProperty(PROPERTIES[entries[offset + 2]]);
+        }
+        size = start;
+        nextStamp();
+    }
+
+    /**
+     * Discards all frames and entries.
+     * <p>
+     * Moves done before can not be undone afterwards.
+     */
+    public void clear() {
+        size = 0;
+        frameCount = 0;
+        nextStamp();
+    }
+
+    /**
+     * Invalidates the marks of all recorded {@link Tile}s.
+     */
+    private void nextStamp() {
+        stamp++;
+        if (stamp == 0) {
+            // the stamps wrapped around, so old marks could become valid again
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+    }
+}
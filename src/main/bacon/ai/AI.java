@@ -36,6 +36,11 @@ public class AI {
      */
     private static int moveCount = 0;
 
+    /**
+     * Chooses the aspiration windows of the search iterations.
+     */
+    private final AspirationWindow aspirationWindow = new AspirationWindow();
+
     /**
      * Singleton constructor that does nothing.
      */
@@ -71,7 +76,8 @@ public class AI {
     /**
      * Request a {@link Move} from the {@code AI}.
      * <p>
-     * Returns the best move that can be found in the given time or depth limit.
+     * Returns the best move that can be found in the given time or depth limit. If not even the first iteration of
+     * the search completes in time, a move chosen by a quick estimate is returned.
      *
      * @param timeout          the time the ai has for its computation
      * @param depth            the maximum search depth the ai is allowed to do
@@ -119,30 +125,44 @@ public class AI {
             }
 
 
-            double alpha = -Double.MAX_VALUE;
-            double beta = Double.MAX_VALUE;
+            // have a move at hand, even if not a single iteration completes in time
+            bestMove = BRSNode.getFallbackMove();
+
+            // the heuristic weights may have been changed by a rollout, so old values can not be reused
+            BRSNode.invalidateTranspositionTable();
+            BRSNode.clearMoveHistory();
+            BRSNode.clearPreviousSearch();
+
+            int previousValue = 0;
+            boolean hasPreviousValue = false;
             BRSNode root;
             while (iterationHeuristic.doIteration()) {
-                root = new BRSNode(iterationHeuristic.getDepth(), cfg.getBeamWidth(), cfg.isPruningEnabled(),
-                        cfg.isMoveSortingEnabled(), cfg.isAspirationWindowsEnabled(), alpha, beta, watchdog);
+                int iterationDepth = iterationHeuristic.getDepth();
+                int delta = 0;
+                if (cfg.isAspirationWindowsEnabled() && hasPreviousValue) delta = aspirationWindow.getDelta(iterationDepth);
+                int alpha = delta > 0 ? AspirationWindow.getAlpha(previousValue, delta) : Heuristics.LOSS;
+                int beta = delta > 0 ? AspirationWindow.getBeta(previousValue, delta) : Heuristics.WIN;
+
+                long searchStart = System.nanoTime();
+                root = new BRSNode(iterationDepth, cfg, alpha, beta, watchdog);
                 root.evaluateNode();
 
-                if (root.getBestMove() != null) {
-                    bestMove = root.getBestMove();
-                } else if (cfg.isAspirationWindowsEnabled() && !watchdog.isTriggered()) {
-                    // aspiration window failure: restart search with default alpha/beta values
-                    root = new BRSNode(iterationHeuristic.getDepth(), cfg.getBeamWidth(), cfg.isPruningEnabled(),
-                            cfg.isMoveSortingEnabled(), false, -Double.MAX_VALUE, Double.MAX_VALUE, watchdog);
+                // aspiration window failure: search again with the failing side of the window widened
+                while (!watchdog.isTriggered() && (root.getValue() <= alpha && alpha > Heuristics.LOSS
+                        || root.getValue() >= beta && beta < Heuristics.WIN)) {
+                    Statistics.getStatistics().failAspirationWindow(System.nanoTime() - searchStart);
+                    delta = AspirationWindow.widen(delta);
+                    if (root.getValue() <= alpha) alpha = AspirationWindow.getAlpha(root.getValue(), delta);
+                    else beta = AspirationWindow.getBeta(root.getValue(), delta);
+
+                    searchStart = System.nanoTime();
+                    root = new BRSNode(iterationDepth, cfg, alpha, beta, watchdog);
                     root.evaluateNode();
-                    if (root.getBestMove() != null) bestMove = root.getBestMove();
                 }
 
-                if (cfg.isAspirationWindowsEnabled()) {
-                    // update aspiration window for next BRS-iteration
-                    BRSNode.analyseAspirationWindow();
-                    alpha = root.getAspWindowAlpha();
-                    beta = root.getAspWindowBeta();
-                }
+                // the best move of a failed low search is not better than any other move
+                boolean failedLow = root.getValue() <= alpha && alpha > Heuristics.LOSS;
+                if (root.getBestMove() != null && !failedLow) bestMove = root.getBestMove();
 
                 if (watchdog.isTriggered()) {
                     LOGGER.log(Level.WARNING, "Pancake triggered!");
@@ -150,6 +170,10 @@ public class AI {
                     break;
                 }
 
+                if (hasPreviousValue) aspirationWindow.addSample(iterationDepth, previousValue, root.getValue());
+                previousValue = root.getValue();
+                hasPreviousValue = true;
+
                 // stop ai from for example trying depth 10 if only 5 rounds remain
                 if (BRSNode.getMaximumReachedDepth() < iterationHeuristic.getDepth()) break;
             }
@@ -175,11 +199,26 @@ public class AI {
                 new Object[]{Statistics.getStatistics().getTotalStateCount(), Statistics.getStatistics().getLeafCount(),
                         Statistics.getStatistics().getStateCounts().values().stream().map(String::valueOf).collect(Collectors.joining("|"))});
 
+        LOGGER.log(Level.INFO, "Transposition table hit rate {0}, {1} cutoffs.",
+                new Object[]{Statistics.getStatistics().getTableHitRate(), Statistics.getStatistics().getTableCutoffCount()});
+        LOGGER.log(Level.INFO, "Stopped {0} evaluations early.", Statistics.getStatistics().getSkippedEvaluationCount());
+        LOGGER.log(Level.INFO, "Searched {0} states again after a null window search.",
+                Statistics.getStatistics().getResearchCount());
+        LOGGER.log(Level.INFO, "Reduced the depth of {0} states, {1} of them were searched again.",
+                new Object[]{Statistics.getStatistics().getReductionCount(),
+                        Statistics.getStatistics().getReductionResearchCount()});
+        LOGGER.log(Level.INFO, "Skipped {0} futile moves.", Statistics.getStatistics().getFutileMoveCount());
+        LOGGER.log(Level.INFO, "Searched {0} states with reduced depth to find a first move.",
+                Statistics.getStatistics().getInternalDeepeningCount());
+        LOGGER.log(Level.INFO, "Widened the aspiration window {0} times, failed searches took {1} ms.",
+                new Object[]{Statistics.getStatistics().getAspirationFailureCount(),
+                        Statistics.getStatistics().getAspirationFailureNanos() / 1000000});
+
         long totalTimeNanos = Statistics.getStatistics().getElapsedNanos();
         IntSummaryStatistics stats = Statistics.getStatistics().getStateMeasurementResults();
 
         LOGGER.log(Level.INFO, "Computing best move took {0} ms, {1} μs avg per state.",
-                new Object[]{totalTimeNanos / 1000000, (totalTimeNanos / 1000) / Statistics.getStatistics().getTotalStateCount()});
+                new Object[]{totalTimeNanos / 1000000, (totalTimeNanos / 1000) / Math.max(1, Statistics.getStatistics().getTotalStateCount())});
         LOGGER.log(Level.INFO, "Computing times per leaf: avg {0} μs, min {1} μs, max {2} μs, leaf time total {3} μs.",
                 new Object[]{(int) (stats.getAverage() / 1000), stats.getMin() / 1000, stats.getMax() / 1000, stats.getSum() / 1000});
 
@@ -0,0 +1,106 @@
+package bacon.ai;
+
+import bacon.ai.heuristics.Heuristics;
+
+import java.util.Arrays;
+
+/**
+ * Chooses the aspiration windows of the iterations of the search and widens them after a failed search.
+ * <p>
+ * The value of the root usually changes little from one iteration to the next, so the next iteration can be searched
+ * with a narrow window around the previous value to prune more. The width of the window depends on the changes of the
+ * value seen in earlier searches at the same depth, as they differ between max and min layers in
+ * <i>Best Reply Search</i>. If the value turns out to lie outside of the window, only the failing bound is moved
+ * further out for the next try.
+ * <p>
+ * The statistics are kept over the whole game.
+ */
+class AspirationWindow {
+
+    /**
+     * Number of observed changes needed at a depth before a window is used there.
+     */
+    private static final int MIN_SAMPLES = 4;
+    /**
+     * Half width of the window in multiples of the root mean square of the observed changes.
+     */
+    private static final double WIDTH_FACTOR = 2;
+    /**
+     * Minimum half width of the window.
+     */
+    private static final int MIN_DELTA = Heuristics.SCORE_SCALE;
+    /**
+     * Factor by which the failing side of the window grows after a failed search.
+     */
+    private static final int GROWTH_FACTOR = 4;
+
+    /*
+    The number of observed changes and the sum of their squares, indexed by depth.
+     */
+    private int[] sampleCounts = new int[0];
+    private double[] squareSums = new double[0];
+
+    /**
+     * Records how much the value of the root changed from the previous iteration to an iteration with the given
+     * depth. Both values have to be exact.
+     *
+     * @param depth         the depth of the iteration
+     * @param previousValue the value of the root in the previous iteration
+     * @param value         the value of the root in the iteration with the given depth
+     */
+    void addSample(int depth, int previousValue, int value) {
+        if (depth >= sampleCounts.length) {
+            sampleCounts = Arrays.copyOf(sampleCounts, depth + 1);
+            squareSums = Arrays.copyOf(squareSums, depth + 1);
+        }
+
+        double change = (double) value - previousValue;
+        sampleCounts[depth]++;
+        squareSums[depth] += change * change;
+    }
+
+    /**
+     * Returns the half width of the window for an iteration with the given depth.
+     *
+     * @param depth the depth of the iteration
+     * @return the half width of the window, or {@code 0} if the iteration should be searched with a full window
+     */
+    int getDelta(int depth) {
+        if (depth >= sampleCounts.length || sampleCounts[depth] < MIN_SAMPLES) return 0;
+
+        double rootMeanSquare = Math.sqrt(squareSums[depth] / sampleCounts[depth]);
+        return (int) Math.min(Heuristics.WIN, Math.max(MIN_DELTA, WIDTH_FACTOR * rootMeanSquare));
+    }
+
+    /**
+     * Returns the half width of the window after a failed search.
+     *
+     * @param delta the half width of the failed window
+     * @return the widened half width
+     */
+    static int widen(int delta) {
+        return (int) Math.min(Heuristics.WIN, (long) delta * GROWTH_FACTOR);
+    }
+
+    /**
+     * Returns the lower bound of a window around the given value.
+     *
+     * @param value the center of the window
+     * @param delta the half width of the window
+     * @return the alpha value of the window, at least {@link Heuristics#LOSS}
+     */
+    static int getAlpha(int value, int delta) {
+        return (int) Math.max(Heuristics.LOSS, (long) value - delta);
+    }
+
+    /**
+     * Returns the upper bound of a window around the given value.
+     *
+     * @param value the center of the window
+     * @param delta the half width of the window
+     * @return the beta value of the window, at most {@link Heuristics#WIN}
+     */
+    static int getBeta(int value, int delta) {
+        return (int) Math.min(Heuristics.WIN, (long) value + delta);
+    }
+}
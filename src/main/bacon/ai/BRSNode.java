@@ -1,5 +1,6 @@
 package bacon.ai;
 
+import bacon.Config;
 import bacon.Game;
 import bacon.GameState;
 import bacon.ai.heuristics.Heuristics;
@@ -7,9 +8,9 @@ import bacon.ai.heuristics.LegalMoves;
 import bacon.ai.heuristics.PancakeWatchdog;
 import bacon.ai.heuristics.StabilityHeuristic;
 import bacon.move.BuildMove;
+import bacon.move.EncodedMove;
 import bacon.move.Move;
-import bacon.move.OverrideMove;
-import bacon.move.RegularMove;
+import bacon.move.MoveBuffer;
 
 import java.util.*;
 
@@ -31,13 +32,50 @@ class BRSNode {
     public static final double LINE_CLUSTERING_SCALAR_DEFAULT = -1;
     public static final double BOMB_BONUS_SCALAR = 2;
     public static final double OVERRIDE_BONUS_SCALAR_DEFAULT = 100;
+    public static final double PATTERN_SCALAR_DEFAULT = 1;
+    /**
+     * Minimum number of layers below a node for late move reductions. Shallower nodes are searched with full depth.
+     */
+    private static final int LMR_MIN_DEPTH = 3;
+    /**
+     * Number of layers the search for a first move is less deep than the search of the node, for internal iterative
+     * deepening.
+     */
+    private static final int IID_REDUCTION = 1;
+
+    /**
+     * Binary logarithm of the number of entries in the {@link TranspositionTable}.
+     */
+    private static final int TRANSPOSITION_TABLE_BITS = 18;
+    /**
+     * Nodes with more legal moves than this order them by the estimate of the {@link DeltaEvaluator}.
+     */
+    private static final int DELTA_ORDERING_MOVES = 16;
+    /**
+     * Beam search preselects this many times the branching factor by the estimate of the {@link DeltaEvaluator},
+     * only the preselected moves are evaluated fully.
+     */
+    private static final int BEAM_CANDIDATE_FACTOR = 2;
+    /*
+    Random keys that are combined with the hash of the map, as the value of a node also depends on who is in turn and
+    on the type of the last move.
+     */
+    private static final long MIN_NODE_KEY = 0x9E3779B97F4A7C15L;
+    private static final long OVERRIDE_KEY = 0xC2B2AE3D27D4EB4FL;
 
     private static double stabilityScalar;
     private static double mobilityScalar;
     private static double overrideStabilityScalar;
-    private static double stoneCountScalar;
     private static double lineClusteringScalar;
     private static double overrideBonusScalar;
+    private static double patternScalar;
+    /**
+     * The weights of the stone count heuristics, computed once per search. The weight only depends on the number of
+     * occupied {@link bacon.Tile}s, element {@code i} is used for {@code i} more occupied {@code Tile}s than at the
+     * root.
+     */
+    private static double[] stoneCountScalars;
+    private static int rootOccupiedTileCount;
     /**
      * The maximum search depth.
      */
@@ -48,24 +86,94 @@ class BRSNode {
     private static int branchingFactor;
     private static boolean enablePruning;
     private static boolean enableSorting;
-    private static boolean aspWindowEnabled;
-    private static double aspWindowAlpha;
-    private static double aspWindowBeta;
+    /**
+     * {@code true} if the pattern heuristics replace stability and line clustering.
+     */
+    private static boolean enablePatterns;
+    /**
+     * {@code true} if all but the first child of a node are searched with a null window first.
+     */
+    private static boolean enablePvs;
+    /**
+     * {@code true} if moves are ordered by killer moves and the history heuristic.
+     */
+    private static boolean enableHistory;
+    /**
+     * The number of moves of a node that are searched with full depth, the later ones are searched with reduced depth
+     * first. {@code 0} disables the reductions.
+     */
+    private static int lateMoveReduction;
+    /**
+     * {@code true} if moves near the leaves are skipped when their rating cannot reach the alpha-beta window.
+     */
+    private static boolean enableFutility;
+    /**
+     * {@code true} if nodes without a known best move search for one with reduced depth first.
+     */
+    private static boolean enableIid;
 
     /**
      * The maximum depth that was reached in the search.
      */
     private static int reachedDepth;
 
-    // Statistics needed for determining aspiration window size for the next BRS-iteration
-    private static List<Double> stateValues;
-    private static double stateAvg;
-    private static double stateStdv;
+    /**
+     * Reusable move lists, one for each layer of the search tree. Nodes only ever use the buffer of their own layer,
+     * so the moves of all ancestors stay intact while a node is evaluated.
+     */
+    private static MoveBuffer[] moveBuffers = new MoveBuffer[0];
+    /**
+     * The {@code id}s of all players except the max player.
+     */
+    private static int[] opponents;
+
+    /**
+     * Results of nodes that were already evaluated, shared by all searches.
+     */
+    private static final TranspositionTable transpositionTable = new TranspositionTable(TRANSPOSITION_TABLE_BITS);
+    /**
+     * Killer moves and history scores for move ordering.
+     */
+    private static final MoveHistory moveHistory = new MoveHistory();
+    /**
+     * Rates moves without executing them, used at nodes with many legal moves.
+     */
+    private static final DeltaEvaluator deltaEvaluator = new DeltaEvaluator(LINE_CLUSTERING_SCALAR_DEFAULT, BOMB_BONUS_SCALAR);
+    /**
+     * The observed differences between the ratings and values of moves near the leaves, for futility pruning.
+     */
+    private static final FutilityMargins futilityMargins = new FutilityMargins();
+    /*
+    The principal variation of each node on the current path. The line of the node in layer l is stored in
+    pvTable[l] from index l to pvLengths[l].
+     */
+    private static int[][] pvTable = new int[0][];
+    private static int[] pvLengths = new int[0];
+    /*
+    The results of the last completed search, reused by the next iteration from the same root: the principal variation
+    and the moves of the root along with their values.
+     */
+    private static long previousRootHash;
+    private static int[] previousPv = new int[0];
+    private static MoveBuffer previousRootMoves = new MoveBuffer();
+    /**
+     * The moves of the root along with their values, recorded during the current search.
+     */
+    private static MoveBuffer rootMoves = new MoveBuffer();
+    /**
+     * The moves rated by {@link #getFallbackMove()}.
+     */
+    private static final MoveBuffer fallbackMoves = new MoveBuffer();
 
     /**
      * The layer in the search tree this node is in.
      */
     private final int layer;
+    /**
+     * The layer the search below this node ends in. This is the search depth, unless the depth was reduced on the way
+     * to this node.
+     */
+    private final int depthLimit;
     /**
      * The {@link Move.Type} of move that lead to this node.
      */
@@ -79,9 +187,9 @@ class BRSNode {
      */
     private final PancakeWatchdog watchdog;
     /**
-     * The best move that was found so far in all child nodes.
+     * The best move that was found so far in all child nodes, encoded by {@link EncodedMove}.
      */
-    private BuildMove bestMove;
+    private int bestMove = EncodedMove.NO_MOVE;
     /**
      * {@code true} if this node is a max node, {@code false} if this node is a min node.
      */
@@ -89,19 +197,27 @@ class BRSNode {
     /**
      * The evaluation value of this node.
      */
-    private double value;
+    private int value;
     /**
      * The alpha value used by alpha-beta-pruning.
      */
-    private double alpha;
+    private int alpha;
     /**
      * The beta value used by alpha-beta-pruning.
      */
-    private double beta;
+    private int beta;
     /**
-     * {@code true} if search within aspiration window was successful, {@code false} otherwise.
+     * {@code true} if a value was found for this node, {@code false} if it was interrupted before.
      */
     private boolean windowSuccess;
+    /**
+     * {@code true} if this node lies on the principal variation of the previous search.
+     */
+    private boolean onPv;
+    /**
+     * The move of the principal variation of the previous search in this node, or {@link EncodedMove#NO_MOVE}.
+     */
+    private int pvMove = EncodedMove.NO_MOVE;
 
     /**
      * Creates a new {@code BRSNode} that serves as the search tree root.
@@ -111,53 +227,105 @@ class BRSNode {
      * @param enablePruning    set to {@code true} if alpha-beta pruning should be applied
      * @param enableSorting    set to {@code true} when move sorting should be used
      * @param aspWindowEnabled set to {@code true} when aspiration window is on
-     * @param alpha            alpha value passed down from ai
-     * @param beta             beta value passed down from ai
+     * @param alpha            alpha value passed down from ai, the lower bound of the aspiration window
+     * @param beta             beta value passed down from ai, the upper bound of the aspiration window
      * @param watchdog         a watchdog timer that triggers when time is running out
      */
-    BRSNode(int depth, int branchingFactor, boolean enablePruning, boolean enableSorting, boolean aspWindowEnabled, double alpha, double beta, PancakeWatchdog watchdog) {
+    BRSNode(int depth, int branchingFactor, boolean enablePruning, boolean enableSorting, boolean aspWindowEnabled, int alpha, int beta, PancakeWatchdog watchdog) {
+        this(depth, new Config(null, 0, enablePruning, enableSorting, branchingFactor, aspWindowEnabled, 0, false),
+                aspWindowEnabled ? alpha : Heuristics.LOSS, aspWindowEnabled ? beta : Heuristics.WIN, watchdog);
+    }
+
+    /**
+     * Creates a new {@code BRSNode} that serves as the search tree root, using the search settings of the given
+     * {@link Config}.
+     *
+     * The root is searched with the given alpha-beta window. If the value of the root lies outside of the window, it
+     * is only a bound of the actual value, see {@link #getValue()}.
+     *
+     * @param depth    maximum depth to be searched
+     * @param cfg      config containing settings for search algorithms
+     * @param alpha    alpha value passed down from ai, {@link Heuristics#LOSS} for a full window
+     * @param beta     beta value passed down from ai, {@link Heuristics#WIN} for a full window
+     * @param watchdog a watchdog timer that triggers when time is running out
+     */
+    BRSNode(int depth, Config cfg, int alpha, int beta, PancakeWatchdog watchdog) {
         BRSNode.searchDepth = depth;
-        BRSNode.branchingFactor = branchingFactor;
-        BRSNode.enablePruning = enablePruning;
-        BRSNode.enableSorting = enableSorting;
-        BRSNode.aspWindowEnabled = aspWindowEnabled;
-        BRSNode.aspWindowAlpha = alpha;
-        BRSNode.aspWindowBeta = beta;
-        BRSNode.stateAvg = 0;
-        BRSNode.stateStdv = 0;
-        BRSNode.stateValues = new ArrayList<>();
+        BRSNode.branchingFactor = cfg.getBeamWidth();
+        BRSNode.enablePruning = cfg.isPruningEnabled();
+        BRSNode.enableSorting = cfg.isMoveSortingEnabled();
+        BRSNode.enablePatterns = cfg.isPatternEvaluationEnabled();
+        BRSNode.enablePvs = cfg.isPrincipalVariationSearchEnabled();
+        BRSNode.enableHistory = cfg.isMoveHistoryEnabled();
+        BRSNode.lateMoveReduction = cfg.getLateMoveReduction();
+        BRSNode.enableFutility = cfg.isFutilityPruningEnabled();
+        BRSNode.enableIid = cfg.isInternalIterativeDeepeningEnabled();
         BRSNode.reachedDepth = 0;
 
+        GameState rootState = Game.getGame().getCurrentState();
+        BRSNode.opponents = new int[rootState.getTotalPlayerCount() - 1];
+        for (int i = 1, j = 0; i <= rootState.getTotalPlayerCount(); i++) {
+            if (i != rootState.getMe()) BRSNode.opponents[j++] = i;
+        }
+
+        // the root layer needs a buffer even if the depth is zero
+        int layers = Math.max(depth, 1);
+        if (BRSNode.moveBuffers.length < layers) {
+            int oldLength = BRSNode.moveBuffers.length;
+            BRSNode.moveBuffers = Arrays.copyOf(BRSNode.moveBuffers, layers);
+            for (int i = oldLength; i < layers; i++) {
+                BRSNode.moveBuffers[i] = new MoveBuffer();
+            }
+        }
+        BRSNode.moveHistory.prepare(rootState.getMap(), layers);
+        if (BRSNode.pvLengths.length < layers) {
+            BRSNode.pvTable = new int[layers][layers];
+            BRSNode.pvLengths = new int[layers];
+        }
+        BRSNode.rootMoves.clear();
+
         BRSNode.stabilityScalar = STABILITY_SCALAR_DEFAULT;
         BRSNode.mobilityScalar = MOBILITY_SCALAR_DEFAULT;
         BRSNode.overrideStabilityScalar = OVERRIDE_STABILITY_SCALAR_DEFAULT;
-        BRSNode.stoneCountScalar = STONE_COUNT_SCALAR_DEFAULT;
         BRSNode.lineClusteringScalar = LINE_CLUSTERING_SCALAR_DEFAULT;
-        BRSNode.overrideBonusScalar = OVERRIDE_BONUS_SCALAR_DEFAULT;
+        BRSNode.patternScalar = PATTERN_SCALAR_DEFAULT;
+
+        // the weights only depend on the rollout statistics, which do not change while searching
+        BRSNode.overrideBonusScalar = Heuristics.bonusOverrideWeight(rootState, rootState.getMe());
+        BRSNode.rootOccupiedTileCount = rootState.getMap().getOccupiedTileCount();
+        BRSNode.stoneCountScalars = new double[depth + 1];
+        for (int i = 0; i <= depth; i++) {
+            BRSNode.stoneCountScalars[i] = Heuristics.stoneCountWeight(rootState, rootState.getMe(), rootOccupiedTileCount + i);
+        }
 
         this.layer = 0;
+        this.depthLimit = depth;
         this.isMaxNode = true;
         this.type = null;
-        this.alpha = -Double.MAX_VALUE;
-        this.beta = Double.MAX_VALUE;
+        this.alpha = alpha;
+        this.beta = beta;
         this.windowSuccess = false;
 
         this.watchdog = watchdog;
         this.state = Game.getGame().getCurrentState();
+        // the results of the previous search only apply to the same position
+        this.onPv = getHash() == BRSNode.previousRootHash;
     }
 
     /**
      * Creates a new {@code BRSNode} that serves as a child node.
      *
-     * @param layer     layer this node is part of. The root is on layer zero.
-     * @param isMaxNode set to {@code true} if max player is in turn at this node
-     * @param type      the {@link Move.Type} of the move that led to this node
-     * @param alpha     the current alpha value
-     * @param beta      the current beta value
-     * @param watchdog  a watchdog timer that triggers when time is running out
-     */
-    private BRSNode(int layer, boolean isMaxNode, Move.Type type, double alpha, double beta, PancakeWatchdog watchdog) {
+     * @param layer      layer this node is part of. The root is on layer zero.
+     * @param isMaxNode  set to {@code true} if max player is in turn at this node
+     * @param type       the {@link Move.Type} of the move that led to this node
+     * @param alpha      the current alpha value
+     * @param beta       the current beta value
+     * @param depthLimit the layer the search below the node ends in
+     * @param watchdog   a watchdog timer that triggers when time is running out
+     */
+    private BRSNode(int layer, boolean isMaxNode, Move.Type type, int alpha, int beta, int depthLimit, PancakeWatchdog watchdog) {
         this.layer = layer;
+        this.depthLimit = depthLimit;
         this.isMaxNode = isMaxNode;
         this.type = type;
         this.alpha = alpha;
@@ -169,69 +337,89 @@ class BRSNode {
     }
 
     /**
-     * Returns the maximum depth that was reached in the search.
-     *
-     * @return the maximum reached search depth
+     * Invalidates the values of all nodes evaluated so far. Call this before searching a new move.
+     * <p>
+     * The best moves of the nodes are kept for move ordering.
      */
-    static int getMaximumReachedDepth() {
-        return BRSNode.reachedDepth;
+    static void invalidateTranspositionTable() {
+        BRSNode.transpositionTable.nextGeneration();
     }
 
     /**
-     * Analyses the average values and standard deviation of nodes in the first layer.
+     * Forgets the killer moves and history scores of previous searches. Call this before searching a new move.
      */
-    static void analyseAspirationWindow() {
-        if (stateValues.size() != 0) {
-            double sum = 0;
-            for (Double value : stateValues) {
-                sum += value;
-            }
-
-            stateAvg = sum / stateValues.size();
+    static void clearMoveHistory() {
+        BRSNode.moveHistory.clear();
+    }
 
-            double stdvSum = 0;
-            for (Double value : stateValues) {
-                stdvSum += (value - stateAvg) * (value - stateAvg);
+    /**
+     * Returns a move that can be done in the current {@link GameState}, chosen by the estimate of the
+     * {@link DeltaEvaluator}. This takes only a few microseconds per legal move, so it can be computed before the
+     * search as a fallback, in case not even the first iteration completes in time.
+     *
+     * @return the best move by estimate or {@code null}, if the max player cannot move
+     */
+    static BuildMove getFallbackMove() {
+        GameState state = Game.getGame().getCurrentState();
+        MoveBuffer legalMoves = BRSNode.fallbackMoves;
+        legalMoves.clear();
+        LegalMoves.getLegalRegularMoves(state, state.getMe(), legalMoves);
+        if (legalMoves.isEmpty()) LegalMoves.getLegalOverrideMoves(state, state.getMe(), legalMoves);
+
+        int bestMove = EncodedMove.NO_MOVE;
+        int bestValue = Heuristics.LOSS;
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int value = deltaEvaluator.evaluate(state, legalMoves.get(i));
+            if (bestMove == EncodedMove.NO_MOVE || value > bestValue) {
+                bestMove = legalMoves.get(i);
+                bestValue = value;
             }
-            stateStdv = Math.pow((stdvSum / stateValues.size()), 0.5);
         }
+        return EncodedMove.toMove(state, bestMove);
     }
 
     /**
-     * Returns the best move found in all child nodes.
+     * Forgets the principal variation and root move values of the previous search. Call this before searching a new
+     * move.
+     */
+    static void clearPreviousSearch() {
+        BRSNode.previousRootHash = 0;
+        BRSNode.previousPv = new int[0];
+        BRSNode.previousRootMoves.clear();
+    }
+
+    /**
+     * Returns the maximum depth that was reached in the search.
      *
-     * @return best move that was found
+     * @return the maximum reached search depth
      */
-    BuildMove getBestMove() {
-        return bestMove;
+    static int getMaximumReachedDepth() {
+        return BRSNode.reachedDepth;
     }
 
     /**
-     * Returns the aspiration window alpha value for the next BRS-iteration.
+     * Returns the best move found in all child nodes.
      * <p>
-     * Returns the default value {@code -}{@link Double#MAX_VALUE}, if no nodes were found in first layer.
+     * If the search of the root was interrupted by the watchdog, only the completely searched moves are taken into
+     * account, and only if the best move of the previous search from the same position was one of them. Otherwise,
+     * {@code null} is returned.
      *
-     * @return the aspiration window alpha value or {@code -Double.MAX_VALUE}
+     * @return best move that was found or {@code null}
      */
-    double getAspWindowAlpha() {
-        if (stateStdv == 0) {
-            return -Double.MAX_VALUE;
-        }
-        return this.value - 5 * stateStdv;
+    BuildMove getBestMove() {
+        return EncodedMove.toMove(state, bestMove);
     }
 
     /**
-     * Returns the aspiration window beta value for the next BRS-iteration.
+     * Returns the value of this node.
      * <p>
-     * Returns the default value {@code -}{@link Double#MAX_VALUE}, if no nodes were found in first layer.
+     * If the value is lower than or equal to the alpha value the node was searched with, it is an upper bound of the
+     * actual value. If it is greater than or equal to the beta value, it is a lower bound.
      *
-     * @return the aspiration window beta value or {@code -Double.MAX_VALUE}
+     * @return the value of the node
      */
-    double getAspWindowBeta() {
-        if (stateStdv == 0) {
-            return Double.MAX_VALUE;
-        }
-        return this.value + 5 * stateStdv;
+    int getValue() {
+        return this.value;
     }
 
     /**
@@ -244,43 +432,112 @@ class BRSNode {
      * This method does <i>time panics</i> if time is running out.
      */
     void evaluateNode() {
+        BRSNode.pvLengths[this.layer] = this.layer;
+        if (this.onPv && this.layer < BRSNode.previousPv.length) this.pvMove = BRSNode.previousPv[this.layer];
+
+        // look the node up in the transposition table, this has to be done before isMaxNode may change
+        long hash = getHash();
+        int remainingDepth = this.depthLimit - this.layer;
+        int hashMove = EncodedMove.NO_MOVE;
+        int slot = transpositionTable.find(hash);
+        Statistics.getStatistics().probeTable(slot >= 0);
+        if (slot >= 0) {
+            if (this.layer > 0 && isTableCutoff(slot, remainingDepth)) {
+                Statistics.getStatistics().enterState(this.layer);
+                Statistics.getStatistics().cutTable();
+                BRSNode.reachedDepth = Integer.max(BRSNode.reachedDepth, BRSNode.searchDepth);
+                this.value = transpositionTable.getValue(slot);
+                this.windowSuccess = true;
+                return;
+            }
+            hashMove = transpositionTable.getMove(slot);
+        }
 
-        Set<? extends BuildMove> legalMoves = getLegalMoves();
+        int alphaOrig = this.alpha;
+        int betaOrig = this.beta;
 
-        // initiates node value as aspiration window boundaries or +/-infinity if aspiration window is OFF
-        if (aspWindowEnabled) this.value = this.isMaxNode ? aspWindowAlpha : aspWindowBeta;
-        else this.value = this.isMaxNode ? -Double.MAX_VALUE : Double.MAX_VALUE;
+        // without a known best move, the best move of a reduced search is tried first (internal iterative deepening)
+        if (isIidApplicable(remainingDepth, hashMove)) {
+            Statistics.getStatistics().deepenInternally();
+            BRSNode shallowNode = searchShallow(this.alpha, this.beta);
+            if (!this.watchdog.isPancake()) hashMove = shallowNode.bestMove;
+        }
+
+        MoveBuffer legalMoves = getLegalMoves();
 
-        // no move is available, return value of current game state directly; counts as aspiration window success
+        this.value = this.isMaxNode ? Heuristics.LOSS : Heuristics.WIN;
+
+        // no move is available, return value of current game state directly
         if (legalMoves.isEmpty()) {
             Statistics.getStatistics().enterState(layer);
             this.value = evaluateCurrentState(this.type);
             this.windowSuccess = true;
-        } else if (this.layer < BRSNode.searchDepth - 1) {
+        } else if (this.layer < this.depthLimit - 1) {
             BRSNode.reachedDepth = Integer.max(BRSNode.reachedDepth, this.layer + 1);
             // do beam search: go through each move in beam, construct and evaluate child nodes (recursion)
 
-            List<? extends BuildMove> moves;
-            if (BRSNode.enableSorting && BRSNode.branchingFactor > 0)
-                moves = getBeamMoves(legalMoves);
+            if (BRSNode.enableSorting && this.layer == 0 && this.onPv && !BRSNode.previousRootMoves.isEmpty())
+                reuseRootMoves(legalMoves, hashMove);
+            else if (BRSNode.enableSorting && BRSNode.branchingFactor > 0)
+                selectBeamMoves(legalMoves, hashMove);
             else if (BRSNode.enableSorting)
-                moves = getOrderedMoves(legalMoves);
+                orderMoves(legalMoves, hashMove);
             else
-                moves = new ArrayList<>(legalMoves);
+                moveToFront(legalMoves, hashMove);
 
             Statistics.getStatistics().enterState(this.layer);
 
-            for (BuildMove move : moves) {
+            // an interrupted root keeps its best move, once the choice of the previous iteration has been searched
+            boolean previousChoiceSearched = this.pvMove == EncodedMove.NO_MOVE;
+            for (int i = 0; i < legalMoves.size(); i++) {
+                int move = legalMoves.get(i);
 
                 if (this.watchdog.isPancake()) {
-                    this.bestMove = null;
+                    if (this.layer > 0 || !previousChoiceSearched) this.bestMove = EncodedMove.NO_MOVE;
+                    break;
+                }
+
+                // moves whose rating cannot reach the window are skipped without doing them
+                boolean rated = isFutilityApplicable(remainingDepth);
+                int rating = rated ? deltaEvaluator.evaluate(state, move) : 0;
+                if (rated && pruneFutileMove(move, rating, remainingDepth)) continue;
+
+                // scout with a null window, only a move that turns out better has to be searched exactly
+                boolean scout = i > 0 && BRSNode.enablePruning && BRSNode.enablePvs;
+                int childAlpha = scout && !this.isMaxNode ? this.beta - 1 : this.alpha;
+                int childBeta = scout ? childAlpha + 1 : this.beta;
+                // late moves are unlikely to be the best after ordering, so they are searched less deep first
+                boolean reduce = BRSNode.lateMoveReduction > 0 && BRSNode.enablePruning && BRSNode.enableSorting
+                        && i >= BRSNode.lateMoveReduction && remainingDepth >= LMR_MIN_DEPTH;
+
+                EncodedMove.doMove(state, move);
+                BRSNode childNode = searchChild(move, childAlpha, childBeta, reduce ? 1 : 0);
+                if (reduce) {
+                    boolean better = this.isMaxNode ? childNode.value > this.alpha : childNode.value < this.beta;
+                    Statistics.getStatistics().reduceState(better && !this.watchdog.isPancake());
+                    if (better && !this.watchdog.isPancake())
+                        childNode = searchChild(move, childAlpha, childBeta, 0);
+                }
+                if (scout && childNode.value > this.alpha && childNode.value < this.beta && !this.watchdog.isPancake()) {
+                    Statistics.getStatistics().researchState();
+                    childAlpha = this.alpha;
+                    childBeta = this.beta;
+                    childNode = searchChild(move, childAlpha, childBeta, 0);
+                }
+                EncodedMove.undoMove(state, move);
+
+                if (rated && childNode.windowSuccess && childNode.value > childAlpha && childNode.value < childBeta
+                        && !this.watchdog.isPancake())
+                    futilityMargins.addSample(remainingDepth, EncodedMove.getType(move), rating, childNode.value);
+
+                // the value of an interrupted child is incomplete, so the root must not use it
+                if (this.layer == 0 && this.watchdog.isPancake()) {
+                    if (!previousChoiceSearched) this.bestMove = EncodedMove.NO_MOVE;
                     break;
                 }
+                if (move == this.pvMove) previousChoiceSearched = true;
 
-                BRSNode childNode = new BRSNode(this.layer + 1, !isMaxNode, move.getType(), this.alpha, this.beta, this.watchdog);
-                move.doMove();
-                childNode.evaluateNode();
-                move.undoMove();
+                if (this.layer == 0) recordRootMove(move, childNode.value);
 
                 // update node value, bestMove, alpha and beta; break (prune) in case beta <= alpha
                 if (this.isMaxNode) {
@@ -288,12 +545,14 @@ class BRSNode {
                         this.value = childNode.value;
                         this.bestMove = move;
                         this.windowSuccess = true;
+                        updatePv(move, true);
 
                         if (this.value > this.alpha) {
                             this.alpha = this.value;
                         }
 
                         if (BRSNode.enablePruning && this.beta <= this.alpha) {
+                            if (BRSNode.enableHistory) moveHistory.addCutoff(this.layer, move, remainingDepth);
                             break;
                         }
                     }
@@ -302,12 +561,14 @@ class BRSNode {
                         this.value = childNode.value;
                         this.bestMove = move;
                         this.windowSuccess = true;
+                        updatePv(move, true);
 
                         if (this.value < this.beta) {
                             this.beta = this.value;
                         }
 
                         if (BRSNode.enablePruning && this.beta <= this.alpha) {
+                            if (BRSNode.enableHistory) moveHistory.addCutoff(this.layer, move, remainingDepth);
                             break;
                         }
                     }
@@ -316,41 +577,69 @@ class BRSNode {
 
         } else {
             BRSNode.reachedDepth = Integer.max(BRSNode.reachedDepth, this.layer + 1);
+            // leaves are not rated before evaluating them, but cutoffs of siblings are known
+            if (BRSNode.enableSorting && BRSNode.enableHistory) rateByHistory(legalMoves);
+            moveToFront(legalMoves, hashMove);
+
+            for (int i = 0; i < legalMoves.size(); i++) {
+                int move = legalMoves.get(i);
+
+                // moves that cannot change the value of this node or that cause a cutoff do not need to be evaluated
+                // exactly, only the root keeps exact values to order the moves of the next iteration
+                int lowerLimit = Heuristics.LOSS;
+                int upperLimit = Heuristics.WIN;
+                if (this.layer > 0 && BRSNode.enablePruning) {
+                    lowerLimit = this.isMaxNode ? Math.max(this.alpha, this.value) : this.alpha;
+                    upperLimit = this.isMaxNode ? this.beta : Math.min(this.beta, this.value);
+                } else if (this.layer > 0) {
+                    lowerLimit = this.isMaxNode ? this.value : Heuristics.LOSS;
+                    upperLimit = this.isMaxNode ? Heuristics.WIN : this.value;
+                }
 
-            for (BuildMove move : legalMoves) {
+                boolean rated = isFutilityApplicable(remainingDepth);
+                int rating = rated ? deltaEvaluator.evaluate(state, move) : 0;
+                if (rated && pruneFutileMove(move, rating, remainingDepth)) continue;
 
                 Statistics.getStatistics().enterMeasuredState(this.layer);
-                move.doMove();
-                move.setValue(evaluateCurrentState(move.getType()));
-                move.undoMove();
+                EncodedMove.doMove(state, move);
+                int moveValue = evaluateCurrentState(EncodedMove.getType(move), lowerLimit, upperLimit);
+                EncodedMove.undoMove(state, move);
 
-                if (this.layer == 0) stateValues.add(move.getValue());
+                // only exact values tell how far the rating can be off
+                if (rated && moveValue > lowerLimit && moveValue < upperLimit)
+                    futilityMargins.addSample(remainingDepth, EncodedMove.getType(move), rating, moveValue);
+
+                if (this.layer == 0) recordRootMove(move, moveValue);
 
                 // update node value, bestMove, alpha and beta; break (prune) in case beta <= alpha
                 if (this.isMaxNode) {
-                    if (move.getValue() > this.value) {
-                        this.value = move.getValue();
+                    if (moveValue > this.value) {
+                        this.value = moveValue;
                         this.bestMove = move;
                         this.windowSuccess = true;
+                        updatePv(move, false);
 
                         if (this.value > alpha) {
                             this.alpha = this.value;
                         }
                         if (BRSNode.enablePruning && this.beta <= this.alpha) {
+                            if (BRSNode.enableHistory) moveHistory.addCutoff(this.layer, move, remainingDepth);
                             Statistics.getStatistics().leaveMeasuredState();
                             break;
                         }
                     }
                 } else {
-                    if (move.getValue() < this.value) {
-                        this.value = move.getValue();
+                    if (moveValue < this.value) {
+                        this.value = moveValue;
                         this.bestMove = move;
                         this.windowSuccess = true;
+                        updatePv(move, false);
 
                         if (this.value < beta) {
                             this.beta = this.value;
                         }
                         if (BRSNode.enablePruning && this.beta <= this.alpha) {
+                            if (BRSNode.enableHistory) moveHistory.addCutoff(this.layer, move, remainingDepth);
                             Statistics.getStatistics().leaveMeasuredState();
                             break;
                         }
@@ -365,9 +654,64 @@ class BRSNode {
             }
         }
 
-        // Store the layer 1 node values for aspiration window size
-        if (this.layer == 1 && this.windowSuccess) {
-            stateValues.add(this.value);
+        // the next iteration starts with the results of this one, if it completed
+        if (this.layer == 0 && !this.watchdog.isPancake()) {
+            BRSNode.previousRootHash = hash;
+            BRSNode.previousPv = this.bestMove == EncodedMove.NO_MOVE ? new int[0]
+                    : Arrays.copyOf(BRSNode.pvTable[0], BRSNode.pvLengths[0]);
+            // after a cutoff, only the moves before it were recorded and their values are only bounds
+            if (this.value > alphaOrig && this.value < betaOrig) {
+                MoveBuffer recorded = BRSNode.previousRootMoves;
+                BRSNode.previousRootMoves = BRSNode.rootMoves;
+                BRSNode.rootMoves = recorded;
+            }
+        }
+
+        // incomplete results must not be reused
+        if (this.windowSuccess && !this.watchdog.isPancake()) {
+            int bound = TranspositionTable.EXACT;
+            if (BRSNode.enablePruning && this.value >= betaOrig) bound = TranspositionTable.LOWER_BOUND;
+            else if (BRSNode.enablePruning && this.value <= alphaOrig) bound = TranspositionTable.UPPER_BOUND;
+            transpositionTable.store(hash, remainingDepth, bound, this.value, this.bestMove);
+        }
+    }
+
+    /**
+     * Returns the hash of this node for the {@link TranspositionTable}.
+     *
+     * @return the hash of the node
+     */
+    private long getHash() {
+        long hash = state.getMap().getHash();
+        if (!this.isMaxNode) hash ^= MIN_NODE_KEY;
+        if (this.type == Move.Type.OVERRIDE) hash ^= OVERRIDE_KEY;
+        return hash;
+    }
+
+    /**
+     * Checks whether the value stored in the given slot of the {@link TranspositionTable} can be used instead of
+     * evaluating this node.
+     * <p>
+     * This is the case if the node was searched at least as deep as required and the value is either exact or a
+     * bound that lies outside of the alpha-beta window of this node.
+     *
+     * @param slot           the slot of the entry of this node
+     * @param remainingDepth the number of layers below this node that have to be searched
+     * @return {@code true} if the stored value can be used, {@code false} otherwise
+     */
+    private boolean isTableCutoff(int slot, int remainingDepth) {
+        if (!transpositionTable.isCurrent(slot) || transpositionTable.getDepth(slot) < remainingDepth) return false;
+
+        int storedValue = transpositionTable.getValue(slot);
+        switch (transpositionTable.getBound(slot)) {
+            case TranspositionTable.EXACT:
+                return true;
+            case TranspositionTable.LOWER_BOUND:
+                return storedValue >= this.beta;
+            case TranspositionTable.UPPER_BOUND:
+                return storedValue <= this.alpha;
+            default:
+                return false;
         }
     }
 
@@ -377,230 +721,402 @@ class BRSNode {
      * This method returns a move for the max or min player, depending on the {@code isMaxNode} flag.
      * If no move is possible for one of them, the flag is switched and moves are returned from the other player.
      * <p>
-     * Returns an empty set if no moves can be done by any player.
+     * The moves are stored in the {@link MoveBuffer} of the layer of this node. The buffer is empty if no moves can
+     * be done by any player.
      *
-     * @return a set containing valid moves, empty when no valid moves are possible for neither of the players
+     * @return a buffer containing valid moves, empty when no valid moves are possible for neither of the players
      */
-    private Set<? extends BuildMove> getLegalMoves() {
-        // saves legal moves temporary storage
-        Set<? extends BuildMove> legalMoves;
+    private MoveBuffer getLegalMoves() {
+        MoveBuffer legalMoves = moveBuffers[this.layer];
+        legalMoves.clear();
+
         if (isMaxNode) {
-            legalMoves = getMaxMoves();
+            getMaxMoves(legalMoves);
             if (legalMoves.isEmpty()) {
                 this.isMaxNode = false;
-                legalMoves = getMinMoves();
+                getMinMoves(legalMoves);
             }
         } else {
-            legalMoves = getMinMoves();
+            getMinMoves(legalMoves);
             if (legalMoves.isEmpty()) {
                 this.isMaxNode = true;
-                legalMoves = getMaxMoves();
+                getMaxMoves(legalMoves);
             }
         }
 
-        // return empty immutable set if no build moves are possible => first phase ends
-        if (legalMoves.isEmpty())
-            return Collections.emptySet();
         return legalMoves;
     }
 
     /**
-     * Evaluates and orders the given set of legal moves.
-     * <p>
-     * Moves are ordered in descending order for max nodes and in ascending order for min nodes.
-     * <p>
-     * This method does <i>time panics</i> if time is running out.
+     * Orders the moves of the root by their values in the previous search from the same position, instead of
+     * evaluating them again. Moves that were not searched before are ordered behind the others, then the beam search
+     * is applied.
      *
-     * @param legalMoves a set of legal moves to evaluate and order
-     * @return an ordered {@link List} of legal moves
-     */
-    private List<BuildMove> getOrderedMoves(Set<? extends BuildMove> legalMoves) {
-        List<BuildMove> orderedMoves = new ArrayList<>(legalMoves);
-        // rate every move
-        for (BuildMove move : orderedMoves) {
-            move.doMove();
-            move.setValue(evaluateCurrentState(move.getType()));
-            move.undoMove();
-            if (watchdog.isPancake()) break;
+     * @param legalMoves a buffer of legal moves to order
+     * @param hashMove   the best move found when the node was searched before, or {@link EncodedMove#NO_MOVE}
+     */
+    private void reuseRootMoves(MoveBuffer legalMoves, int hashMove) {
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int value = this.isMaxNode ? Heuristics.LOSS : Heuristics.WIN;
+            for (int j = 0; j < previousRootMoves.size(); j++) {
+                if (previousRootMoves.get(j) == legalMoves.get(i)) {
+                    value = previousRootMoves.getValue(j);
+                    break;
+                }
+            }
+            legalMoves.setValue(i, value);
         }
+        legalMoves.sortByValue(isMaxNode);
+        moveToFront(legalMoves, hashMove);
+        if (BRSNode.branchingFactor > 0) legalMoves.truncate(branchingFactor);
+    }
 
-        // order moves by value
-        if (isMaxNode)
-            orderedMoves.sort(Comparator.comparing(Move::getValue).reversed());
-        else orderedMoves.sort(Comparator.comparing(Move::getValue));
+    /**
+     * Moves the best moves known from previous searches to the front of the given buffer: the move of the principal
+     * variation first, then the move stored in the {@link TranspositionTable}.
+     *
+     * @param legalMoves a buffer of legal moves
+     * @param hashMove   the best move found when the node was searched before, or {@link EncodedMove#NO_MOVE}
+     */
+    private void moveToFront(MoveBuffer legalMoves, int hashMove) {
+        legalMoves.moveToFront(hashMove);
+        if (this.pvMove != hashMove) legalMoves.moveToFront(this.pvMove);
+    }
 
-        return orderedMoves;
+    /**
+     * Evaluates this node again, {@link #IID_REDUCTION} layers less deep and with the given window.
+     *
+     * @param alpha the alpha value of the shallow search
+     * @param beta  the beta value of the shallow search
+     * @return the evaluated node of the shallow search
+     */
+    private BRSNode searchShallow(int alpha, int beta) {
+        BRSNode shallowNode = new BRSNode(this.layer, this.isMaxNode, this.type, alpha, beta,
+                this.depthLimit - IID_REDUCTION, this.watchdog);
+        shallowNode.evaluateNode();
+        return shallowNode;
     }
 
     /**
-     * Evaluates the given moves and executes a beam search on them.
-     * <p>
-     * This method only returns the {@code k} best moves and discards all other, where {@code k} is the branching factor.
-     * <p>
-     * This method does <i>time panics</i> if time is running out.
+     * Checks whether this node should search for a first move with reduced depth. This is the case for nodes above
+     * the leaves that neither have a move from the {@link TranspositionTable} nor from the principal variation of the
+     * previous search, if moves are not sorted otherwise. The root always has moves ordered by the previous iteration.
      *
-     * @param legalMoves a set of legal moves to evaluate and order
-     * @return an ordered {@link List} of legal moves
+     * @param remainingDepth the number of layers searched below this node
+     * @param hashMove       the best move found when the node was searched before, or {@link EncodedMove#NO_MOVE}
+     * @return {@code true} if a reduced search should be done first
      */
-    private List<BuildMove> getBeamMoves(Set<? extends BuildMove> legalMoves) {
+    private boolean isIidApplicable(int remainingDepth, int hashMove) {
+        return BRSNode.enableIid && BRSNode.enablePruning && !BRSNode.enableSorting && this.layer > 0
+                && remainingDepth > IID_REDUCTION
+                && hashMove == EncodedMove.NO_MOVE && this.pvMove == EncodedMove.NO_MOVE;
+    }
 
-        // beamWidth is usually just the branching factor unless very few legal moves were found
-        int beamWidth = Math.min(branchingFactor, legalMoves.size());
+    /**
+     * Checks whether moves of this node are candidates for futility pruning. The root is always searched completely.
+     *
+     * @param remainingDepth the number of layers searched below this node
+     * @return {@code true} if the moves should be rated before searching them
+     */
+    private boolean isFutilityApplicable(int remainingDepth) {
+        return BRSNode.enableFutility && BRSNode.enablePruning && this.layer > 0
+                && remainingDepth <= FutilityMargins.MAX_DEPTH;
+    }
 
-        //  orders the best legal moves into a list (beam)
-        if (isMaxNode) {
-            // me
-            BuildMove[] beam = new BuildMove[beamWidth];
-            double[] values = new double[beamWidth];
-            Arrays.fill(values, -Double.MAX_VALUE);
-
-            // check if tile belongs to the n best moves (until now)
-            // doing some kind of insertion sort
-            for (BuildMove move : legalMoves) {
-                move.doMove();
-                double eval = evaluateCurrentState(move.getType());
-                move.undoMove();
-
-                // find position to insert into
-                int pos = beamWidth - 1;
-                while (pos >= 0 && eval > values[pos]) pos--;
-
-                // move all other elements one down, discard the last
-                for (int i = beamWidth - 2; i > pos; i--) {
-                    values[i + 1] = values[i];
-                    beam[i + 1] = beam[i];
-                }
+    /**
+     * Skips the given move if its value is not expected to reach the alpha-beta window of this node, judging by its
+     * rating and the {@link FutilityMargins}. The margins are estimates, so the skipped move may have been the best.
+     * <p>
+     * The value of this node is moved to the estimated bound of the value of the skipped move, so a fail low or fail
+     * high is still reported.
+     *
+     * @param move           the move encoded by {@link EncodedMove}
+     * @param rating         the rating of the move by the {@link DeltaEvaluator}
+     * @param remainingDepth the number of layers searched below this node
+     * @return {@code true} if the move was skipped
+     */
+    private boolean pruneFutileMove(int move, int rating, int remainingDepth) {
+        Move.Type type = EncodedMove.getType(move);
+        if (this.isMaxNode) {
+            int bound = futilityMargins.getUpperBound(remainingDepth, type, rating);
+            if (bound > this.alpha) return false;
+            if (bound > this.value) {
+                this.value = bound;
+                this.windowSuccess = true;
+            }
+        } else {
+            int bound = futilityMargins.getLowerBound(remainingDepth, type, rating);
+            if (bound < this.beta) return false;
+            if (bound < this.value) {
+                this.value = bound;
+                this.windowSuccess = true;
+            }
+        }
+        Statistics.getStatistics().pruneFutileMove();
+        return true;
+    }
 
-                // insert the new move, if applicable
-                if (pos + 1 < beamWidth) {
-                    values[pos + 1] = eval;
-                    beam[pos + 1] = move;
-                }
+    /**
+     * Evaluates the child node reached by the given move. The move has to be done on the {@link GameState} already.
+     *
+     * @param move      the move encoded by {@link EncodedMove}
+     * @param alpha     the alpha value of the child node
+     * @param beta      the beta value of the child node
+     * @param reduction the number of layers the child node is searched less deep
+     * @return the evaluated child node
+     */
+    private BRSNode searchChild(int move, int alpha, int beta, int reduction) {
+        BRSNode childNode = new BRSNode(this.layer + 1, !isMaxNode, EncodedMove.getType(move), alpha, beta,
+                this.depthLimit - reduction, this.watchdog);
+        childNode.onPv = move == this.pvMove;
+        childNode.evaluateNode();
+        return childNode;
+    }
 
-                move.setValue(eval);
+    /**
+     * Makes the given move the start of the principal variation of this node.
+     *
+     * @param move     the best move of this node so far
+     * @param hasChild {@code true} if the line of the child node reached by the move continues the variation
+     */
+    private void updatePv(int move, boolean hasChild) {
+        int[] line = BRSNode.pvTable[this.layer];
+        line[this.layer] = move;
+        if (hasChild) {
+            int childLength = BRSNode.pvLengths[this.layer + 1];
+            System.arraycopy(BRSNode.pvTable[this.layer + 1], this.layer + 1, line, this.layer + 1, childLength - this.layer - 1);
+            BRSNode.pvLengths[this.layer] = childLength;
+        } else {
+            BRSNode.pvLengths[this.layer] = this.layer + 1;
+        }
+    }
 
-                if (this.watchdog.isPancake()) break;
-            }
+    /**
+     * Records the value of a move of the root, so the next search from the same position can order the moves by it.
+     *
+     * @param move  the move done at the root
+     * @param value the value of the child node
+     */
+    private static void recordRootMove(int move, int value) {
+        BRSNode.rootMoves.add(move);
+        BRSNode.rootMoves.setValue(BRSNode.rootMoves.size() - 1, value);
+    }
 
-            return Arrays.asList(beam);
+    /**
+     * Evaluates and orders the given legal moves in place.
+     * <p>
+     * Moves are ordered in descending order for max nodes and in ascending order for min nodes.
+     * Moves with equal values keep their order. If there are many moves, they are ordered by the estimate of the
+     * {@link DeltaEvaluator} instead of a full evaluation. If the move history is enabled, the moves are ordered by
+     * the {@link MoveHistory} instead, which does not evaluate them at all.
+     * <p>
+     * This method does <i>time panics</i> if time is running out. The moves that have not been evaluated yet are
+     * discarded in this case.
+     * <p>
+     * The best move stored in the {@link TranspositionTable} is always put first.
+     *
+     * @param legalMoves a buffer of legal moves to evaluate and order
+     * @param hashMove   the best move found when the node was searched before, or {@link EncodedMove#NO_MOVE}
+     */
+    private void orderMoves(MoveBuffer legalMoves, int hashMove) {
+        if (BRSNode.enableHistory) {
+            rateByHistory(legalMoves);
+            moveToFront(legalMoves, hashMove);
+            return;
+        }
 
-        } else {
-            // "all" other players (since we're doing BRS)
-            BuildMove[] worstMoves = new BuildMove[beamWidth];
-            double[] values = new double[beamWidth];
-            Arrays.fill(values, Double.MAX_VALUE);
-
-            // check if tile belongs to the n best moves (until now)
-            // doing some kind of insertion sort
-            for (BuildMove move : legalMoves) {
-                move.doMove();
-                double eval = evaluateCurrentState(move.getType());
-                move.undoMove();
-
-                // find position to insert into
-                int pos = beamWidth - 1;
-                while (pos >= 0 && eval < values[pos]) pos--;
-
-                // move all other elements one down, discard the last
-                for (int i = beamWidth - 2; i > pos; i--) {
-                    values[i + 1] = values[i];
-                    worstMoves[i + 1] = worstMoves[i];
-                }
+        rateMoves(legalMoves, legalMoves.size() > DELTA_ORDERING_MOVES);
 
-                // insert the new move, if applicable
-                if (pos + 1 < beamWidth) {
-                    values[pos + 1] = eval;
-                    worstMoves[pos + 1] = move;
-                }
+        // order moves by value
+        legalMoves.sortByValue(isMaxNode);
+        moveToFront(legalMoves, hashMove);
+    }
 
-                move.setValue(eval);
+    /**
+     * Evaluates the given moves and executes a beam search on them.
+     * <p>
+     * This method only keeps the {@code k} best moves and discards all other, where {@code k} is the branching factor.
+     * If there are many moves, candidates are preselected by the estimate of the {@link DeltaEvaluator} first, so
+     * only those have to be evaluated fully. If the move history is enabled, it decides between moves of equal value.
+     * <p>
+     * This method does <i>time panics</i> if time is running out.
+     *
+     * @param legalMoves a buffer of legal moves to evaluate and order
+     * @param hashMove   the best move found when the node was searched before, or {@link EncodedMove#NO_MOVE}
+     */
+    private void selectBeamMoves(MoveBuffer legalMoves, int hashMove) {
+        // the sort is stable, so moves with equal ratings stay ordered by the history
+        if (BRSNode.enableHistory) rateByHistory(legalMoves);
+
+        int candidateCount = BEAM_CANDIDATE_FACTOR * branchingFactor;
+        if (legalMoves.size() > candidateCount) {
+            rateMoves(legalMoves, true);
+            legalMoves.sortByValue(isMaxNode);
+            moveToFront(legalMoves, hashMove);
+            legalMoves.truncate(candidateCount);
+        }
 
-                if (this.watchdog.isPancake()) break;
-            }
+        rateMoves(legalMoves, false);
+        legalMoves.sortByValue(isMaxNode);
+        moveToFront(legalMoves, hashMove);
 
-            return Arrays.asList(worstMoves);
+        // beamWidth is usually just the branching factor unless very few legal moves were found
+        legalMoves.truncate(branchingFactor);
+    }
 
+    /**
+     * Rates the given legal moves and stores the ratings as the values of the moves.
+     * <p>
+     * This method does <i>time panics</i> if time is running out. The moves that have not been rated yet are
+     * discarded in this case.
+     *
+     * @param legalMoves a buffer of legal moves to rate
+     * @param estimate   {@code true} to rate the moves by the {@link DeltaEvaluator}, {@code false} to execute and
+     *                   evaluate each of them
+     */
+    private void rateMoves(MoveBuffer legalMoves, boolean estimate) {
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int move = legalMoves.get(i);
+            if (estimate) {
+                legalMoves.setValue(i, deltaEvaluator.evaluate(state, move));
+            } else {
+                EncodedMove.doMove(state, move);
+                legalMoves.setValue(i, evaluateCurrentState(EncodedMove.getType(move)));
+                EncodedMove.undoMove(state, move);
+            }
+            if (watchdog.isPancake()) {
+                legalMoves.truncate(i + 1);
+                break;
+            }
         }
+    }
 
+    /**
+     * Orders the given moves by the killer moves of this layer and the history scores, starting with the best move
+     * for the player in turn. This does not evaluate any of the moves.
+     *
+     * @param legalMoves a buffer of legal moves to order
+     */
+    private void rateByHistory(MoveBuffer legalMoves) {
+        for (int i = 0; i < legalMoves.size(); i++) {
+            legalMoves.setValue(i, moveHistory.rate(this.layer, legalMoves.get(i)));
+        }
+        legalMoves.sortByValue(true);
     }
 
     /**
-     * Returns all legal {@link BuildMove}s the max player can do.
+     * Appends all legal {@link BuildMove}s the max player can do to the given {@link MoveBuffer}.
      *
-     * @return a {@link Set} of {@link BuildMove}s the max player can do
+     * @param legalMoves the buffer to append the moves to
      */
-    private Set<? extends BuildMove> getMaxMoves() {
-        // Assign either regular moves or override moves to legalMoves since we are considering either one or the other
-        Set<? extends BuildMove> legalMoves;
-        legalMoves = LegalMoves.getLegalRegularMoves(state, state.getMe());
+    private void getMaxMoves(MoveBuffer legalMoves) {
+        // Add either regular moves or override moves since we are considering either one or the other
+        LegalMoves.getLegalRegularMoves(state, state.getMe(), legalMoves);
 
         if (legalMoves.isEmpty()) // regular moves are preferred, only if the search turns up empty do we consider override moves
-            legalMoves = LegalMoves.getLegalOverrideMoves(state, state.getMe());
-
-        return legalMoves;
+            LegalMoves.getLegalOverrideMoves(state, state.getMe(), legalMoves);
     }
 
     /**
-     * Returns all legal {@link BuildMove}s any min player can do.
+     * Appends all legal {@link BuildMove}s any min player can do to the given {@link MoveBuffer}.
      *
-     * @return a {@link Set} of {@link BuildMove}s the min players can do
+     * @param legalMoves the buffer to append the moves to
      */
-    private Set<? extends BuildMove> getMinMoves() {
-        Set<RegularMove> legalRegularMoves;
-        Set<OverrideMove> legalOverrideMoves;
-
-        legalRegularMoves = new HashSet<>();
-        legalOverrideMoves = new HashSet<>();
-        for (int i = 1; i <= state.getTotalPlayerCount(); i++) {
-            // Add all regular moves of other players to storage (definition of BRS)
-            if (i == state.getMe()) continue;
-            legalRegularMoves.addAll(LegalMoves.getLegalRegularMoves(state, i));
+    private void getMinMoves(MoveBuffer legalMoves) {
+        // Add all regular moves of other players to storage (definition of BRS)
+        LegalMoves.getLegalRegularMoves(state, opponents, legalMoves, null);
 
-        }
-        if (legalRegularMoves.isEmpty()) {
+        if (legalMoves.isEmpty()) {
             // If no regular moves exist, add all override moves of other players to storage instead
-            for (int i = 1; i <= state.getTotalPlayerCount(); i++) {
-                if (i == state.getMe()) continue;
-                legalOverrideMoves.addAll(LegalMoves.getLegalOverrideMoves(state, i));
+            for (int opponent : opponents) {
+                LegalMoves.getLegalOverrideMoves(state, opponent, legalMoves);
             }
         }
-
-        // Return either regular moves or override moves since we are considering either one or the other
-        if (!legalRegularMoves.isEmpty()) return legalRegularMoves;
-        else if (!legalOverrideMoves.isEmpty()) return legalOverrideMoves;
-        else return Collections.emptySet();
     }
 
     /**
      * Evaluates the current {@link GameState}.
      * <p>
-     * The heuristic to use is determined by the {@link Move.Type} of the move that lead to this state.
+     * See {@link #evaluateCurrentState(Move.Type, int, int)}.
      *
      * @param type the {@code Type} of the last executed move
      * @return the evaluation value of the current {@code GameState}
+     */
+    int evaluateCurrentState(Move.Type type) {
+        return evaluateCurrentState(type, Heuristics.LOSS, Heuristics.WIN);
+    }
+
+    /**
+     * Evaluates the current {@link GameState}, if its value lies between the given limits.
+     * <p>
+     * The heuristic to use is determined by the {@link Move.Type} of the move that lead to this state.
+     * <p>
+     * The terms of the heuristic that take constant time are computed first. Stability and mobility are only
+     * computed, if the value can still lie between the limits given the bounds of the terms not computed yet.
+     * Otherwise, a bound is returned that lies outside of the limits as well.
+     *
+     * @param type       the {@code Type} of the last executed move
+     * @param lowerLimit values lower than or equal to this do not have to be exact
+     * @param upperLimit values greater than or equal to this do not have to be exact
+     * @return the evaluation value of the current {@code GameState}, or a bound of it outside of the limits
      * @throws IllegalStateException when called with a move type, that is not {@link Move.Type#REGULAR} or {@link Move.Type#OVERRIDE}
      */
-    private double evaluateCurrentState(Move.Type type) {
+    int evaluateCurrentState(Move.Type type, int lowerLimit, int upperLimit) {
         if (type == Move.Type.REGULAR) {
             int playerId = Heuristics.inversionSwap(state, state.getMe());
             //int playerId = state.getMe();
             //stabilityScalar = Heuristics.stabilityWeight(state, playerId);
             //mobilityScalar = Heuristics.mobilityWeight(state, state.getMe());
-            stoneCountScalar = Heuristics.stoneCountWeight(state, playerId);
-            overrideBonusScalar = Heuristics.bonusOverrideWeight(state, playerId);
-
-            return stabilityScalar * StabilityHeuristic.stability(state, playerId)
-                    + mobilityScalar * Heuristics.mobility(state, state.getMe())
-                    //+ overrideStabilityScalar * Heuristics.overrideStability(state, playerId)
-                    + stoneCountScalar * Heuristics.relativeStoneCount(state, playerId)
-                    + lineClusteringScalar * Heuristics.lineClustering(state, playerId)
-                    + BOMB_BONUS_SCALAR * Heuristics.bonusBomb(state, state.getMe())
-                    + overrideBonusScalar * Heuristics.bonusOverride(state, state.getMe());
+
+            double stoneCount = getStoneCountScalar() * Heuristics.relativeStoneCount(state, playerId);
+            double bombBonus = BOMB_BONUS_SCALAR * Heuristics.bonusBomb(state, state.getMe());
+            double overrideBonus = overrideBonusScalar * Heuristics.bonusOverride(state, state.getMe());
+            // the pattern heuristics covers both stability and line clustering
+            double lineClustering = 0;
+            double patterns = 0;
+            if (enablePatterns) patterns = patternScalar * Heuristics.patterns(state, playerId);
+            else lineClustering = lineClusteringScalar * Heuristics.lineClustering(state, playerId);
+            double known = stoneCount + lineClustering + bombBonus + overrideBonus + patterns;
+
+            double stabilityRange = 0;
+            if (!enablePatterns) stabilityRange = stabilityScalar * StabilityHeuristic.maxStability(state, playerId);
+            double mobilityRange = mobilityScalar * Heuristics.maxMobility(state);
+            int low = Heuristics.toScore(known + Math.min(0, stabilityRange) + Math.min(0, mobilityRange));
+            int high = Heuristics.toScore(known + Math.max(0, stabilityRange) + Math.max(0, mobilityRange));
+            if (high <= lowerLimit || low >= upperLimit) {
+                Statistics.getStatistics().skipEvaluation();
+                return high <= lowerLimit ? high : low;
+            }
+
+            double stability = 0;
+            if (!enablePatterns) stability = stabilityScalar * StabilityHeuristic.stability(state, playerId);
+            low = Heuristics.toScore(known + stability + Math.min(0, mobilityRange));
+            high = Heuristics.toScore(known + stability + Math.max(0, mobilityRange));
+            if (high <= lowerLimit || low >= upperLimit) {
+                Statistics.getStatistics().skipEvaluation();
+                return high <= lowerLimit ? high : low;
+            }
+
+            double mobility = mobilityScalar * Heuristics.mobility(state, state.getMe());
+            //+ overrideStabilityScalar * Heuristics.overrideStability(state, playerId)
+            return Heuristics.toScore(stability + mobility + stoneCount + lineClustering + bombBonus + overrideBonus
+                    + patterns);
         } else if (type == Move.Type.OVERRIDE) {
             int playerId = Heuristics.inversionSwap(state, state.getMe());
-            return Heuristics.relativeStoneCount(state, playerId);
+            return Heuristics.toScore(Heuristics.relativeStoneCount(state, playerId));
         }
 
         throw new IllegalStateException("Cannot evaluate bomb heuristic in brs tree. I shouldn't be here...");
     }
+
+    /**
+     * Returns the weight of the stone count heuristics in the current {@link GameState}.
+     *
+     * @return the weight of the stone count heuristics
+     */
+    private double getStoneCountScalar() {
+        int occupied = state.getMap().getOccupiedTileCount() - rootOccupiedTileCount;
+        if (occupied >= 0 && occupied < stoneCountScalars.length) return stoneCountScalars[occupied];
+        return Heuristics.stoneCountWeight(state, state.getMe());
+    }
 }
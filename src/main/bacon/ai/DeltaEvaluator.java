@@ -0,0 +1,215 @@
+package bacon.ai;
+
+import bacon.Direction;
+import bacon.GameState;
+import bacon.Map;
+import bacon.Player;
+import bacon.Tile;
+import bacon.ai.heuristics.Heuristics;
+import bacon.move.BonusRequest;
+import bacon.move.EncodedMove;
+import bacon.move.Move;
+
+import java.util.Arrays;
+
+/**
+ * Rates moves without executing them on the {@link Map}.
+ * <p>
+ * Rating a move by doing it, evaluating the resulting state and undoing it again is expensive, as the evaluation
+ * generates all moves for the mobility heuristics. The {@code DeltaEvaluator} instead collects the stones a move would
+ * overturn and derives the terms of the evaluation that depend on them directly: the stone counts, the line
+ * clustering and the bonus inventory. Inversion and choice {@link Tile}s are taken into account.
+ * <p>
+ * Stability and mobility are left out, so the rating is an estimate of the value of the resulting state. It is meant
+ * for ordering and preselecting moves, not for evaluating leaves.
+ */
+class DeltaEvaluator {
+
+    private final double lineClusteringScalar;
+    private final double bombBonusScalar;
+
+    /**
+     * Indices of the {@link Tile}s that change their owner.
+     */
+    private int[] changedTiles = new int[0];
+    /**
+     * Physical ids of the previous owners of the changed {@link Tile}s.
+     */
+    private int[] previousOwners = new int[0];
+    private int changedCount;
+    /**
+     * Marks the {@link Tile}s that have already been collected. A {@code Tile} is marked, if its element is equal to
+     * {@link #stamp}.
+     */
+    private int[] stamps = new int[0];
+    private int stamp;
+
+    /**
+     * The stone counts after the move, indexed by the physical player id.
+     */
+    private final int[] physicalStoneCounts = new int[Map.MAX_PLAYER_COUNT + 1];
+    /**
+     * The stone counts after the move, indexed by the player id.
+     */
+    private final int[] stoneCounts = new int[Map.MAX_PLAYER_COUNT + 1];
+    /**
+     * The physical player ids after the move, indexed by the player id.
+     */
+    private final int[] physicalIds = new int[Map.MAX_PLAYER_COUNT + 1];
+
+    /**
+     * Creates a new {@code DeltaEvaluator} with the given weights.
+     *
+     * @param lineClusteringScalar the weight of the line clustering heuristics
+     * @param bombBonusScalar      the weight of the bomb bonus heuristics
+     */
+    DeltaEvaluator(double lineClusteringScalar, double bombBonusScalar) {
+        this.lineClusteringScalar = lineClusteringScalar;
+        this.bombBonusScalar = bombBonusScalar;
+    }
+
+    /**
+     * Rates the given move in the given {@link GameState} without executing it.
+     * <p>
+     * The rating of a regular move consists of the stone count, line clustering and bonus heuristics, the rating of
+     * an override move consists of the stone count heuristics only.
+     *
+     * @param state the {@code GameState} the move is legal in
+     * @param move  the move encoded by {@link EncodedMove}
+     * @return the rating of the move as a score, where higher is better for the max player
+     */
+    int evaluate(GameState state, int move) {
+        Map map = state.getMap();
+        int tile = EncodedMove.getTileIndex(move);
+        int playerId = EncodedMove.getPlayerId(move);
+        int playerCount = state.getTotalPlayerCount();
+        boolean regular = EncodedMove.getType(move) == Move.Type.REGULAR;
+        Tile.Property property = map.getProperty(tile);
+        int mover = map.toPhysicalId(playerId);
+
+        collectChanges(map, tile, mover);
+
+        for (int physicalId = 1; physicalId <= playerCount; physicalId++) {
+            physicalStoneCounts[physicalId] = map.getStones(map.toPlayerId(physicalId)).size();
+        }
+        for (int i = 0; i < changedCount; i++) {
+            if (previousOwners[i] != Player.NULL_PLAYER_ID) physicalStoneCounts[previousOwners[i]]--;
+            physicalStoneCounts[mover]++;
+        }
+
+        // the stones are passed on after the move, see RegularMove
+        int inversionTileCount = map.getInversionTileCount();
+        int choiceTileCount = map.getChoiceTileCount();
+        for (int i = 1; i <= playerCount; i++) {
+            physicalIds[i] = map.toPhysicalId(i);
+        }
+        if (regular && property == Tile.Property.INVERSION) {
+            inversionTileCount--;
+            for (int i = 1; i <= playerCount; i++) {
+                physicalIds[i] = map.toPhysicalId(i == 1 ? playerCount : i - 1);
+            }
+        } else if (regular && property == Tile.Property.CHOICE) {
+            choiceTileCount--;
+            int partner = EncodedMove.getBonus(move);
+            physicalIds[playerId] = physicalIds[partner];
+            physicalIds[partner] = mover;
+        }
+        for (int i = 1; i <= playerCount; i++) {
+            stoneCounts[i] = physicalStoneCounts[physicalIds[i]];
+        }
+
+        int me = state.getMe();
+        int evaluated = Heuristics.inversionSwap(state, me, inversionTileCount, choiceTileCount);
+        double relativeStoneCount = Heuristics.relativeStoneCount(state, evaluated, stoneCounts, choiceTileCount);
+        if (!regular) return Heuristics.toScore(relativeStoneCount);
+
+        int clusteringSum = map.getLineClusteringSum(physicalIds[evaluated], changedTiles, previousOwners,
+                changedCount, mover);
+        double lineClustering = clusteringSum / (stoneCounts[evaluated] + 1);
+
+        int bombCount = state.getPlayerFromId(me).getBombCount();
+        int overrideStoneCount = state.getPlayerFromId(me).getOverrideStoneCount();
+        if (playerId == me && property == Tile.Property.BONUS) {
+            if (EncodedMove.getBonus(move) == BonusRequest.BOMB_BONUS_VALUE) bombCount++;
+            else overrideStoneCount++;
+        }
+
+        double stoneCountScalar = Heuristics.stoneCountWeight(state, evaluated, map.getOccupiedTileCount() + 1);
+        return Heuristics.toScore(stoneCountScalar * relativeStoneCount
+                + lineClusteringScalar * lineClustering
+                + bombBonusScalar * map.getAvgBombArea() * bombCount
+                + Heuristics.bonusOverrideWeight(state, evaluated) * map.getAvgTileLineLength() * overrideStoneCount);
+    }
+
+    /**
+     * Collects the {@link Tile}s that change their owner when a stone of the given physical player id is placed on
+     * the given {@code Tile}.
+     * <p>
+     * This walks the rays the same way {@link bacon.move.BuildMove} does, but does not change the {@link Map}.
+     *
+     * @param map    the {@code Map} to place the stone on
+     * @param origin the index of the {@code Tile} to place the stone on
+     * @param mover  the physical id of the player placing the stone
+     */
+    private void collectChanges(Map map, int origin, int mover) {
+        if (stamps.length < map.getTileCount()) {
+            stamps = new int[map.getTileCount()];
+            changedTiles = new int[map.getTileCount()];
+            previousOwners = new int[map.getTileCount()];
+            stamp = 0;
+        }
+        nextStamp();
+        changedCount = 0;
+        addChange(map, origin, mover);
+
+        for (int direction = 0; direction < Direction.DIRECTION_COUNT; direction++) {
+            int[] ray = map.getRay(origin, direction);
+            int pathLength = 0;     // number of stones to overturn in the given direction
+
+            for (int i = 0; i < ray.length; i++) {
+                int owner = map.getPhysicalOwnerId(ray[i]);
+                if (owner == Player.NULL_PLAYER_ID && map.getProperty(ray[i]) != Tile.Property.EXPANSION) {
+                    break;
+                } else if (owner == mover) {
+                    pathLength = i;
+                    break;
+                }
+            }
+
+            for (int i = 0; i < pathLength; i++) {
+                addChange(map, ray[i], mover);
+            }
+        }
+    }
+
+    /**
+     * Records that the given {@link Tile} is taken over by the given physical player id. Every {@code Tile} is only
+     * recorded once.
+     *
+     * @param map   the {@link Map} of the {@code Tile}
+     * @param index the index of the {@code Tile}
+     * @param mover the physical id of the new owner
+     */
+    private void addChange(Map map, int index, int mover) {
+        if (stamps[index] == stamp) return;
+        stamps[index] = stamp;
+
+        int owner = map.getPhysicalOwnerId(index);
+        if (owner == mover) return;
+        changedTiles[changedCount] = index;
+        previousOwners[changedCount] = owner;
+        changedCount++;
+    }
+
+    /**
+     * Invalidates the marks of all collected {@link Tile}s.
+     */
+    private void nextStamp() {
+        stamp++;
+        if (stamp == 0) {
+            // the stamps wrapped around, so old marks could become valid again
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+    }
+}
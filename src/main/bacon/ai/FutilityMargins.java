@@ -0,0 +1,102 @@
+package bacon.ai;
+
+import bacon.ai.heuristics.Heuristics;
+import bacon.move.Move;
+
+/**
+ * Learns how far the value of a move can differ from its rating by the {@link DeltaEvaluator}, so moves near the
+ * leaves can be skipped without doing them.
+ * <p>
+ * The rating of a move leaves out stability and mobility, and moves of the opponents below the node are not looked at
+ * at all. The largest differences between the rating and the searched value are recorded separately for each
+ * remaining depth, for increases and decreases of the value and for regular and override moves, as overriding stones
+ * swings the stone counts a lot more. A move whose rating plus {@link #SAFETY_FACTOR} times the largest increase seen
+ * so far cannot reach alpha is <i>futile</i> for the max player, and vice versa for the min player.
+ * <p>
+ * The differences depend on the {@link bacon.Map} and the phase of the game, so they are recorded over the whole game.
+ * They are estimates, not bounds: a move can always differ from its rating more than any move observed before. So
+ * futility pruning is a heuristic, that may skip the best move of a node and change the result of the search.
+ */
+class FutilityMargins {
+
+    /**
+     * Maximum number of layers below a node for futility pruning.
+     */
+    static final int MAX_DEPTH = 2;
+    /**
+     * Number of observed differences needed before moves are pruned.
+     */
+    private static final int MIN_SAMPLES = 64;
+    /**
+     * Factor the largest observed differences are scaled by, to leave room for differences that were not observed yet.
+     */
+    static final int SAFETY_FACTOR = 2;
+
+    /*
+    The number of observed differences and the largest increase and decrease of the value compared to the rating,
+    indexed by getIndex().
+     */
+    private final int[] sampleCounts = new int[MAX_DEPTH * 2];
+    private final int[] gains = new int[MAX_DEPTH * 2];
+    private final int[] losses = new int[MAX_DEPTH * 2];
+
+    /**
+     * Records the exact value of a move along with its rating.
+     *
+     * @param remainingDepth the number of layers that were searched below the node the move was done in
+     * @param type           the {@link Move.Type} of the move
+     * @param rating         the rating of the move by the {@link DeltaEvaluator}
+     * @param value          the exact value of the move
+     */
+    void addSample(int remainingDepth, Move.Type type, int rating, int value) {
+        if (remainingDepth < 1 || remainingDepth > MAX_DEPTH) return;
+
+        int index = getIndex(remainingDepth, type);
+        sampleCounts[index]++;
+        gains[index] = (int) Math.max(gains[index], (long) value - rating);
+        losses[index] = (int) Math.max(losses[index], (long) rating - value);
+    }
+
+    /**
+     * Returns an estimated upper bound of the value of a move with the given rating.
+     *
+     * @param remainingDepth the number of layers searched below the node the move is done in
+     * @param type           the {@link Move.Type} of the move
+     * @param rating         the rating of the move by the {@link DeltaEvaluator}
+     * @return the highest value the move is expected to have, or {@link Heuristics#WIN} if not enough differences
+     * were observed
+     */
+    int getUpperBound(int remainingDepth, Move.Type type, int rating) {
+        if (remainingDepth < 1 || remainingDepth > MAX_DEPTH) return Heuristics.WIN;
+        int index = getIndex(remainingDepth, type);
+        if (sampleCounts[index] < MIN_SAMPLES) return Heuristics.WIN;
+        return (int) Math.min(Heuristics.WIN, (long) rating + (long) SAFETY_FACTOR * gains[index]);
+    }
+
+    /**
+     * Returns an estimated lower bound of the value of a move with the given rating.
+     *
+     * @param remainingDepth the number of layers searched below the node the move is done in
+     * @param type           the {@link Move.Type} of the move
+     * @param rating         the rating of the move by the {@link DeltaEvaluator}
+     * @return the lowest value the move is expected to have, or {@link Heuristics#LOSS} if not enough differences
+     * were observed
+     */
+    int getLowerBound(int remainingDepth, Move.Type type, int rating) {
+        if (remainingDepth < 1 || remainingDepth > MAX_DEPTH) return Heuristics.LOSS;
+        int index = getIndex(remainingDepth, type);
+        if (sampleCounts[index] < MIN_SAMPLES) return Heuristics.LOSS;
+        return (int) Math.max(Heuristics.LOSS, (long) rating - (long) SAFETY_FACTOR * losses[index]);
+    }
+
+    /**
+     * Returns the index of the observed differences for the given remaining depth and {@link Move.Type}.
+     *
+     * @param remainingDepth the number of layers searched below the node, between {@code 1} and {@link #MAX_DEPTH}
+     * @param type           the {@code Type} of the move
+     * @return the index in the arrays of observed differences
+     */
+    private static int getIndex(int remainingDepth, Move.Type type) {
+        return (remainingDepth - 1) * 2 + (type == Move.Type.OVERRIDE ? 1 : 0);
+    }
+}
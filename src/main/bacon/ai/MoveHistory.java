@@ -0,0 +1,106 @@
+package bacon.ai;
+
+import bacon.Map;
+import bacon.move.EncodedMove;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the moves that caused cutoffs in the search tree, so they can be searched first in other nodes.
+ * <p>
+ * A good move in one node is often good in its siblings as well, as they only differ by a move somewhere else on the
+ * {@link Map}. The killer moves are the last two moves per layer that caused a cutoff. The history counts the cutoffs
+ * per player and {@link bacon.Tile}, weighted by the remaining depth, over the whole search. Both only need a table
+ * lookup per move, so moves can be ordered without evaluating them.
+ * <p>
+ * The tables are meant to be kept over the iterations of one move calculation and cleared before the next one.
+ */
+class MoveHistory {
+
+    /**
+     * Number of killer moves per layer.
+     */
+    private static final int KILLER_COUNT = 2;
+    /**
+     * Rating of the last killer move of a layer. This is greater than any history score, older killers are rated
+     * lower by this amount each.
+     */
+    private static final int KILLER_RATING = 1 << 28;
+
+    private int[] killers = new int[0];
+    /**
+     * The history scores, indexed by {@code playerId * tileCount + tileIndex}.
+     */
+    private int[] history = new int[0];
+    private int tileCount;
+
+    /**
+     * Prepares the tables for searching the given {@link Map} with the given depth. The killer moves and history
+     * scores are kept, unless the size of the {@code Map} changed.
+     *
+     * @param map   the {@code Map} that is searched
+     * @param depth the number of layers of the search tree
+     */
+    void prepare(Map map, int depth) {
+        if (tileCount != map.getTileCount()) {
+            tileCount = map.getTileCount();
+            history = new int[(Map.MAX_PLAYER_COUNT + 1) * tileCount];
+        }
+
+        int oldLength = killers.length;
+        if (oldLength < depth * KILLER_COUNT) {
+            killers = Arrays.copyOf(killers, depth * KILLER_COUNT);
+            Arrays.fill(killers, oldLength, killers.length, EncodedMove.NO_MOVE);
+        }
+    }
+
+    /**
+     * Forgets all killer moves and history scores.
+     */
+    void clear() {
+        Arrays.fill(killers, EncodedMove.NO_MOVE);
+        Arrays.fill(history, 0);
+    }
+
+    /**
+     * Records that the given move caused a cutoff.
+     *
+     * @param layer          the layer of the node the move was done in
+     * @param move           the move encoded by {@link EncodedMove}
+     * @param remainingDepth the number of layers that were searched below the node
+     */
+    void addCutoff(int layer, int move, int remainingDepth) {
+        history[getHistoryIndex(move)] += remainingDepth * remainingDepth;
+
+        int first = layer * KILLER_COUNT;
+        if (killers[first] == move) return;
+        System.arraycopy(killers, first, killers, first + 1, KILLER_COUNT - 1);
+        killers[first] = move;
+    }
+
+    /**
+     * Rates the given move by the killer moves of the given layer and the history. Higher is better for the player
+     * doing the move.
+     *
+     * @param layer the layer of the node the move is done in
+     * @param move  the move encoded by {@link EncodedMove}
+     * @return the rating of the move
+     */
+    int rate(int layer, int move) {
+        int first = layer * KILLER_COUNT;
+        for (int i = 0; i < KILLER_COUNT; i++) {
+            if (killers[first + i] == move) return (KILLER_COUNT - i) * KILLER_RATING;
+        }
+        return history[getHistoryIndex(move)];
+    }
+
+    /**
+     * Returns the index of the history score of the given move.
+     *
+     * @param move the move encoded by {@link EncodedMove}
+     * @return the index in {@link #history}
+     */
+    private int getHistoryIndex(int move) {
+        return EncodedMove.getPlayerId(move) * tileCount + EncodedMove.getTileIndex(move);
+    }
+}
@@ -1,7 +1,6 @@
 package bacon.ai;
 
 import bacon.GameState;
-import bacon.Tile;
 import bacon.ai.heuristics.LegalMoves;
 import bacon.move.Move;
 
@@ -47,26 +46,10 @@ public class RandomRollout {
                 if (move != null) {
                     String before = state.getMap().toString();
                     //System.out.println(before);
-                    boolean inversionMove = (state.getMap().getTileAt(move.getX(), move.getY()).getProperty() == Tile.Property.INVERSION);
-                    boolean choiceMove = (state.getMap().getTileAt(move.getX(), move.getY()).getProperty() == Tile.Property.CHOICE);
-                    if (inversionMove) {
-                        state.getMap().getTileAt(move.getX(), move.getY()).setProperty(Tile.Property.DEFAULT);
-                        state.getMap().addInversionTiles(-1);
-                    } else if (choiceMove) {
-                        state.getMap().getTileAt(move.getX(), move.getY()).setProperty(Tile.Property.DEFAULT);
-                        state.getMap().addChoiceTiles(-1);
-                    }
                     move.doMove();
                     String middle = state.getMap().toString();
                     doRollout((playerInTurn % playerCount) + 1, iteration, playerHasMove);
                     move.undoMove();
-                    if (inversionMove) {
-                        state.getMap().getTileAt(move.getX(), move.getY()).setProperty(Tile.Property.INVERSION);
-                        state.getMap().addInversionTiles(1);
-                    } else if (choiceMove) {
-                        state.getMap().getTileAt(move.getX(), move.getY()).setProperty(Tile.Property.CHOICE);
-                        state.getMap().addChoiceTiles(1);
-                    }
                     String after = state.getMap().toString();
 
                     if (!before.equals(after)) {
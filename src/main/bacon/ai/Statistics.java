@@ -21,6 +21,17 @@ class Statistics {
     private final List<Integer> stateTimes;
     private long stateTimeStamp;
     private boolean inMeasuredState;
+    private int tableProbes;
+    private int tableHits;
+    private int tableCutoffs;
+    private int skippedEvaluations;
+    private int researches;
+    private int reductions;
+    private int reductionResearches;
+    private int futileMoves;
+    private int internalDeepenings;
+    private int aspirationFailures;
+    private long aspirationFailureNanos;
 
     private Statistics() {
         this.stateCounts = new HashMap<>();
@@ -88,6 +99,162 @@ class Statistics {
         this.stateTimes.add((int) (System.nanoTime() - this.stateTimeStamp));
     }
 
+    /**
+     * Adds a lookup in the transposition table to the statistics.
+     *
+     * @param hit {@code true} if the state was found in the table, {@code false} otherwise
+     */
+    void probeTable(boolean hit) {
+        this.tableProbes++;
+        if (hit) this.tableHits++;
+    }
+
+    /**
+     * Adds a state whose value was taken from the transposition table to the statistics.
+     */
+    void cutTable() {
+        this.tableCutoffs++;
+    }
+
+    /**
+     * Adds a state whose evaluation was stopped early, because its value could not matter, to the statistics.
+     */
+    void skipEvaluation() {
+        this.skippedEvaluations++;
+    }
+
+    /**
+     * Adds a state that has to be searched again, because its null window search failed high, to the statistics.
+     */
+    void researchState() {
+        this.researches++;
+    }
+
+    /**
+     * Adds a state that is searched with reduced depth, because its move comes late in the ordering, to the statistics.
+     *
+     * @param research {@code true} if the state has to be searched again with full depth, because it looked better
+     *                 than expected
+     */
+    void reduceState(boolean research) {
+        this.reductions++;
+        if (research) this.reductionResearches++;
+    }
+
+    /**
+     * Adds a move that was skipped, because its rating could not reach the alpha-beta window, to the statistics.
+     */
+    void pruneFutileMove() {
+        this.futileMoves++;
+    }
+
+    /**
+     * Adds a state that was searched with reduced depth first, to find a move to search first, to the statistics.
+     */
+    void deepenInternally() {
+        this.internalDeepenings++;
+    }
+
+    /**
+     * Adds a search whose value was outside of the aspiration window to the statistics.
+     *
+     * @param nanos the time the failed search took in nanoseconds
+     */
+    void failAspirationWindow(long nanos) {
+        this.aspirationFailures++;
+        this.aspirationFailureNanos += nanos;
+    }
+
+    /**
+     * Returns the share of lookups in the transposition table that found the state.
+     *
+     * @return the hit rate between {@code 0} and {@code 1}, {@code 0} if the table was not used
+     */
+    double getTableHitRate() {
+        return this.tableProbes == 0 ? 0 : (double) this.tableHits / this.tableProbes;
+    }
+
+    /**
+     * Returns the amount of states whose value was taken from the transposition table.
+     *
+     * @return the cutoff count
+     */
+    int getTableCutoffCount() {
+        return this.tableCutoffs;
+    }
+
+    /**
+     * Returns the amount of states whose evaluation was stopped early.
+     *
+     * @return the amount of skipped evaluations
+     */
+    int getSkippedEvaluationCount() {
+        return this.skippedEvaluations;
+    }
+
+    /**
+     * Returns the amount of states that were searched again after a null window search.
+     *
+     * @return the amount of re-searches
+     */
+    int getResearchCount() {
+        return this.researches;
+    }
+
+    /**
+     * Returns the amount of states that were searched with reduced depth.
+     *
+     * @return the amount of reductions
+     */
+    int getReductionCount() {
+        return this.reductions;
+    }
+
+    /**
+     * Returns the amount of states that were searched again with full depth after a reduced search.
+     *
+     * @return the amount of re-searches after a reduction
+     */
+    int getReductionResearchCount() {
+        return this.reductionResearches;
+    }
+
+    /**
+     * Returns the amount of moves that were skipped by futility pruning.
+     *
+     * @return the amount of futile moves
+     */
+    int getFutileMoveCount() {
+        return this.futileMoves;
+    }
+
+    /**
+     * Returns the amount of states that were searched with reduced depth to find a move to search first.
+     *
+     * @return the amount of internal iterative deepening searches
+     */
+    int getInternalDeepeningCount() {
+        return this.internalDeepenings;
+    }
+
+    /**
+     * Returns the amount of searches whose value was outside of the aspiration window.
+     *
+     * @return the amount of failed searches
+     */
+    int getAspirationFailureCount() {
+        return this.aspirationFailures;
+    }
+
+    /**
+     * Returns the total time of the searches whose value was outside of the aspiration window.
+     *
+     * @return the time of the failed searches in nanoseconds
+     */
+    long getAspirationFailureNanos() {
+        return this.aspirationFailureNanos;
+    }
+
     /**
      * Returns the time in nanoseconds since the timer was started.
      *
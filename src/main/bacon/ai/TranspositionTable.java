@@ -0,0 +1,160 @@
+package bacon.ai;
+
+import bacon.move.EncodedMove;
+
+/**
+ * A fixed-size hash table that stores the results of evaluated nodes of the search tree.
+ * <p>
+ * The same position is often reached by different move orders, especially as <i>Best Reply Search</i> lets all
+ * enemies move in the min layers. The table allows to reuse the value of such a position instead of searching it
+ * again, and remembers the best move of a position to search it first next time.
+ * <p>
+ * Entries are stored in a single {@code long} array, so the table does not create any objects while searching. Each
+ * entry consists of two {@code long}s: the upper half of the hash of the position packed with the searched depth, the
+ * bound type and the generation the entry was written in, and the score packed with the best move. The lower bits of
+ * the hash select the slot, so they do not need to be stored. Starting a new generation invalidates all scores
+ * without clearing the table, while the best moves can still be used for move ordering.
+ */
+class TranspositionTable {
+
+    /**
+     * The stored score is exact.
+     */
+    static final int EXACT = 0;
+    /**
+     * The stored score is a lower bound, the actual score may be greater.
+     */
+    static final int LOWER_BOUND = 1;
+    /**
+     * The stored score is an upper bound, the actual score may be smaller.
+     */
+    static final int UPPER_BOUND = 2;
+
+    /**
+     * Number of {@code long}s per entry: key and data.
+     */
+    private static final int ENTRY_SIZE = 2;
+
+    /*
+    Layout of the key: the upper half of the hash, the depth, the bound and the generation from high to low bits.
+    The data holds the score in the upper and the move in the lower half.
+     */
+    private static final int HASH_SHIFT = 32;
+    private static final int DEPTH_SHIFT = 24;
+    private static final int BOUND_SHIFT = 22;
+    private static final int GENERATION_MASK = (1 << BOUND_SHIFT) - 1;
+    private static final int SCORE_SHIFT = 32;
+
+    private final long[] entries;
+    private final int mask;
+    /**
+     * The current generation. Entries of the generation {@code 0} are empty.
+     */
+    private int generation;
+
+    /**
+     * Creates a new empty {@code TranspositionTable}.
+     *
+     * @param sizeBits the binary logarithm of the number of entries
+     */
+    TranspositionTable(int sizeBits) {
+        this.entries = new long[ENTRY_SIZE << sizeBits];
+        this.mask = (1 << sizeBits) - 1;
+        this.generation = 1;
+    }
+
+    /**
+     * Starts a new generation. Scores stored before can not be used for cutoffs anymore.
+     */
+    void nextGeneration() {
+        generation = (generation + 1) & GENERATION_MASK;
+        // generation zero marks empty entries
+        if (generation == 0) generation = 1;
+    }
+
+    /**
+     * Searches for the entry of the position with the given hash.
+     *
+     * @param hash the hash of the position
+     * @return the slot of the entry, or {@code -1} if the position is not stored
+     */
+    int find(long hash) {
+        int offset = ENTRY_SIZE * (int) (hash & mask);
+        if (entries[offset] >>> HASH_SHIFT != hash >>> HASH_SHIFT || getGeneration(offset) == 0) return -1;
+        return offset;
+    }
+
+    /**
+     * Returns whether the entry in the given slot was written in the current generation.
+     *
+     * @param slot the slot returned by {@link #find(long)}
+     * @return {@code true} if the stored score can be used, {@code false} otherwise
+     */
+    boolean isCurrent(int slot) {
+        return getGeneration(slot) == generation;
+    }
+
+    /**
+     * Returns the score stored in the given slot.
+     *
+     * @param slot the slot returned by {@link #find(long)}
+     * @return the score
+     */
+    int getValue(int slot) {
+        return (int) (entries[slot + 1] >> SCORE_SHIFT);
+    }
+
+    /**
+     * Returns the best move stored in the given slot.
+     *
+     * @param slot the slot returned by {@link #find(long)}
+     * @return the move encoded by {@link EncodedMove}, or {@link EncodedMove#NO_MOVE}
+     */
+    int getMove(int slot) {
+        return (int) entries[slot + 1];
+    }
+
+    /**
+     * Returns the depth the position in the given slot was searched with.
+     *
+     * @param slot the slot returned by {@link #find(long)}
+     * @return the number of layers below the position that were searched
+     */
+    int getDepth(int slot) {
+        return (int) (entries[slot] >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    /**
+     * Returns the bound type of the score stored in the given slot.
+     *
+     * @param slot the slot returned by {@link #find(long)}
+     * @return {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}
+     */
+    int getBound(int slot) {
+        return (int) (entries[slot] >>> BOUND_SHIFT) & 0x3;
+    }
+
+    /**
+     * Stores the result of a search of the position with the given hash.
+     * <p>
+     * An existing entry is only replaced, if it is from an older generation or was searched less deep.
+     *
+     * @param hash  the hash of the position
+     * @param depth the number of layers below the position that were searched
+     * @param bound the bound type of the score
+     * @param value the score
+     * @param move  the best move encoded by {@link EncodedMove}, or {@link EncodedMove#NO_MOVE}
+     */
+    void store(long hash, int depth, int bound, int value, int move) {
+        int offset = ENTRY_SIZE * (int) (hash & mask);
+        if (getGeneration(offset) == generation && getDepth(offset) > depth) return;
+
+        entries[offset] = (hash >>> HASH_SHIFT << HASH_SHIFT) | ((long) Math.min(depth, 0xFF) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT) | generation;
+        entries[offset + 1] = ((long) value << SCORE_SHIFT) | (move & 0xFFFFFFFFL);
+    }
+
+    private int getGeneration(int offset) {
+        return (int) entries[offset] & GENERATION_MASK;
+    }
+}
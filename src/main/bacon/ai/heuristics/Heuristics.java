@@ -2,6 +2,7 @@ package bacon.ai.heuristics;
 
 import bacon.*;
 import bacon.move.BombMove;
+import bacon.move.MoveBuffer;
 
 import java.util.Set;
 import java.util.logging.Level;
@@ -17,18 +18,66 @@ import static java.lang.Math.pow;
  */
 public class Heuristics {
 
+    /**
+     * The number of score points per unit of the heuristics. Scores are fixed-point numbers with this scale.
+     */
+    public static final int SCORE_SCALE = 1000;
+    /**
+     * The score of a won game. It is greater than the score of any evaluation.
+     */
+    public static final int WIN = 1_000_000_000;
+    /**
+     * The score of a lost game. It is lower than the score of any evaluation.
+     */
+    public static final int LOSS = -WIN;
+
     private static final Logger LOGGER = Logger.getGlobal();
 
+    /**
+     * Reused buffer for counting legal moves in {@link #mobility(GameState, int)}.
+     */
+    private static final MoveBuffer mobilityMoves = new MoveBuffer();
+    /**
+     * Reused buffer for the stone counts in {@link #relativeStoneCount(GameState, int)}.
+     */
+    private static final int[] stoneCounts = new int[Map.MAX_PLAYER_COUNT + 1];
+
     private Heuristics() {}
 
+    /**
+     * Converts the given heuristic value to a fixed-point score.
+     * <p>
+     * The score is rounded to the nearest point and lies strictly between {@link #LOSS} and {@link #WIN}.
+     *
+     * @param value the heuristic value
+     * @return the score of the value
+     */
+    public static int toScore(double value) {
+        return (int) Math.max(LOSS + 1, Math.min(WIN - 1, Math.round(value * SCORE_SCALE)));
+    }
+
     public static int inversionSwap(GameState state, int playerId) {
+        return inversionSwap(state, playerId, state.getMap().getInversionTileCount(), state.getMap().getChoiceTileCount());
+    }
+
+    /**
+     * Predicts the {@link Player} whose stones the given {@code Player} will own at the end of the game, assuming the
+     * given numbers of inversion and choice {@link Tile}s are left on the {@link Map}.
+     *
+     * @param state              the {@link GameState} to be examined
+     * @param playerId           {@code id} of the {@code Player}
+     * @param inversionTileCount the number of inversion {@code Tile}s left
+     * @param choiceTileCount    the number of choice {@code Tile}s left
+     * @return the {@code id} of the {@code Player} to evaluate
+     */
+    public static int inversionSwap(GameState state, int playerId, int inversionTileCount, int choiceTileCount) {
         if (!state.getMap().isRolloutsAvailable()) {
             return playerId;
         }
 
         double inversionStdv = state.getMap().getFinalInversionStdv();
-        double inversionCaptured = state.getMap().getInversionTileCount() - state.getMap().getFinalInversion();
-        double choiceCaptured = state.getMap().getChoiceTileCount() - state.getMap().getFinalChoice();
+        double inversionCaptured = inversionTileCount - state.getMap().getFinalInversion();
+        double choiceCaptured = choiceTileCount - state.getMap().getFinalChoice();
         if (inversionCaptured > 0 && inversionStdv < 0.2 && choiceCaptured <= 0) {
             //LOGGER.log(Level.FINE, "INVERSION PREDICTED");
             int swapPartner = (playerId - (int) inversionCaptured) % state.getTotalPlayerCount();
@@ -61,9 +110,21 @@ public class Heuristics {
     }
 
     public static double stoneCountWeight(GameState state, int playerId) {
+        return stoneCountWeight(state, playerId, state.getMap().getOccupiedTileCount());
+    }
+
+    /**
+     * Calculates the weight of the stone count heuristics, assuming the given number of occupied {@link Tile}s.
+     *
+     * @param state             the {@link GameState} to be examined
+     * @param playerId          {@code id} of the {@link Player} in turn
+     * @param occupiedTileCount the number of occupied {@code Tile}s
+     * @return the weight of the stone count heuristics
+     */
+    public static double stoneCountWeight(GameState state, int playerId, int occupiedTileCount) {
         if (!state.getMap().isRolloutsAvailable()) return 1;
 
-        double movesLeft = (state.getMap().getFinalOccupied() - state.getMap().getOccupiedTileCount());
+        double movesLeft = (state.getMap().getFinalOccupied() - occupiedTileCount);
         double attenuation = 5 * movesLeft / (state.getMap().getFinalOccupied() + 1);
         if (attenuation >= 0 && attenuation < 1) return 2 * Math.pow(0.5, attenuation);
         else return 1;
@@ -93,10 +154,28 @@ public class Heuristics {
         if (state.getGamePhase() != GamePhase.PHASE_ONE) {
             throw new IllegalArgumentException("Mobility heuristics should only be used in build phase");
         }
-        double legalMoveCount = LegalMoves.getLegalRegularMoves(state, playerId).size();
+        mobilityMoves.clear();
+        LegalMoves.getLegalRegularMoves(state, playerId, mobilityMoves);
+        double legalMoveCount = mobilityMoves.size();
         return Math.pow(legalMoveCount, 0.5);
     }
 
+    /**
+     * Returns an upper bound of the mobility heuristics of the given game state.
+     * <p>
+     * Regular moves can only be made on the frontier {@link Tile}s. Choice {@code Tile}s allow a move for each
+     * player and bonus {@code Tile}s allow up to two moves.
+     *
+     * @param state the {@link GameState} to be examined
+     * @return the maximum value {@link #mobility(GameState, int)} can return
+     */
+    public static double maxMobility(GameState state) {
+        Map map = state.getMap();
+        int maxMoveCount = map.getFrontierTiles().size()
+                + map.getChoiceTileCount() * (state.getTotalPlayerCount() - 1) + map.getBonusTileCount();
+        return Math.pow(maxMoveCount, 0.5);
+    }
+
     /**
      * Calculates the override stability heuristics of the given game state and player.
      *
@@ -125,35 +204,71 @@ public class Heuristics {
      * @return a value indicating the Ais rank, where higher is better
      */
     public static double relativeStoneCount(GameState state, int playerId) {
-        double value = state.getPlayerFromId(playerId).getStoneCount() * state.getTotalPlayerCount();
+        for (int i = 1; i <= state.getTotalPlayerCount(); i++) {
+            stoneCounts[i] = state.getPlayerFromId(i).getStoneCount();
+        }
+        return relativeStoneCount(state, playerId, stoneCounts, state.getMap().getChoiceTileCount());
+    }
+
+    /**
+     * Calculates a heuristic value from the given stone counts of the players.
+     * <p>
+     * See {@link #relativeStoneCount(GameState, int)}.
+     *
+     * @param state           the {@link GameState} to be examined
+     * @param playerId        {@code id} of the {@link Player} to rate
+     * @param stoneCounts     the stone count of each {@code Player}, indexed by the {@code id}
+     * @param choiceTileCount the number of choice {@link Tile}s left
+     * @return a value indicating the Ais rank, where higher is better
+     */
+    public static double relativeStoneCount(GameState state, int playerId, int[] stoneCounts, int choiceTileCount) {
+        double value = stoneCounts[playerId] * state.getTotalPlayerCount();
         double choiceCaptured = 0;
         if (state.getMap().isRolloutsAvailable())
-            choiceCaptured = (state.getMap().getChoiceTileCount() - state.getMap().getFinalChoice());
+            choiceCaptured = (choiceTileCount - state.getMap().getFinalChoice());
         for (int i = 1; i <= state.getTotalPlayerCount(); i++) {
             if (i == playerId) continue;
-            if (state.getPlayerFromId(playerId).getStoneCount() <= state.getPlayerFromId(i).getStoneCount()) {
-                value = value - state.getPlayerFromId(i).getStoneCount();
+            if (stoneCounts[playerId] <= stoneCounts[i]) {
+                value = value - stoneCounts[i];
             }
         }
 
-        if (choiceCaptured > 0.5 && (int) value == state.getPlayerFromId(playerId).getStoneCount() * state.getTotalPlayerCount()) {
+        if (choiceCaptured > 0.5 && (int) value == stoneCounts[playerId] * state.getTotalPlayerCount()) {
             return 0.5 * value / state.getTotalPlayerCount();
         }
 
         return value / state.getTotalPlayerCount();
     }
 
+    /**
+     * Calculates the line clustering heuristics of the given game state and player.
+     * <p>
+     * This is the average player share of the lines the stones of the player are in. The sum of the shares is kept up
+     * to date by the {@link Map}, so this takes constant time.
+     *
+     * @param state    the {@link GameState} to be examined
+     * @param playerId {@code id} of the {@link Player} in turn
+     * @return a real number as line clustering heuristics
+     */
     public static double lineClustering(GameState state, int playerId) {
-        int playerShareSum = 0;
-        for (Tile stone : state.getPlayerFromId(playerId).getStones()) {
-            playerShareSum += stone.getRow().getPlayerShare();
-            playerShareSum += stone.getColumn().getPlayerShare();
-            playerShareSum += stone.getDiagonal().getPlayerShare();
-            playerShareSum += stone.getIndiagonal().getPlayerShare();
-        }
+        int playerShareSum = state.getMap().getLineClusteringSum(playerId);
         return playerShareSum / (state.getPlayerFromId(playerId).getStoneCount() + 1);
     }
 
+    /**
+     * Calculates the pattern heuristics of the given game state and player.
+     * <p>
+     * This is the sum of the scores of the owner configurations of all short line segments, see {@link PatternIndex}.
+     * The sum is kept up to date by the {@link Map}, so this takes constant time.
+     *
+     * @param state    the {@link GameState} to be examined
+     * @param playerId {@code id} of the {@link Player} in turn
+     * @return an integer number as pattern heuristics
+     */
+    public static int patterns(GameState state, int playerId) {
+        return state.getMap().getPatternIndex().getScore(playerId);
+    }
+
     /**
      * Calculates the bomb bonus heuristics of the given game state and player.
      *
@@ -1,6 +1,7 @@
 package bacon.ai.heuristics;
 
 import bacon.*;
+import bacon.Map;
 import bacon.move.*;
 
 import java.util.*;
@@ -20,143 +21,178 @@ public class LegalMoves {
     /**
      * Returns all legal {@link RegularMove}s possible from a certain given board state and player in the first phase.
      * Bonus {@link Move}s requesting Bombs are omitted!
+     * <p>
+     * See {@link #getLegalRegularMoves(GameState, int, MoveBuffer)}.
      *
      * @param state    the {@link GameState} to be examined
      * @param playerId the {@code id} of the current {@link Player} in turn
      * @return a set of all {@link RegularMove}s being legal in the given board state
      */
     public static Set<RegularMove> getLegalRegularMoves(GameState state, int playerId) {
+        MoveBuffer buffer = new MoveBuffer();
+        getLegalRegularMoves(state, playerId, buffer);
+
+        Set<RegularMove> legalMoves = new HashSet<>();
+        for (int i = 0; i < buffer.size(); i++) {
+            legalMoves.add((RegularMove) EncodedMove.toMove(state, buffer.get(i)));
+        }
+        return legalMoves;
+    }
+
+    /**
+     * Appends all legal {@link RegularMove}s possible from a certain given board state and player in the first phase
+     * to the given {@link MoveBuffer}. The moves are encoded by {@link EncodedMove}.
+     * Bonus {@link Move}s requesting Bombs are omitted, unless only few free {@link Tile}s are left!
+     * <p>
+     * The legal {@code Tile}s are taken from the {@link LegalMoveIndex} of the {@link Map}.
+     *
+     * @param state    the {@link GameState} to be examined
+     * @param playerId the {@code id} of the current {@link Player} in turn
+     * @param moves    the {@code MoveBuffer} to append the legal moves to
+     */
+    public static void getLegalRegularMoves(GameState state, int playerId, MoveBuffer moves) {
         if (state.getGamePhase() != GamePhase.PHASE_ONE) {
             throw new IllegalArgumentException("Cannot evaluate GameState: GamePhase invalid");
         }
 
-        int freeTiles = state.getMap().getFreeTiles().size();
+        Map map = state.getMap();
+        int freeTiles = map.getFreeTiles().size();
         int playerStoneCount = state.getPlayerFromId(playerId).getStoneCount();
 
         if (state.getPlayerFromId(playerId).isDisqualified() || freeTiles == 0)
-            return Collections.emptySet();
+            return;
 
-        Set<RegularMove> legalMoves = new HashSet<>();
+        // bomb bonuses are only requested when few free tiles are left
+        boolean bombBonus = freeTiles < playerStoneCount;
 
-        // code path that is faster when only few free tiles are left
-        // start search from free tiles instead of player tiles
-        if (freeTiles < playerStoneCount) {
-            for (Tile tile : state.getMap().getFreeTiles()) {
-                RegularMove move = new RegularMove(state, playerId, tile.x, tile.y);
-                if (move.isLegal()) {
-                    legalMoves.add(move);
-                }
-                move = new RegularMove(state, playerId, tile.x, tile.y, new BonusRequest(BonusRequest.Type.OVERRIDE_BONUS));
-                if (move.isLegal()) {
-                    legalMoves.add(move);
-                    move = new RegularMove(state, playerId, tile.x, tile.y, new BonusRequest(BonusRequest.Type.BOMB_BONUS));
-                    legalMoves.add(move);
-                }
-                for (int i = 1; i <= state.getTotalPlayerCount(); i++) {
-                    move = new RegularMove(state, playerId, tile.x, tile.y, new BonusRequest(i));
-                    if (move.isLegal()) {
-                        legalMoves.add(move);
-                    }
-                }
-            }
-            return legalMoves;
+        TileSet targets = map.getLegalMoveIndex().getTargets(playerId);
+        for (int tile = targets.nextIndex(0); tile >= 0; tile = targets.nextIndex(tile + 1)) {
+            addRegularMoves(state, moves, tile, playerId, bombBonus);
         }
+    }
 
+    /**
+     * Appends all legal {@link RegularMove}s of all given {@link Player}s possible from a certain given board state
+     * in the first phase to the given {@link MoveBuffer}. The moves are encoded by {@link EncodedMove}.
+     * <p>
+     * The legal {@code Tile}s of all {@code Player}s are determined in a single pass over the {@link Map}.
+     * The moves are appended grouped by {@code Player} in the given order. The number of moves of each
+     * {@code Player} is stored in {@code moveCounts}, so the moves can be told apart.
+     * See {@link #getLegalRegularMoves(GameState, int, MoveBuffer)} for details.
+     *
+     * @param state      the {@link GameState} to be examined
+     * @param playerIds  the {@code id}s of the {@code Player}s to generate moves for
+     * @param moves      the {@code MoveBuffer} to append the legal moves to
+     * @param moveCounts array the number of moves of each {@code Player} is stored in, indexed by {@code id}.
+     *                   Can be {@code null}, if the numbers are not needed.
+     */
+    public static void getLegalRegularMoves(GameState state, int[] playerIds, MoveBuffer moves, int[] moveCounts) {
+        if (state.getGamePhase() != GamePhase.PHASE_ONE) {
+            throw new IllegalArgumentException("Cannot evaluate GameState: GamePhase invalid");
+        }
 
-        for (Tile tile : state.getPlayerFromId(playerId).getStones()) { // iterates over all of the player's stones
-
-            for (int direction = 0; direction < Direction.DIRECTION_COUNT; direction++) {
-                int steps = 0; //counts steps from our own stone currently under consideration
-                int searchDirection = direction;
-                Tile last = tile;
-
-                while (true) {
-                    if (last.getTransition(searchDirection) == null || last.getTransition(searchDirection) == tile)
-                        // If the next tile is a hole (or tile we came from) we can stop searching in this direction
-                        break;
-                    else {
-                        // determine new search direction, is opposite to arrival direction
-                        int helper = searchDirection;
-                        searchDirection = Direction.oppositeOf(last.getArrivalDirection(searchDirection));
-                        last = last.getTransition(helper);
-
-                        if (last.getOwnerId() == playerId) { // we can stop searching if we find a tile occupied by the same player
-                            break;
-                        } else if (last.getOwnerId() == Player.NULL_PLAYER_ID && last.getProperty() != Tile.Property.EXPANSION) {
-                            // checks if the move actually captures any tile
-                            // also handle tile property
-                            if (steps > 0 && last.getProperty() == Tile.Property.CHOICE) {
-                                for (int i = 1; i <= Game.getGame().getTotalPlayerCount(); i++) {
-                                    legalMoves.add(new RegularMove(state, playerId, last.x, last.y, new BonusRequest(i)));
-                                }
-                            } else if (steps > 0 && last.getProperty() == Tile.Property.BONUS) {
-                                legalMoves.add((RegularMove) MoveFactory.createMove(state, playerId, last.x, last.y, new BonusRequest(BonusRequest.Type.OVERRIDE_BONUS)));
-                                //legalMoves.add((RegularMove) MoveFactory.createMove(state, playerId, last.x, last.y, new BonusRequest(BonusRequest.Type.BOMB_BONUS)));
-                            } else if (steps > 0) {
-                                legalMoves.add(new RegularMove(state, playerId, last.x, last.y));
-                            }
-                            break;
-                        }
-                    }
+        state.getMap().getLegalMoveIndex().updateTargets(playerIds);
+        for (int playerId : playerIds) {
+            int start = moves.size();
+            getLegalRegularMoves(state, playerId, moves);
+            if (moveCounts != null) moveCounts[playerId] = moves.size() - start;
+        }
+    }
 
-                    if (last != last.getTransition(searchDirection))
-                        steps++; // increment step counter only if last isn't self-neighboring
+    /**
+     * Appends the {@link RegularMove}s on the given {@link Tile} to the given {@link MoveBuffer}.
+     * <p>
+     * One move is added for each {@link BonusRequest} that is valid for the {@link Tile.Property} of the {@code Tile}.
+     * The {@code Tile} has to be a legal target for the {@link Player}.
+     *
+     * @param state     the {@link GameState} to be examined
+     * @param moves     the {@code MoveBuffer} to append the moves to
+     * @param tile      the {@link Tile#index} of the {@code Tile}
+     * @param playerId  the {@code id} of the current {@code Player} in turn
+     * @param bombBonus set to {@code true} to request bombs on bonus {@code Tile}s in addition to override stones
+     */
+    private static void addRegularMoves(GameState state, MoveBuffer moves, int tile, int playerId, boolean bombBonus) {
+        switch (state.getMap().getProperty(tile)) {
+            case CHOICE:
+                for (int i = 1; i <= state.getTotalPlayerCount(); i++) {
+                    moves.add(EncodedMove.regular(tile, playerId, i));
                 }
-            }
+                break;
+            case BONUS:
+                moves.add(EncodedMove.regular(tile, playerId, BonusRequest.OVERRIDE_BONUS_VALUE));
+                if (bombBonus) moves.add(EncodedMove.regular(tile, playerId, BonusRequest.BOMB_BONUS_VALUE));
+                break;
+            default:
+                moves.add(EncodedMove.regular(tile, playerId, BonusRequest.NONE_VALUE));
         }
-        return legalMoves;
     }
 
     /**
      * Returns all legal {@link OverrideMove}s possible from a certain given board state and player in the first phase.
+     * <p>
+     * See {@link #getLegalOverrideMoves(GameState, int, MoveBuffer)}.
      *
      * @param state    the {@link GameState} to be examined
      * @param playerId the {@code id} of the current {@link Player} in turn
      * @return a set of all {@link OverrideMove}s being legal in the given board state
      */
     public static Set<OverrideMove> getLegalOverrideMoves(GameState state, int playerId) {
+        MoveBuffer buffer = new MoveBuffer();
+        getLegalOverrideMoves(state, playerId, buffer);
+
+        Set<OverrideMove> legalMoves = new HashSet<>();
+        for (int i = 0; i < buffer.size(); i++) {
+            legalMoves.add((OverrideMove) EncodedMove.toMove(state, buffer.get(i)));
+        }
+        return legalMoves;
+    }
+
+    /**
+     * Appends all legal {@link OverrideMove}s possible from a certain given board state and player in the first phase
+     * to the given {@link MoveBuffer}. The moves are encoded by {@link EncodedMove}.
+     *
+     * @param state    the {@link GameState} to be examined
+     * @param playerId the {@code id} of the current {@link Player} in turn
+     * @param moves    the {@code MoveBuffer} to append the legal moves to
+     */
+    public static void getLegalOverrideMoves(GameState state, int playerId, MoveBuffer moves) {
         if (state.getGamePhase() != GamePhase.PHASE_ONE) {
             throw new IllegalArgumentException("Cannot evaluate GameState: GamePhase invalid");
         }
 
-        if (state.getPlayerFromId(playerId).isDisqualified())
-            return Collections.emptySet();
+        if (state.getPlayerFromId(playerId).isDisqualified() || state.getPlayerFromId(playerId).getOverrideStoneCount() <= 0)
+            return;
 
-        Set<OverrideMove> legalMoves = new HashSet<>();
-        if (state.getPlayerFromId(playerId).getOverrideStoneCount() <= 0) return legalMoves;
+        Map map = state.getMap();
+        TileSet stones = state.getPlayerFromId(playerId).getStones();
+        moves.resetMarks();
 
-        for (Tile ogTile : state.getPlayerFromId(playerId).getStones()) { // iterates over all of the player's stones
+        for (int ogTile = stones.nextIndex(0); ogTile >= 0; ogTile = stones.nextIndex(ogTile + 1)) { // iterates over all of the player's stones
 
             for (int ogDirection = 0; ogDirection < Direction.DIRECTION_COUNT; ogDirection++) {
-                int searchDirection = ogDirection;
-                Tile last = ogTile;
-
-                while (true) {
-                    Tile next = last.getTransition(searchDirection);
-                    if (next == null ||
-                            (next.getOwnerId() == Player.NULL_PLAYER_ID && next.getProperty() != Tile.Property.EXPANSION)) {
-                        // next is hole or unowned
+                int[] ray = map.getRay(ogTile, ogDirection);
+
+                for (int next : ray) {
+                    if (map.getOwnerId(next) == Player.NULL_PLAYER_ID && map.getProperty(next) != Tile.Property.EXPANSION) {
+                        // next is unowned
                         break;
                     }
-                    if (next != ogTile.getTransition(ogDirection) && next != ogTile) {
-                        // next is not right next to og in search direction or og
-                        legalMoves.add(new OverrideMove(state, playerId, next.x, next.y));
+                    if (next != ray[0] && moves.markTile(next)) {
+                        // next is not right next to og in search direction
+                        moves.add(EncodedMove.override(next, playerId));
                     }
-                    if (next.getOwnerId() == playerId) {
+                    if (map.getOwnerId(next) == playerId) {
                         break;
                     }
-                    int oldDirection = searchDirection;
-                    searchDirection = Direction.oppositeOf(last.getArrivalDirection(searchDirection));
-                    last = last.getTransition(oldDirection);
                 }
             }
         }
 
         // adds independent expansion moves to possible override moves
-        state.getMap().getExpansionTiles().forEach(expansion ->
-                legalMoves.add(new OverrideMove(state, playerId, expansion.x, expansion.y)));
-
-        return legalMoves;
+        TileSet expansions = map.getExpansionTiles();
+        for (int tile = expansions.nextIndex(0); tile >= 0; tile = expansions.nextIndex(tile + 1)) {
+            if (moves.markTile(tile)) moves.add(EncodedMove.override(tile, playerId));
+        }
     }
 
     /**
@@ -237,50 +273,46 @@ public class LegalMoves {
         }
 
 
-        for (Tile tile : state.getPlayerFromId(playerId).getStones()) { // iterates over all of the player's stones
+        Map map = state.getMap();
+        TileSet stones = state.getPlayerFromId(playerId).getStones();
+
+        for (int tile = stones.nextIndex(0); tile >= 0; tile = stones.nextIndex(tile + 1)) { // iterates over all of the player's stones
             boolean repeat = (Math.random() > 0.5);
             for (int direction = 0; direction < Direction.DIRECTION_COUNT; direction++) {
+                int[] ray = map.getRay(tile, direction);
                 int steps = 0; //counts steps from our own stone currently under consideration
-                int searchDirection = direction;
-                Tile last = tile;
 
-                while (true) {
-                    if (last.getTransition(searchDirection) == null || last.getTransition(searchDirection) == tile)
-                        // If the next tile is a hole (or tile we came from) we can stop searching in this direction
+                for (int i = 0; i < ray.length; i++) {
+                    int last = ray[i];
+                    int owner = map.getOwnerId(last);
+                    Tile.Property property = map.getProperty(last);
+                    if (owner == playerId) { // we can stop searching if we find a tile occupied by the same player
                         break;
-                    else {
-                        // determine new search direction, is opposite to arrival direction
-                        int helper = searchDirection;
-                        searchDirection = Direction.oppositeOf(last.getArrivalDirection(searchDirection));
-                        last = last.getTransition(helper);
-
-                        if (last.getOwnerId() == playerId) { // we can stop searching if we find a tile occupied by the same player
-                            break;
-                        } else if (last.getOwnerId() == Player.NULL_PLAYER_ID && last.getProperty() != Tile.Property.EXPANSION) {
-                            // checks if the move actually captures any tile
-                            // also handle tile property
-                            if (steps > 0 && last.getProperty() == Tile.Property.CHOICE) {
-                                int i = (int) (Math.random() * state.getTotalPlayerCount() + 1);
-                                legalMove = new RegularMove(state, playerId, last.x, last.y, new BonusRequest(i));
-                                if (!repeat) return legalMove;
-                                else break;
-                            } else if (steps > 0 && last.getProperty() == Tile.Property.BONUS) {
-                                if (bombBonus)
-                                    legalMove = new RegularMove(state, playerId, last.x, last.y, new BonusRequest(BonusRequest.Type.BOMB_BONUS));
-                                else
-                                    legalMove = new RegularMove(state, playerId, last.x, last.y, new BonusRequest(BonusRequest.Type.OVERRIDE_BONUS));
-                                if (!repeat) return legalMove;
-                                else break;
-                            } else if (steps > 0) {
-                                legalMove = new RegularMove(state, playerId, last.x, last.y);
-                                if (!repeat) return legalMove;
-                                else break;
-                            }
-                            break;
+                    } else if (owner == Player.NULL_PLAYER_ID && property != Tile.Property.EXPANSION) {
+                        // checks if the move actually captures any tile
+                        // also handle tile property
+                        Tile target = map.getTile(last);
+                        if (steps > 0 && property == Tile.Property.CHOICE) {
+                            int j = (int) (Math.random() * state.getTotalPlayerCount() + 1);
+                            legalMove = new RegularMove(state, playerId, target.x, target.y, new BonusRequest(j));
+                            if (!repeat) return legalMove;
+                            else break;
+                        } else if (steps > 0 && property == Tile.Property.BONUS) {
+                            if (bombBonus)
+                                legalMove = new RegularMove(state, playerId, target.x, target.y, new BonusRequest(BonusRequest.Type.BOMB_BONUS));
+                            else
+                                legalMove = new RegularMove(state, playerId, target.x, target.y, new BonusRequest(BonusRequest.Type.OVERRIDE_BONUS));
+                            if (!repeat) return legalMove;
+                            else break;
+                        } else if (steps > 0) {
+                            legalMove = new RegularMove(state, playerId, target.x, target.y);
+                            if (!repeat) return legalMove;
+                            else break;
                         }
+                        break;
                     }
 
-                    if (last != last.getTransition(searchDirection))
+                    if (i + 1 == ray.length || ray[i + 1] != last)
                         steps++; // increment step counter only if last isn't self-neighboring
                 }
             }
@@ -299,30 +331,28 @@ public class LegalMoves {
 
         OverrideMove legalMove = null;
 
-        for (Tile ogTile : state.getPlayerFromId(playerId).getStones()) { // iterates over all of the player's stones
+        Map map = state.getMap();
+        TileSet stones = state.getPlayerFromId(playerId).getStones();
+
+        for (int ogTile = stones.nextIndex(0); ogTile >= 0; ogTile = stones.nextIndex(ogTile + 1)) { // iterates over all of the player's stones
 
             for (int ogDirection = 0; ogDirection < Direction.DIRECTION_COUNT; ogDirection++) {
-                int searchDirection = ogDirection;
-                Tile last = ogTile;
-
-                while (true) {
-                    Tile next = last.getTransition(searchDirection);
-                    if (next == null ||
-                            (next.getOwnerId() == Player.NULL_PLAYER_ID && next.getProperty() != Tile.Property.EXPANSION)) {
-                        // next is hole or unowned
+                int[] ray = map.getRay(ogTile, ogDirection);
+
+                for (int next : ray) {
+                    if (map.getOwnerId(next) == Player.NULL_PLAYER_ID && map.getProperty(next) != Tile.Property.EXPANSION) {
+                        // next is unowned
                         break;
                     }
-                    if (next != ogTile.getTransition(ogDirection) && next != ogTile) {
-                        // next is not right next to og in search direction or og
-                        legalMove = new OverrideMove(state, playerId, next.x, next.y);
+                    if (next != ray[0]) {
+                        // next is not right next to og in search direction
+                        Tile target = map.getTile(next);
+                        legalMove = new OverrideMove(state, playerId, target.x, target.y);
                         return legalMove;
                     }
-                    if (next.getOwnerId() == playerId) {
+                    if (map.getOwnerId(next) == playerId) {
                         break;
                     }
-                    int oldDirection = searchDirection;
-                    searchDirection = Direction.oppositeOf(last.getArrivalDirection(searchDirection));
-                    last = last.getTransition(oldDirection);
                 }
             }
         }
@@ -8,6 +8,19 @@ import bacon.Player;
  */
 public class BonusRequest {
 
+    /**
+     * Binary value of a {@code BonusRequest} of {@link Type#NONE}.
+     */
+    public static final int NONE_VALUE = 0;
+    /**
+     * Binary value of a {@code BonusRequest} of {@link Type#BOMB_BONUS}.
+     */
+    public static final int BOMB_BONUS_VALUE = 20;
+    /**
+     * Binary value of a {@code BonusRequest} of {@link Type#OVERRIDE_BONUS}.
+     */
+    public static final int OVERRIDE_BONUS_VALUE = 21;
+
     /**
      * The {@link Type} the {@code BonusRequest} is of.
      */
@@ -59,9 +72,9 @@ public class BonusRequest {
             var request = new BonusRequest(Type.CHOOSE_PLAYER);
             request.other = value;
             return request;
-        } else if (value == 20)
+        } else if (value == BOMB_BONUS_VALUE)
             return new BonusRequest(Type.BOMB_BONUS);
-        else if (value == 21)
+        else if (value == OVERRIDE_BONUS_VALUE)
             return new BonusRequest(Type.OVERRIDE_BONUS);
         else return null;
     }
@@ -74,13 +87,13 @@ public class BonusRequest {
     byte toValue() {
         switch (type) {
             case BOMB_BONUS:
-                return 20;
+                return BOMB_BONUS_VALUE;
             case OVERRIDE_BONUS:
-                return 21;
+                return OVERRIDE_BONUS_VALUE;
             case CHOOSE_PLAYER:
                 return (byte) other;
             default:
-                return 0;
+                return NONE_VALUE;
         }
     }
 
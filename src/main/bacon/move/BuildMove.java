@@ -2,10 +2,10 @@ package bacon.move;
 
 import bacon.Direction;
 import bacon.GameState;
+import bacon.Map;
 import bacon.Player;
 import bacon.Tile;
-
-import java.util.*;
+import bacon.UndoJournal;
 
 /**
  * A {@link Move} that places a stone on a {@link Tile}.
@@ -13,9 +13,9 @@ import java.util.*;
 public class BuildMove extends Move {
 
     /**
-     * Changes made by {@link #doMove()}. Used by {@link #undoMove()}.
+     * {@code true} if the move has been done and not been undone yet.
      */
-    List<ChangeData> changes;
+    boolean done;
 
     /**
      * Creates a new {@code BuildMove} from the given values.
@@ -32,149 +32,129 @@ public class BuildMove extends Move {
     /**
      * Checks if this {@code BuildMove} is legal.
      * <p>
-     * The method is implemented using breadth-first search to find a {@link Tile} already occupied by the {@link Player}
-     * on a straight line from the {@code Tile} we're playing on.
+     * See {@link #isLegal(GameState, int, int)}.
      *
      * @return {@code true} if the move is legal, {@code false} otherwise
      */
     @Override
     public boolean isLegal() {
-        Tile tile = state.getMap().getTileAt(this.xPos, this.yPos);
-
-        // cannot put a stone on a hole
-        if (tile.getProperty() == Tile.Property.HOLE) return false;
-
-        // farthest reachable tile in each direction
-        Tile[] surrounding = new Tile[Direction.DIRECTION_COUNT];
-        // direction in which to walk for each starting direction
-        int[] searchDirections = new int[Direction.DIRECTION_COUNT];
-        for (int i = 0; i < surrounding.length; i++) {
-            surrounding[i] = tile;
-            searchDirections[i] = i;
-        }
-
-        // Going radially outward in 8 straight lines, one step for each outer for-loop cycle, beginning with the same center tile
-        // surrounding keeps track of the farthest field we've gone in each direction
-        for (int steps = 1; true; ) {
-            // keeps track of the number of directions where we've hit a hole/blank field/origin tile and thus stop searching
-            // in this direction
-            int emptyOrHoleCount = 0;
-
-            // iterating over directions
-            for (int i = 0; i < surrounding.length; i++) {
-                int direction = searchDirections[i];
-
-                if (surrounding[i] != null && surrounding[i].getTransition(direction) != null && surrounding[i].getTransition(direction) != tile) { // If the next tile isn't
-                    searchDirections[i] = Direction.oppositeOf(surrounding[i].getArrivalDirection(direction));        // a hole or the origin tile, update direction
-                    surrounding[i] = surrounding[i].getTransition(direction);                   // increment the farthest tile in this direction.
-                    if (this.playerId == surrounding[i].getOwnerId() && steps > 1)
-                        return true;     // If this next tile happens to be ours AND there was someone else's stone in between (step>1), the move is legal
-                    else if (this.playerId == surrounding[i].getOwnerId() && steps == 1) {          // If, on the other hand, there WASN'T someone else's stone in between, we can stop searching in this direction,
-                        surrounding[i] = null;                                                  // so set this tile to null and increment emptyOrHoleCount
-                        emptyOrHoleCount++;
-                    } else if (surrounding[i].getOwnerId() == Player.NULL_PLAYER_ID && surrounding[i].getProperty() != Tile.Property.EXPANSION) {
-                        surrounding[i] = null;  // If this next tile is unoccupied AND not an expansion field (i.e. empty), we can stop searching in this direction
-                        emptyOrHoleCount++;
-                    }
-                } else emptyOrHoleCount++;     // If this next tile is a hole, we can stop searching in this direction
-            }
-
-            if (emptyOrHoleCount >= Direction.DIRECTION_COUNT)
-                break;    // If we've hit a barrier in all 8 directions, we can stop searching altogether and declare the move illegal
-            steps++;    // Increment radius from the center
-        }
-
-        return false;
+        return isLegal(state, state.getMap().getTileAt(this.xPos, this.yPos).index, this.playerId);
     }
 
     /**
      * Executes the {@code BuildMove}.
      * <p>
-     * The method uses depth-first search to find the number of stones that need to be overturned in each direction.
-     * Does nothing instead, if {@link #isLegal()} method determines the move to be illegal.
+     * See {@link #build(GameState, int, int)}.
      */
     @Override
     public void doMove() {
-        Tile originTile = state.getMap().getTileAt(this.xPos, this.yPos);
+        build(state, state.getMap().getTileAt(this.xPos, this.yPos).index, this.playerId);
+        done = true;
+    }
 
-        Set<Tile> turnOver = new HashSet<>();
+    /**
+     * Undoes the {@code BuildMove}.
+     * <p>
+     * Requires the {@code BuildMove} to previously be done.
+     * Moves have to be undone in the reverse order they were done in.
+     */
+    public void undoMove() {
 
-        for (int direction = 0; direction < Direction.DIRECTION_COUNT; direction++) {
-            List<Tile> path = new ArrayList<>();   // path in the given direction
-            Tile last = originTile;                   // last tile of the path
-            int searchDirection = direction;    // the direction we're searching in
+        assert done : "Move has to be done before undo!";
 
+        state.getJournal().undoFrame(state.getMap());
 
-            while (true) {
-                if (last.getTransition(searchDirection) == null)
-                    // If the next tile is a hole we can stop searching in this direction
-                    break;
-                else {
-                    // if not, we add it to path
-                    // determine new search direction, is opposite to arrival direction
-                    int oldDirection = searchDirection;
-                    searchDirection = Direction.oppositeOf(last.getArrivalDirection(searchDirection));
-                    last = last.getTransition(oldDirection);
-                    if (last == originTile) break;
-
-                    if (last.getOwnerId() == Player.NULL_PLAYER_ID && last.getProperty() != Tile.Property.EXPANSION)
-                        // If this next tile is unoccupied AND not an expansion field (i.e. empty), we can stop searching in this direction
-                        break;
-                    else if (this.playerId == last.getOwnerId() && path.size() == 0)
-                        // If on the first step we hit our own stone, we can stop searching in this direction
-                        break;
-                    else if (this.playerId == last.getOwnerId() && path.size() > 0) {
-                        // If on other steps we hit our own stone, we get to overturn all stones on the way
-                        // and then we can stop searching in this direction
-                        turnOver.addAll(path);
-                        break;
-                    } else {
-                        path.add(last);
-                    }
-                }
-            }
-        }
+        done = false;
+    }
 
-        // save previous owner information
-        changes = new LinkedList<>();
-        for (Tile tile : turnOver) {
-            changes.add(new ChangeData(tile));
-        }
+    /**
+     * Checks if placing a stone of the given {@link Player} on the given {@link Tile} is legal.
+     * <p>
+     * The method walks along the rays starting at the {@code Tile} we're playing on and looks for a
+     * {@code Tile} already occupied by the {@code Player} with at least one other stone in between.
+     *
+     * @param state    the {@link GameState} to check
+     * @param tile     the {@link Tile#index} of the {@code Tile} to place the stone on
+     * @param playerId the {@code id} of the {@code Player}
+     * @return {@code true} if the move is legal, {@code false} otherwise
+     */
+    static boolean isLegal(GameState state, int tile, int playerId) {
+        Map map = state.getMap();
 
-        changes.add(new ChangeData(originTile));
+        // cannot put a stone on a hole
+        if (map.getProperty(tile) == Tile.Property.HOLE) return false;
 
-        // now actually turn all stones over
-        for (Tile t : turnOver) {
-            if (t.getProperty() == Tile.Property.EXPANSION) {
-                this.state.getMap().removeExpansionStone(t); // Removes expansion stones from expansion stone tracker in Map
+        for (int direction = 0; direction < Direction.DIRECTION_COUNT; direction++) {
+            int[] ray = map.getRay(tile, direction);
+
+            // i is the number of stones of other players passed in this direction
+            for (int i = 0; i < ray.length; i++) {
+                int owner = map.getOwnerId(ray[i]);
+                if (owner == playerId) {
+                    // If this next tile happens to be ours AND there was someone else's stone in between, the move is legal.
+                    // Otherwise we can stop searching in this direction
+                    if (i > 0) return true;
+                    break;
+                } else if (owner == Player.NULL_PLAYER_ID && map.getProperty(ray[i]) != Tile.Property.EXPANSION) {
+                    // If this next tile is unoccupied AND not an expansion field (i.e. empty), we can stop searching in this direction
+                    break;
+                }
             }
-            t.setProperty(Tile.Property.DEFAULT);
-            t.setOwnerId(this.playerId);
         }
 
-        // new stone is placed on the map
-        originTile.setOwnerId(this.playerId);
+        return false;
     }
 
     /**
-     * Undoes the {@code BuildMove}.
+     * Places a stone of the given {@link Player} on the given {@link Tile} and overturns all captured stones.
      * <p>
-     * Requires the {@code BuildMove} to previously be done.
+     * The method walks along the ray in each direction to find the stones that need to be overturned.
+     * All changed {@code Tile}s are recorded in a new frame of the {@link UndoJournal}, with the given {@code Tile}
+     * being the first entry.
+     *
+     * @param state    the {@link GameState} to change
+     * @param origin   the {@link Tile#index} of the {@code Tile} to place the stone on
+     * @param playerId the {@code id} of the {@code Player}
      */
-    public void undoMove() {
+    static void build(GameState state, int origin, int playerId) {
+        Map map = state.getMap();
+        UndoJournal journal = state.getJournal();
+        Tile originTile = map.getTile(origin);
+
+        // save previous owner information, the stones to overturn are recorded in the journal as they are found
+        journal.beginFrame();
+        journal.record(originTile);
 
-        assert changes != null : "Move has to be done before undo!";
+        for (int direction = 0; direction < Direction.DIRECTION_COUNT; direction++) {
+            int[] ray = map.getRay(origin, direction);
+            int pathLength = 0;     // number of stones to overturn in the given direction
 
-        for (ChangeData datum : changes) {
-            datum.tile.setOwnerId(datum.ogPlayerId);
-            datum.tile.setProperty(datum.wasProp);
+            for (int i = 0; i < ray.length; i++) {
+                int owner = map.getOwnerId(ray[i]);
+                if (owner == Player.NULL_PLAYER_ID && map.getProperty(ray[i]) != Tile.Property.EXPANSION)
+                    // If this next tile is unoccupied AND not an expansion field (i.e. empty), we can stop searching in this direction
+                    break;
+                else if (playerId == owner) {
+                    // If on other steps than the first we hit our own stone, we get to overturn all stones on the way.
+                    // In any case we can stop searching in this direction
+                    pathLength = i;
+                    break;
+                }
+            }
 
-            if (datum.wasProp == Tile.Property.EXPANSION) {
-                // adds expansion stone back to expansion stone tracker in Map
-                this.state.getMap().addExpansionStone(datum.tile);
+            for (int i = 0; i < pathLength; i++) {
+                journal.record(map.getTile(ray[i]));
             }
         }
 
-        changes = null;
+        // now actually turn all stones over, the first entry is the origin
+        for (int entry = journal.getFrameStart() + 1; entry < journal.size(); entry++) {
+            Tile t = map.getTile(journal.getTileIndex(entry));
+            t.setProperty(Tile.Property.DEFAULT);
+            t.setOwnerId(playerId);
+        }
+
+        // new stone is placed on the map
+        originTile.setOwnerId(playerId);
     }
 }
@@ -0,0 +1,151 @@
+package bacon.move;
+
+import bacon.GameState;
+import bacon.Map;
+import bacon.Tile;
+
+/**
+ * A collection of methods for {@link BuildMove}s encoded as a single {@code int}.
+ * <p>
+ * The search tree visits millions of moves, so creating a {@link Move} object for each of them is too expensive.
+ * Instead, a move is packed into an {@code int} that holds the {@link Tile#index}, the binary value of the
+ * {@link BonusRequest}, the {@code id} of the {@link bacon.Player} and whether the move is an {@link OverrideMove}.
+ * Encoded moves can be done and undone directly on a {@link GameState}. Only the move that is actually sent to the
+ * server has to be turned into a {@code Move} using {@link #toMove(GameState, int)}.
+ * <p>
+ * All methods are static, therefore no instances of {@code EncodedMove} can be created.
+ */
+public final class EncodedMove {
+
+    /**
+     * Value representing the absence of a move.
+     */
+    public static final int NO_MOVE = -1;
+
+    private static final int TILE_BITS = 20;
+    private static final int BONUS_SHIFT = TILE_BITS;
+    private static final int BONUS_BITS = 5;
+    private static final int PLAYER_SHIFT = BONUS_SHIFT + BONUS_BITS;
+    private static final int PLAYER_BITS = 4;
+    private static final int OVERRIDE_FLAG = 1 << (PLAYER_SHIFT + PLAYER_BITS);
+
+    private EncodedMove() {}
+
+    /**
+     * Encodes a {@link RegularMove}.
+     *
+     * @param tile     the {@link Tile#index} of the {@code Tile} to place the stone on
+     * @param playerId the {@code id} of the {@link bacon.Player} of the move
+     * @param bonus    the binary value of the {@link BonusRequest}
+     * @return the encoded move
+     */
+    public static int regular(int tile, int playerId, int bonus) {
+        return tile | (bonus << BONUS_SHIFT) | (playerId << PLAYER_SHIFT);
+    }
+
+    /**
+     * Encodes an {@link OverrideMove}.
+     *
+     * @param tile     the {@link Tile#index} of the {@code Tile} to place the stone on
+     * @param playerId the {@code id} of the {@link bacon.Player} of the move
+     * @return the encoded move
+     */
+    public static int override(int tile, int playerId) {
+        return tile | (playerId << PLAYER_SHIFT) | OVERRIDE_FLAG;
+    }
+
+    /**
+     * Returns the {@link Tile#index} of the encoded move.
+     *
+     * @param move the encoded move
+     * @return the index of the {@code Tile} the stone is placed on
+     */
+    public static int getTileIndex(int move) {
+        return move & ((1 << TILE_BITS) - 1);
+    }
+
+    /**
+     * Returns the binary value of the {@link BonusRequest} of the encoded move.
+     *
+     * @param move the encoded move
+     * @return the value of the {@code BonusRequest}, {@code 0} for none
+     */
+    public static int getBonus(int move) {
+        return (move >>> BONUS_SHIFT) & ((1 << BONUS_BITS) - 1);
+    }
+
+    /**
+     * Returns the {@code id} of the {@link bacon.Player} of the encoded move.
+     *
+     * @param move the encoded move
+     * @return the {@code id} of the {@code Player}
+     */
+    public static int getPlayerId(int move) {
+        return (move >>> PLAYER_SHIFT) & ((1 << PLAYER_BITS) - 1);
+    }
+
+    /**
+     * Returns the {@link Move.Type} of the encoded move.
+     *
+     * @param move the encoded move
+     * @return {@link Move.Type#OVERRIDE} for override moves, {@link Move.Type#REGULAR} otherwise
+     */
+    public static Move.Type getType(int move) {
+        return (move & OVERRIDE_FLAG) != 0 ? Move.Type.OVERRIDE : Move.Type.REGULAR;
+    }
+
+    /**
+     * Checks if the encoded move is legal in the given {@link GameState}.
+     *
+     * @param state the {@code GameState} to check
+     * @param move  the encoded move
+     * @return {@code true} if the move is legal, {@code false} otherwise
+     */
+    public static boolean isLegal(GameState state, int move) {
+        if ((move & OVERRIDE_FLAG) != 0)
+            return OverrideMove.isLegal(state, getTileIndex(move), getPlayerId(move));
+        return RegularMove.isLegal(state, getTileIndex(move), getPlayerId(move), getBonus(move));
+    }
+
+    /**
+     * Executes the encoded move on the given {@link GameState}.
+     *
+     * @param state the {@code GameState} to change
+     * @param move  the encoded move
+     */
+    public static void doMove(GameState state, int move) {
+        if ((move & OVERRIDE_FLAG) != 0)
+            OverrideMove.doMove(state, getTileIndex(move), getPlayerId(move));
+        else RegularMove.doMove(state, getTileIndex(move), getPlayerId(move), getBonus(move));
+    }
+
+    /**
+     * Undoes the encoded move on the given {@link GameState}.
+     * <p>
+     * The move has to be the last move done on the {@code GameState}.
+     *
+     * @param state the {@code GameState} to change
+     * @param move  the encoded move
+     */
+    public static void undoMove(GameState state, int move) {
+        if ((move & OVERRIDE_FLAG) != 0)
+            OverrideMove.undoMove(state, getPlayerId(move));
+        else RegularMove.undoMove(state, getPlayerId(move), getBonus(move));
+    }
+
+    /**
+     * Creates the {@link BuildMove} represented by the encoded move.
+     *
+     * @param state the {@link GameState} the move operates on
+     * @param move  the encoded move
+     * @return a {@link RegularMove} or {@link OverrideMove}, or {@code null} for {@link #NO_MOVE}
+     */
+    public static BuildMove toMove(GameState state, int move) {
+        if (move == NO_MOVE) return null;
+
+        Tile tile = state.getMap().getTile(getTileIndex(move));
+        if ((move & OVERRIDE_FLAG) != 0)
+            return new OverrideMove(state, getPlayerId(move), tile.x, tile.y);
+        return new RegularMove(state, getPlayerId(move), tile.x, tile.y, BonusRequest.fromValue(getBonus(move), state));
+    }
+}
@@ -18,7 +18,7 @@ public abstract class Move {
     final int yPos;
     Type type;
 
-    private double value;
+    private int value;
 
     /**
      * Creates a new {@code Move} from the given values.
@@ -91,20 +91,20 @@ public abstract class Move {
     }
 
     /**
-     * Returns the evaluation value of the {@code Move}.
+     * Returns the evaluation score of the {@code Move}.
      *
-     * @return the evaluation value
+     * @return the evaluation score
      */
-    public double getValue() {
+    public int getValue() {
         return value;
     }
 
     /**
-     * Sets the evaluation value of the {@code Move}.
+     * Sets the evaluation score of the {@code Move}.
      *
-     * @param value the evaluation value
+     * @param value the evaluation score
      */
-    public void setValue(double value) {
+    public void setValue(int value) {
         this.value = value;
     }
 
@@ -139,7 +139,7 @@ public abstract class Move {
     @Override
     public int hashCode() {
         final int prime = 31;
-        int result = prime * (this.xPos * 50 + this.yPos);
+        int result = prime * ((this.xPos << 16) ^ this.yPos);
         result += prime * result + this.type.hashCode();
         result += prime * result + this.playerId;
         return result;
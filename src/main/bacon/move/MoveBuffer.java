@@ -0,0 +1,183 @@
+package bacon.move;
+
+import bacon.Tile;
+
+import java.util.Arrays;
+
+/**
+ * A reusable list of moves encoded by {@link EncodedMove}, each with an evaluation score.
+ * <p>
+ * The buffer is backed by arrays that only grow when needed. It is meant to be kept around and cleared before reuse,
+ * e.g. once per layer of the search tree, so generating moves does not allocate any objects.
+ * <p>
+ * Additionally, the buffer can mark {@link Tile}s to avoid adding moves on the same {@code Tile} twice.
+ */
+public class MoveBuffer {
+
+    private int[] moves;
+    private int[] values;
+    private int size;
+
+    /**
+     * Marks the {@link Tile}s. A {@code Tile} is marked, if its element is equal to {@link #stamp}.
+     */
+    private int[] stamps;
+    private int stamp;
+
+    /**
+     * Creates a new empty {@code MoveBuffer}.
+     */
+    public MoveBuffer() {
+        this.moves = new int[64];
+        this.values = new int[64];
+        this.stamps = new int[0];
+        this.stamp = 1;
+    }
+
+    /**
+     * Removes all moves from the buffer.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Appends the given move to the buffer.
+     *
+     * @param move the encoded move
+     */
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, 2 * size);
+            values = Arrays.copyOf(values, 2 * size);
+        }
+        moves[size] = move;
+        values[size] = 0;
+        size++;
+    }
+
+    /**
+     * Returns the move at the given position.
+     *
+     * @param i the position of the move
+     * @return the encoded move
+     */
+    public int get(int i) {
+        return moves[i];
+    }
+
+    /**
+     * Returns the evaluation score of the move at the given position.
+     *
+     * @param i the position of the move
+     * @return the evaluation score
+     */
+    public int getValue(int i) {
+        return values[i];
+    }
+
+    /**
+     * Sets the evaluation score of the move at the given position.
+     *
+     * @param i     the position of the move
+     * @param value the evaluation score
+     */
+    public void setValue(int i, int value) {
+        values[i] = value;
+    }
+
+    /**
+     * Returns the number of moves in the buffer.
+     *
+     * @return the number of moves
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the buffer contains no moves.
+     *
+     * @return {@code true} if the buffer is empty, {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Discards all moves after the given number of moves.
+     *
+     * @param size the number of moves to keep
+     */
+    public void truncate(int size) {
+        if (size < this.size) this.size = size;
+    }
+
+    /**
+     * Sorts the moves by their evaluation scores.
+     * <p>
+     * The sort is stable, moves with equal values keep their order.
+     *
+     * @param descending {@code true} to sort in descending order, {@code false} for ascending order
+     */
+    public void sortByValue(boolean descending) {
+        // insertion sort, move lists are short and usually nearly sorted
+        for (int i = 1; i < size; i++) {
+            int move = moves[i];
+            int value = values[i];
+            int j = i - 1;
+            while (j >= 0 && (descending ? values[j] < value : values[j] > value)) {
+                moves[j + 1] = moves[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            values[j + 1] = value;
+        }
+    }
+
+    /**
+     * Moves the given move to the front of the buffer. The order of all other moves is kept.
+     *
+     * @param move the encoded move
+     * @return {@code true} if the buffer contains the move, {@code false} otherwise
+     */
+    public boolean moveToFront(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] != move) continue;
+
+            int value = values[i];
+            System.arraycopy(moves, 0, moves, 1, i);
+            System.arraycopy(values, 0, values, 1, i);
+            moves[0] = move;
+            values[0] = value;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Marks the {@link Tile} with the given index.
+     *
+     * @param tile the {@link Tile#index} of the {@code Tile}
+     * @return {@code true} if the {@code Tile} was not marked before, {@code false} otherwise
+     */
+    public boolean markTile(int tile) {
+        if (stamps.length <= tile) stamps = Arrays.copyOf(stamps, Math.max(tile + 1, 2 * stamps.length));
+        if (stamps[tile] == stamp) return false;
+        stamps[tile] = stamp;
+        return true;
+    }
+
+    /**
+     * Removes the marks of all {@link Tile}s.
+     */
+    public void resetMarks() {
+        stamp++;
+        if (stamp == 0) {
+            // the stamps wrapped around, so old marks could become valid again
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+    }
+}
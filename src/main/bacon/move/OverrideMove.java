@@ -23,31 +23,21 @@ public class OverrideMove extends BuildMove {
 
     /**
      * Checks if the {@code OverrideMove} is legal.
+     * <p>
+     * See {@link #isLegal(GameState, int, int)}.
      *
      * @return {@code true} if the {@code OverrideMove} is legal, {@code false} otherwise
      */
     public boolean isLegal() {
-        if (this.state.getPlayerFromId(this.playerId).getOverrideStoneCount() == 0)
-            return false; // player must have at least 1 override stone to make the move
-        if (this.state.getMap().getTileAt(this.xPos, this.yPos).getProperty() == Tile.Property.EXPANSION)
-            return true;
-        return super.isLegal();
+        return isLegal(state, state.getMap().getTileAt(this.xPos, this.yPos).index, this.playerId);
     }
 
     /**
      * Executes the {@code OverrideMove}.
      */
     public void doMove() {
-        Tile tile = this.state.getMap().getTileAt(this.xPos, this.yPos);
-
-        super.doMove();
-
-        if (tile.getProperty() == Tile.Property.EXPANSION) {
-            this.state.getMap().removeExpansionStone(tile); // removes this tile from expansion stone tracker in Map
-            tile.setProperty(Tile.Property.DEFAULT);    // the tile we placed our override stone on could be an expansion field
-        }
-
-        this.state.getPlayerFromId(this.playerId).receiveOverrideStone(-1);    // Subtract 1 override stone from player's inventory
+        doMove(state, state.getMap().getTileAt(this.xPos, this.yPos).index, this.playerId);
+        done = true;
     }
 
     /**
@@ -57,8 +47,56 @@ public class OverrideMove extends BuildMove {
      */
     @Override
     public void undoMove() {
-        super.undoMove();
-        this.state.getPlayerFromId(this.playerId).receiveOverrideStone(1);
+        assert done : "Move has to be done before undo!";
+
+        undoMove(state, this.playerId);
+        done = false;
+    }
+
+    /**
+     * Checks if placing an override stone of the given {@link bacon.Player} on the given {@link Tile} is legal.
+     *
+     * @param state    the {@link GameState} to check
+     * @param tile     the {@link Tile#index} of the {@code Tile} to place the stone on
+     * @param playerId the {@code id} of the {@code Player}
+     * @return {@code true} if the move is legal, {@code false} otherwise
+     */
+    static boolean isLegal(GameState state, int tile, int playerId) {
+        if (state.getPlayerFromId(playerId).getOverrideStoneCount() == 0)
+            return false; // player must have at least 1 override stone to make the move
+        if (state.getMap().getProperty(tile) == Tile.Property.EXPANSION)
+            return true;
+        return BuildMove.isLegal(state, tile, playerId);
+    }
+
+    /**
+     * Places an override stone of the given {@link bacon.Player} on the given {@link Tile}.
+     *
+     * @param state    the {@link GameState} to change
+     * @param tile     the {@link Tile#index} of the {@code Tile} to place the stone on
+     * @param playerId the {@code id} of the {@code Player}
+     */
+    static void doMove(GameState state, int tile, int playerId) {
+        BuildMove.build(state, tile, playerId);
+
+        Tile target = state.getMap().getTile(tile);
+        if (target.getProperty() == Tile.Property.EXPANSION) {
+            target.setProperty(Tile.Property.DEFAULT);    // the tile we placed our override stone on could be an expansion field
+        }
+
+        state.getPlayerFromId(playerId).receiveOverrideStone(-1);    // Subtract 1 override stone from player's inventory
+    }
+
+    /**
+     * Undoes the last move, which has to be a move of the given {@link bacon.Player} done by
+     * {@link #doMove(GameState, int, int)}.
+     *
+     * @param state    the {@link GameState} to change
+     * @param playerId the {@code id} of the {@code Player}
+     */
+    static void undoMove(GameState state, int playerId) {
+        state.getJournal().undoFrame(state.getMap());
+        state.getPlayerFromId(playerId).receiveOverrideStone(1);
     }
 
 }
@@ -1,8 +1,10 @@
 package bacon.move;
 
 import bacon.GameState;
+import bacon.Map;
 import bacon.Player;
 import bacon.Tile;
+import bacon.UndoJournal;
 
 import java.nio.ByteBuffer;
 
@@ -45,136 +47,138 @@ public class RegularMove extends BuildMove {
     /**
      * Checks if the {@code RegularMove} is legal.
      * <p>
-     * This method first checks whether the bonus request is valid.
-     * Further checks are done in {@link BuildMove#isLegal()}.
+     * See {@link #isLegal(GameState, int, int, int)}.
      *
      * @return {@code true} if the {@code RegularMove} is legal, {@code false} otherwise
      */
     public boolean isLegal() {
-        Tile tile = state.getMap().getTileAt(this.xPos, this.yPos);
-        switch (tile.getProperty()) {
+        return isLegal(state, state.getMap().getTileAt(this.xPos, this.yPos).index, this.playerId, this.request.toValue());
+    }
+
+    /**
+     * Executes the {@code RegularMove}.
+     * <p>
+     * See {@link #doMove(GameState, int, int, int)}.
+     */
+    public void doMove() {
+        doMove(state, state.getMap().getTileAt(this.xPos, this.yPos).index, this.playerId, this.request.toValue());
+        done = true;
+    }
+
+    /**
+     * Undoes the {@code RegularMove}.
+     * <p>
+     * Requires the {@code RegularMove} to previously be done.
+     */
+    public void undoMove() {
+        assert done : "Move has to be done before undo!";
+
+        undoMove(state, this.playerId, this.request.toValue());
+        done = false;
+    }
+
+    /**
+     * Checks if placing a stone of the given {@link Player} on the given {@link Tile} with the given bonus request
+     * is legal.
+     * <p>
+     * This method first checks whether the bonus request is valid.
+     * Further checks are done in {@link BuildMove#isLegal(GameState, int, int)}.
+     *
+     * @param state    the {@link GameState} to check
+     * @param tile     the {@link Tile#index} of the {@code Tile} to place the stone on
+     * @param playerId the {@code id} of the {@code Player}
+     * @param bonus    the binary value of the {@link BonusRequest}
+     * @return {@code true} if the move is legal, {@code false} otherwise
+     */
+    static boolean isLegal(GameState state, int tile, int playerId, int bonus) {
+        switch (state.getMap().getProperty(tile)) {
             case BONUS:
-                if (this.request == null || this.request.type != BonusRequest.Type.BOMB_BONUS && this.request.type != BonusRequest.Type.OVERRIDE_BONUS)
+                if (bonus != BonusRequest.BOMB_BONUS_VALUE && bonus != BonusRequest.OVERRIDE_BONUS_VALUE)
                     return false;
                 break;
             case CHOICE:
-                if (this.request == null || this.request.type != BonusRequest.Type.CHOOSE_PLAYER)
+                if (bonus == BonusRequest.NONE_VALUE || bonus == BonusRequest.BOMB_BONUS_VALUE || bonus == BonusRequest.OVERRIDE_BONUS_VALUE)
                     return false;
                 break;
             default:
-                if (this.request != null && this.request.type != BonusRequest.Type.NONE)
+                if (bonus != BonusRequest.NONE_VALUE)
                     return false;
                 break;
         }
-        return super.isLegal();
+        return BuildMove.isLegal(state, tile, playerId);
     }
 
     /**
-     * Executes the {@code RegularMove}.
+     * Places a stone of the given {@link Player} on the given {@link Tile}.
      * <p>
-     * This method handles the special {@link Tile.Property}. Other computations are then done in {@link BuildMove#isLegal()}.
+     * This method handles the special {@link Tile.Property}.
+     * Other computations are then done in {@link BuildMove#build(GameState, int, int)}.
+     *
+     * @param state    the {@link GameState} to change
+     * @param tile     the {@link Tile#index} of the {@code Tile} to place the stone on
+     * @param playerId the {@code id} of the {@code Player}
+     * @param bonus    the binary value of the {@link BonusRequest}
      */
-    public void doMove() {
-        Tile tile = state.getMap().getTileAt(this.xPos, this.yPos);
-        var property = tile.getProperty();
+    static void doMove(GameState state, int tile, int playerId, int bonus) {
+        Map map = state.getMap();
+        var property = map.getProperty(tile);
 
-        super.doMove();
+        BuildMove.build(state, tile, playerId);
 
         // After overturning captured stones, we now have to consider the bonus/special effect of our tile
         switch (property) {
             case BONUS:
-                this.state.getMap().addBonusTiles(-1);
-                if (this.request.type == BonusRequest.Type.BOMB_BONUS)
-                    this.state.getPlayerFromId(this.playerId).receiveBomb(1);
-                else if (this.request.type == BonusRequest.Type.OVERRIDE_BONUS)
-                    this.state.getPlayerFromId(this.playerId).receiveOverrideStone(1);
+                map.addBonusTiles(-1);
+                if (bonus == BonusRequest.BOMB_BONUS_VALUE)
+                    state.getPlayerFromId(playerId).receiveBomb(1);
+                else if (bonus == BonusRequest.OVERRIDE_BONUS_VALUE)
+                    state.getPlayerFromId(playerId).receiveOverrideStone(1);
                 break;
             case INVERSION:
-                this.state.getMap().addInversionTiles(-1);
-                int playerCount = state.getTotalPlayerCount();
-                for (int x = 0; x < state.getMap().width; x++) {
-                    for (int y = 0; y < state.getMap().height; y++) {
-                        Tile anyTile = state.getMap().getTileAt(x, y);
-                        if (anyTile.getOwnerId() != Player.NULL_PLAYER_ID) {
-                            int oldNumber = anyTile.getOwnerId();
-                            int newNumber = oldNumber + 1;
-                            if (newNumber > playerCount) {
-                                newNumber = 1;
-                            }
-                            anyTile.setOwnerId(newNumber);
-                        }
-                    }
-                }
+                map.addInversionTiles(-1);
+                map.rotatePlayers(state.getTotalPlayerCount(), 1);
                 break;
-
             case CHOICE:
-                this.state.getMap().addChoiceTiles(-1);
-                for (int x = 0; x < state.getMap().width; x++) {
-                    for (int y = 0; y < state.getMap().height; y++) {
-                        Tile anyTile = state.getMap().getTileAt(x, y);
-                        if (anyTile.getOwnerId() == Player.NULL_PLAYER_ID) continue;
-                        if (anyTile.getOwnerId() == this.playerId)
-                            anyTile.setOwnerId(this.request.getOtherPlayerId());
-                        else if (anyTile.getOwnerId() == this.request.getOtherPlayerId())
-                            anyTile.setOwnerId(this.playerId);
-                    }
-                }
+                map.addChoiceTiles(-1);
+                map.swapPlayers(playerId, bonus);
         }
 
-        tile.setProperty(Tile.Property.DEFAULT); // After playing our move, the tile becomes default (no bonus anymore)
-        state.getMap().addOccupiedTiles(1);
-        state.getMap().removeFreeTile(tile);
+        map.getTile(tile).setProperty(Tile.Property.DEFAULT); // After playing our move, the tile becomes default (no bonus anymore)
+        map.addOccupiedTiles(1);
     }
 
     /**
-     * Undoes the {@code RegularMove}.
-     * <p>
-     * Requires the {@code RegularMove} to previously be done.
+     * Undoes the last move, which has to be a move of the given {@link Player} done by
+     * {@link #doMove(GameState, int, int, int)} with the given bonus request.
+     *
+     * @param state    the {@link GameState} to change
+     * @param playerId the {@code id} of the {@code Player}
+     * @param bonus    the binary value of the {@link BonusRequest}
      */
-    public void undoMove() {
-        //last entry in changes is always the Tile the move was made on
-        switch (changes.get(changes.size() - 1).wasProp) {
+    static void undoMove(GameState state, int playerId, int bonus) {
+        Map map = state.getMap();
+        UndoJournal journal = state.getJournal();
+
+        // first entry in the journal frame is always the Tile the move was made on
+        switch (journal.getPreviousProperty(journal.getFrameStart())) {
             case BONUS:
-                this.state.getMap().addBonusTiles(1);
-                if (this.request.type == BonusRequest.Type.BOMB_BONUS)
-                    this.state.getPlayerFromId(this.playerId).receiveBomb(-1);
-                else if (this.request.type == BonusRequest.Type.OVERRIDE_BONUS)
-                    this.state.getPlayerFromId(this.playerId).receiveOverrideStone(-1);
+                map.addBonusTiles(1);
+                if (bonus == BonusRequest.BOMB_BONUS_VALUE)
+                    state.getPlayerFromId(playerId).receiveBomb(-1);
+                else if (bonus == BonusRequest.OVERRIDE_BONUS_VALUE)
+                    state.getPlayerFromId(playerId).receiveOverrideStone(-1);
                 break;
             case INVERSION:
-                this.state.getMap().addInversionTiles(1);
-                int playerCount = state.getTotalPlayerCount();
-                for (int x = 0; x < state.getMap().width; x++) {
-                    for (int y = 0; y < state.getMap().height; y++) {
-                        Tile anyTile = state.getMap().getTileAt(x, y);
-                        if (anyTile.getOwnerId() != Player.NULL_PLAYER_ID) {
-                            int oldNumber = anyTile.getOwnerId();
-                            int newNumber = oldNumber - 1;
-                            if (newNumber < 1) {
-                                newNumber = playerCount;
-                            }
-                            anyTile.setOwnerId(newNumber);
-                        }
-                    }
-                }
+                map.addInversionTiles(1);
+                map.rotatePlayers(state.getTotalPlayerCount(), -1);
                 break;
             case CHOICE:
-                this.state.getMap().addChoiceTiles(1);
-                for (int x = 0; x < state.getMap().width; x++) {
-                    for (int y = 0; y < state.getMap().height; y++) {
-                        Tile anyTile = state.getMap().getTileAt(x, y);
-                        if (anyTile.getOwnerId() == Player.NULL_PLAYER_ID) continue;
-                        if (anyTile.getOwnerId() == this.playerId)
-                            anyTile.setOwnerId(this.request.getOtherPlayerId());
-                        else if (anyTile.getOwnerId() == this.request.getOtherPlayerId())
-                            anyTile.setOwnerId(this.playerId);
-                    }
-                }
+                map.addChoiceTiles(1);
+                map.swapPlayers(playerId, bonus);
         }
 
-        super.undoMove();
-        state.getMap().addOccupiedTiles(-1);
-        state.getMap().addFreeTile(state.getMap().getTileAt(this.xPos, this.yPos));
+        journal.undoFrame(map);
+        map.addOccupiedTiles(-1);
     }
 
     /**
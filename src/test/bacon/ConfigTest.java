@@ -53,11 +53,27 @@ public class ConfigTest {
             fail();
         } catch (IllegalArgumentException ignored) {}
 
+        try {
+            Config.fromArgs(new String[]{"-s", "localhost", "-p", "51312", "--lmr", "-1"});
+            fail();
+        } catch (IllegalArgumentException ignored) {}
+
+        try {
+            Config.fromArgs(new String[]{"-s", "localhost", "-p", "51312", "--lmr", "x"});
+            fail();
+        } catch (IllegalArgumentException ignored) {}
+
         var valid = Config.fromArgs(new String[]{"-s", "localhost", "-p", "51312"});
         assertNotNull(valid);
         assertEquals("localhost", valid.getHost());
         assertEquals(51312, valid.getPort());
         assertTrue(valid.isPruningEnabled());
+        assertFalse(valid.isPatternEvaluationEnabled());
+        assertFalse(valid.isPrincipalVariationSearchEnabled());
+        assertFalse(valid.isMoveHistoryEnabled());
+        assertEquals(0, valid.getLateMoveReduction());
+        assertFalse(valid.isFutilityPruningEnabled());
+        assertFalse(valid.isInternalIterativeDeepeningEnabled());
 
         var valid2 = Config.fromArgs(new String[]{"-s", "localhost", "-p", "51312", "--no-prune", "--beam", "10", "--no-sort"});
         assertNotNull(valid2);
@@ -67,6 +83,16 @@ public class ConfigTest {
         assertFalse(valid2.isMoveSortingEnabled());
         assertEquals(10, valid2.getBeamWidth());
 
+        var valid3 = Config.fromArgs(new String[]{"-s", "localhost", "-p", "51312", "--patterns", "--pvs",
+                "--history", "--lmr", "3", "--futility", "--iid"});
+        assertNotNull(valid3);
+        assertTrue(valid3.isPatternEvaluationEnabled());
+        assertTrue(valid3.isPrincipalVariationSearchEnabled());
+        assertTrue(valid3.isMoveHistoryEnabled());
+        assertEquals(3, valid3.getLateMoveReduction());
+        assertTrue(valid3.isFutilityPruningEnabled());
+        assertTrue(valid3.isInternalIterativeDeepeningEnabled());
+
         var help = Config.fromArgs(new String[]{"--help"});
         assertTrue(help.isPruningEnabled());
 
@@ -0,0 +1,75 @@
+package bacon;
+
+import bacon.move.BonusRequest;
+import bacon.move.EncodedMove;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LegalMoveIndexTest {
+
+    @Test
+    public void initialTargets() {
+        Game.getGame().readMap(Maps.MODEXAMPLE);
+        Map map = Game.getGame().getCurrentState().getMap();
+        int[][] coordinates = {{7, 5}, {8, 5}, {9, 5}, {9, 6}, {9, 7}, {5, 7}, {5, 8}, {5, 9}, {6, 9}, {6, 10}, {7, 10}};
+
+        map.getLegalMoveIndex().updateTargets(new int[]{1});
+        TileSet targets = map.getLegalMoveIndex().getTargets(1);
+        assertEquals(coordinates.length, targets.size());
+        for (int[] c : coordinates) {
+            assertTrue("Missing target (" + c[0] + ", " + c[1] + ")", targets.contains(map.getTileAt(c[0], c[1]).index));
+        }
+    }
+
+    @Test
+    public void getTargets() {
+        for (String mapData : new String[]{Maps.EXAMPLE, Maps.STARFISH}) {
+            Game.getGame().readMap(mapData);
+            GameState state = Game.getGame().getCurrentState();
+            Map map = state.getMap();
+            int[] playerIds = new int[state.getTotalPlayerCount()];
+            for (int i = 0; i < playerIds.length; i++) playerIds[i] = i + 1;
+            int[] checks = new int[1];
+
+            RandomMoves.play(3, 60, () -> {
+                // alternate between updating the players one by one and all at once
+                if (checks[0]++ % 2 == 0) map.getLegalMoveIndex().updateTargets(playerIds);
+
+                for (int playerId : playerIds) {
+                    TileSet targets = map.getLegalMoveIndex().getTargets(playerId);
+                    for (int index = 0; index < map.getTileCount(); index++) {
+                        assertEquals("Wrong target " + index + " of player " + playerId,
+                                isLegal(state, index, playerId), targets.contains(index));
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Checks whether the given {@link Player} can make a regular move on the given {@link Tile} by walking its rays.
+     *
+     * @param state    the {@link GameState} to check
+     * @param index    the index of the {@code Tile}
+     * @param playerId the {@code id} of the {@code Player}
+     * @return {@code true} if the {@code Tile} is a legal target of the {@code Player}
+     */
+    private static boolean isLegal(GameState state, int index, int playerId) {
+        Map map = state.getMap();
+        if (map.getOwnerId(index) != Player.NULL_PLAYER_ID) return false;
+
+        switch (map.getProperty(index)) {
+            case HOLE:
+            case EXPANSION:
+                return false;
+            case CHOICE:
+                return EncodedMove.isLegal(state, EncodedMove.regular(index, playerId, playerId));
+            case BONUS:
+                return EncodedMove.isLegal(state, EncodedMove.regular(index, playerId, BonusRequest.OVERRIDE_BONUS_VALUE));
+            default:
+                return EncodedMove.isLegal(state, EncodedMove.regular(index, playerId, BonusRequest.NONE_VALUE));
+        }
+    }
+}
@@ -1,8 +1,17 @@
 package bacon;
 
+import bacon.move.Move;
+import bacon.move.RegularMove;
 import org.junit.Test;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 public class MapTest {
 
@@ -117,4 +126,300 @@ public class MapTest {
         assertEquals(map.getTileAt(7, 0).getArrivalDirection(Direction.UP.id), Direction.DOWN.id);
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void transitionTables() {
+        Game.getGame().readMap(Maps.EXAMPLE);
+        Map map = Game.getGame().getCurrentState().getMap();
+        int hole = map.getTileCount();
+
+        // regular neighbours arrive from the opposite direction
+        int center = map.getTileAt(7, 7).index;
+        assertEquals(map.getTileAt(8, 6).index, map.getTransition(center, Direction.UP_RIGHT.id));
+        assertEquals(Direction.DOWN_LEFT.id, map.getArrivalDirection(center, Direction.UP_RIGHT.id));
+
+        // the special transitions of the map
+        int upperLeft = map.getTileAt(6, 0).index;
+        int upperRight = map.getTileAt(9, 1).index;
+        assertEquals(upperRight, map.getTransition(upperLeft, Direction.UP.id));
+        assertEquals(Direction.UP_RIGHT.id, map.getArrivalDirection(upperLeft, Direction.UP.id));
+        assertEquals(upperLeft, map.getTransition(upperRight, Direction.UP_RIGHT.id));
+        assertEquals(Direction.UP.id, map.getArrivalDirection(upperRight, Direction.UP_RIGHT.id));
+
+        // the border and holes lead to the hole index, which only leads to itself
+        int border = map.getTileAt(0, 5).index;
+        assertEquals(hole, map.getTransition(border, Direction.LEFT.id));
+        assertEquals(Direction.NULL_DIRECTION_ID, map.getArrivalDirection(border, Direction.LEFT.id));
+        assertEquals(hole, map.getTransition(map.getTileAt(5, 0).index, Direction.LEFT.id));
+        for (int direction = 0; direction < Direction.DIRECTION_COUNT; direction++) {
+            assertEquals(hole, map.getTransition(hole, direction));
+        }
+
+        // the tables agree with the transitions of the tiles
+        for (int index = 0; index < hole; index++) {
+            Tile tile = map.getTile(index);
+            for (int direction = 0; direction < Direction.DIRECTION_COUNT; direction++) {
+                Tile other = tile.getTransition(direction);
+                assertEquals(other == null ? hole : other.index, map.getTransition(index, direction));
+                assertEquals(tile.getArrivalDirection(direction), map.getArrivalDirection(index, direction));
+            }
+        }
+
+        // bombing a tile removes the transitions from and to it
+        int bombed = map.getTileAt(7, 3).index;
+        map.getTile(bombed).bombTile();
+        for (int direction = 0; direction < Direction.DIRECTION_COUNT; direction++) {
+            assertEquals(hole, map.getTransition(bombed, direction));
+        }
+        assertEquals(hole, map.getTransition(map.getTileAt(7, 2).index, Direction.DOWN.id));
+        assertEquals(hole, map.getTransition(map.getTileAt(8, 4).index, Direction.UP_LEFT.id));
+    }
+
+    @Test
+    public void playerPermutation() {
+        Game.getGame().readMap(Maps.EXAMPLE);
+        Map example = Game.getGame().getCurrentState().getMap();
+        // inversion: the stones of player 1 go to player 2, those of player 3 to player 1
+        example.rotatePlayers(3, 1);
+        assertEquals(2, example.getTileAt(6, 6).getOwnerId());
+        assertEquals(3, example.getTileAt(7, 6).getOwnerId());
+        assertEquals(1, example.getTileAt(8, 6).getOwnerId());
+        // choice: players 1 and 3 exchange their stones
+        example.swapPlayers(1, 3);
+        assertEquals(2, example.getTileAt(6, 6).getOwnerId());
+        assertEquals(1, example.getTileAt(7, 6).getOwnerId());
+        assertEquals(3, example.getTileAt(8, 6).getOwnerId());
+        assertTrue(example.getStones(1).contains(example.getTileAt(8, 7).index));
+        assertEquals(2, example.toPhysicalId(1));
+        example.swapPlayers(1, 3);
+        example.rotatePlayers(3, -1);
+        assertEquals(1, example.getTileAt(6, 6).getOwnerId());
+        assertEquals(1, example.toPhysicalId(1));
+
+        for (String mapData : new String[]{Maps.EXAMPLE, Maps.STARFISH}) {
+            Game.getGame().readMap(mapData);
+            GameState state = Game.getGame().getCurrentState();
+            Map map = state.getMap();
+
+            RandomMoves.play(1, 60, () -> {
+                for (int playerId = 1; playerId <= state.getTotalPlayerCount(); playerId++) {
+                    assertEquals(playerId, map.toPlayerId(map.toPhysicalId(playerId)));
+                    assertEquals(map.getStones(playerId).size(), state.getPlayerFromId(playerId).getStoneCount());
+                }
+
+                int[] stoneCounts = new int[state.getTotalPlayerCount() + 1];
+                for (int index = 0; index < map.getTileCount(); index++) {
+                    int ownerId = map.getOwnerId(index);
+                    assertEquals(map.toPlayerId(map.getPhysicalOwnerId(index)), ownerId);
+                    assertEquals(ownerId, map.getTile(index).getOwnerId());
+                    if (ownerId == Player.NULL_PLAYER_ID) continue;
+                    assertTrue("Stone missing at tile " + index, map.getStones(ownerId).contains(index));
+                    stoneCounts[ownerId]++;
+                }
+                for (int playerId = 1; playerId <= state.getTotalPlayerCount(); playerId++) {
+                    assertEquals(stoneCounts[playerId], map.getStones(playerId).size());
+                }
+            });
+        }
+    }
+
+    @Test
+    public void rays() {
+        Game.getGame().readMap(Maps.EXAMPLE);
+        Map map = Game.getGame().getCurrentState().getMap();
+
+        assertRay(map, map.getTileAt(7, 7).index, Direction.RIGHT.id,
+                8, 7, 9, 7, 10, 7, 11, 7, 12, 7, 13, 7, 14, 7);
+        // the ray turns at the transition from the upper edge to the upper right edge
+        assertRay(map, map.getTileAt(6, 1).index, Direction.UP.id,
+                6, 0, 9, 1, 8, 2, 7, 3, 6, 4, 5, 5, 4, 6, 3, 7, 2, 8, 1, 9);
+        // the ray wraps around from the lower to the upper edge and ends before its start
+        assertRay(map, map.getTileAt(7, 13).index, Direction.DOWN.id,
+                7, 14, 7, 0, 7, 1, 7, 2, 7, 3, 7, 4, 7, 5, 7, 6, 7, 7, 7, 8, 7, 9, 7, 10, 7, 11, 7, 12);
+        assertEquals(0, map.getRay(map.getTileAt(0, 5).index, Direction.LEFT.id).length);
+
+        // rays over a bombed tile end before it
+        map.getTileAt(11, 7).bombTile();
+        assertRay(map, map.getTileAt(7, 7).index, Direction.RIGHT.id, 8, 7, 9, 7, 10, 7);
+    }
+
+    @Test
+    public void rayCycle() {
+        // a transition from the right end back to the middle tile, so the ray never returns to its start
+        Map map = Map.readFromString(3, 1, new String[]{"0 0 0"});
+        map.setTransition(map.getTileAt(2, 0).index, Direction.RIGHT.id, map.getTileAt(1, 0).index, Direction.LEFT.id);
+        int[] ray = map.getRay(map.getTileAt(0, 0).index, Direction.RIGHT.id);
+
+        assertEquals(Direction.DIRECTION_COUNT * map.getTileCount(), ray.length);
+        for (int i = 0; i < ray.length; i++) {
+            assertEquals(map.getTileAt(1 + i % 2, 0).index, ray[i]);
+        }
+    }
+
+    /**
+     * Checks that the given ray consists of the {@link Tile}s at the given coordinates.
+     *
+     * @param map         the {@link Map} of the ray
+     * @param index       the index of the {@code Tile} the ray starts at
+     * @param direction   {@link Direction} in integer representation in which the ray starts
+     * @param coordinates the x and y coordinates of the {@code Tile}s on the ray in walking order
+     */
+    private static void assertRay(Map map, int index, int direction, int... coordinates) {
+        int[] expected = new int[coordinates.length / 2];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = map.getTileAt(coordinates[2 * i], coordinates[2 * i + 1]).index;
+        }
+        assertArrayEquals(expected, map.getRay(index, direction));
+    }
+
+    @Test
+    public void frontierTiles() {
+        Game.getGame().readMap(Maps.EXAMPLE);
+        // the 16 tiles around the stones and the 13 free tiles next to the expansion tiles
+        assertEquals(29, Game.getGame().getCurrentState().getMap().getFrontierTiles().size());
+
+        for (String mapData : new String[]{Maps.EXAMPLE, Maps.STARFISH}) {
+            Game.getGame().readMap(mapData);
+            GameState state = Game.getGame().getCurrentState();
+            Map map = state.getMap();
+
+            RandomMoves.play(9, 60, () -> assertFrontier(map));
+
+            // bombs remove transitions and free tiles
+            for (int index = 0; index < map.getTileCount(); index += 7) {
+                if (map.getProperty(index) != Tile.Property.HOLE) map.getTile(index).bombTile();
+            }
+            assertFrontier(map);
+        }
+    }
+
+    /**
+     * Checks the frontier tiles of the given {@link Map} against all free {@link Tile}s reachable in one transition
+     * from an occupied or expansion {@code Tile}.
+     *
+     * @param map the {@code Map} to check
+     */
+    private static void assertFrontier(Map map) {
+        int hole = map.getTileCount();
+        Set<Integer> expected = new HashSet<>();
+        for (int index = 0; index < hole; index++) {
+            boolean occupied = map.getOwnerId(index) != Player.NULL_PLAYER_ID
+                    || map.getProperty(index) == Tile.Property.EXPANSION;
+            if (!occupied) continue;
+            for (int direction = 0; direction < Direction.DIRECTION_COUNT; direction++) {
+                int neighbour = map.getTransition(index, direction);
+                if (neighbour != hole && map.getFreeTiles().contains(neighbour)) expected.add(neighbour);
+            }
+        }
+
+        Set<Integer> frontier = new HashSet<>();
+        for (Tile tile : map.getFrontierTiles()) frontier.add(tile.index);
+        assertEquals(expected, frontier);
+    }
+
+    @Test
+    public void hash() {
+        // player 1 captures on (9, 6) and player 2 on (6, 9), the stones they turn over do not overlap
+        Game.getGame().readMap(Maps.EXAMPLE);
+        GameState example = Game.getGame().getCurrentState();
+        long initialHash = example.getMap().getHash();
+        Move first = new RegularMove(example, 1, 9, 6);
+        Move second = new RegularMove(example, 2, 6, 9);
+        first.doMove();
+        second.doMove();
+        assertEquals(1, example.getMap().getTileAt(7, 6).getOwnerId());
+        assertEquals(2, example.getMap().getTileAt(7, 8).getOwnerId());
+        long hash = example.getMap().getHash();
+        assertNotEquals(initialHash, hash);
+
+        Game.getGame().readMap(Maps.EXAMPLE);
+        example = Game.getGame().getCurrentState();
+        assertEquals(initialHash, example.getMap().getHash());
+        new RegularMove(example, 2, 6, 9).doMove();
+        new RegularMove(example, 1, 9, 6).doMove();
+        assertEquals("Transposed moves give a different hash", hash, example.getMap().getHash());
+
+        for (String mapData : new String[]{Maps.EXAMPLE, Maps.STARFISH}) {
+            Game.getGame().readMap(mapData);
+            GameState state = Game.getGame().getCurrentState();
+            var hashes = new HashMap<String, Long>();
+            var positions = new HashMap<Long, String>();
+
+            RandomMoves.play(4, 60, () -> {
+                checkHash(state, hashes, positions);
+
+                // positions that only differ in the inventories
+                Player player = state.getPlayerFromId(1);
+                player.receiveBomb(1);
+                checkHash(state, hashes, positions);
+                player.receiveOverrideStone(1);
+                checkHash(state, hashes, positions);
+                player.receiveBomb(-1);
+                player.receiveOverrideStone(-1);
+                checkHash(state, hashes, positions);
+            });
+        }
+    }
+
+    /**
+     * Checks that the hash of the current position is the same as for every equal position seen before, and
+     * different from the hashes of all other positions.
+     *
+     * @param state     the {@link GameState} to check
+     * @param hashes    the hashes of the positions seen before
+     * @param positions the positions seen before by their hashes
+     */
+    private static void checkHash(GameState state, java.util.Map<String, Long> hashes,
+                                  java.util.Map<Long, String> positions) {
+        Map map = state.getMap();
+        StringBuilder builder = new StringBuilder();
+        for (int index = 0; index < map.getTileCount(); index++) {
+            builder.append(map.getPhysicalOwnerId(index)).append(map.getProperty(index).ordinal()).append(' ');
+        }
+        for (int playerId = 1; playerId <= state.getTotalPlayerCount(); playerId++) {
+            Player player = state.getPlayerFromId(playerId);
+            builder.append(map.toPhysicalId(playerId)).append('/').append(player.getOverrideStoneCount())
+                    .append('/').append(player.getBombCount()).append(' ');
+        }
+        String position = builder.toString();
+
+        hashes.putIfAbsent(position, map.getHash());
+        positions.putIfAbsent(map.getHash(), position);
+        assertEquals(hashes.get(position).longValue(), map.getHash());
+        assertEquals(positions.get(map.getHash()), position);
+    }
+
+    @Test
+    public void lineClusteringSums() {
+        Game.getGame().readMap(Maps.EXAMPLE);
+        Map example = Game.getGame().getCurrentState().getMap();
+        // player 1 owns the main diagonal of the 3x3 block, so each stone has a share of 3 on it and 1 on the others
+        assertEquals(18, example.getLineClusteringSum(1));
+        assertEquals(14, example.getLineClusteringSum(2));
+        assertEquals(14, example.getLineClusteringSum(3));
+
+        for (String mapData : new String[]{Maps.EXAMPLE, Maps.STARFISH}) {
+            Game.getGame().readMap(mapData);
+            GameState state = Game.getGame().getCurrentState();
+            Map map = state.getMap();
+
+            RandomMoves.play(6, 60, () -> {
+                for (int playerId = 1; playerId <= state.getTotalPlayerCount(); playerId++) {
+                    int sum = 0;
+                    for (Tile stone : map.getStones(playerId)) {
+                        TileLine[] lines = {stone.getRow(), stone.getColumn(), stone.getDiagonal(), stone.getIndiagonal()};
+                        for (TileLine line : lines) {
+                            int share = 0;
+                            for (Tile tile : line.getLineTiles()) {
+                                if (tile.getOwnerId() == playerId) share++;
+                            }
+                            assertEquals(share, line.getPlayerShare(playerId));
+                            sum += share;
+                        }
+                    }
+                    assertEquals("Wrong sum of player " + playerId, sum, map.getLineClusteringSum(playerId));
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package bacon;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PatternIndexTest {
+
+    @Test
+    public void getScoreOfRow() {
+        // a single row has two windows, covering the first and the last four tiles
+        Game.getGame().readMap("2\n0\n0 0\n1 5\n1 1 0 0 2");
+        Map map = Game.getGame().getCurrentState().getMap();
+        PatternIndex index = map.getPatternIndex();
+        // two stones of player 1 alone in the first window, the second window is contested
+        assertEquals(4, index.getScore(1));
+        assertEquals(-4, index.getScore(2));
+
+        map.getTileAt(4, 0).setOwnerId(Player.NULL_PLAYER_ID);
+        assertEquals(4 + 1, index.getScore(1));
+        assertEquals(-4 - 1, index.getScore(2));
+
+        map.getTileAt(2, 0).setOwnerId(1);
+        assertEquals(9 + 4, index.getScore(1));
+        assertEquals(-9 - 4, index.getScore(2));
+    }
+
+    @Test
+    public void getScore() {
+        for (String mapData : new String[]{Maps.EXAMPLE, Maps.COMP_SQUARE, Maps.STARFISH}) {
+            Game.getGame().readMap(mapData);
+            GameState state = Game.getGame().getCurrentState();
+            Map map = state.getMap();
+
+            RandomMoves.play(8, 60, () -> {
+                PatternIndex rebuilt = new PatternIndex(map, PatternIndex.defaultTable());
+                for (int playerId = 1; playerId <= state.getTotalPlayerCount(); playerId++) {
+                    assertEquals("Wrong score of player " + playerId,
+                            rebuilt.getScore(playerId), map.getPatternIndex().getScore(playerId));
+                }
+            });
+        }
+    }
+}
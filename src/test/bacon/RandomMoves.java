@@ -0,0 +1,85 @@
+package bacon;
+
+import bacon.ai.heuristics.LegalMoves;
+import bacon.move.EncodedMove;
+import bacon.move.MoveBuffer;
+
+import java.util.Random;
+
+/**
+ * Plays random legal moves on the current {@link GameState} to test the incrementally updated state of the
+ * {@link Map} against a recomputation.
+ * <p>
+ * Each turn a sequence of moves is done and undone again in reverse order, the way the search does. Then the first
+ * move of the sequence is done again and the game goes on. The given check is run after every move and every undo.
+ */
+public class RandomMoves {
+
+    /**
+     * Maximum number of moves done in a row before they are undone.
+     */
+    private static final int SEQUENCE_LENGTH = 4;
+
+    /**
+     * Plays the given number of turns with random moves of all {@link Player}s, or until no {@code Player} can move.
+     * The moves are chosen the same for the same seed.
+     *
+     * @param seed  the seed of the random moves
+     * @param turns the maximum number of turns to play
+     * @param check the check to run after every move and every undo
+     */
+    public static void play(long seed, int turns, Runnable check) {
+        GameState state = Game.getGame().getCurrentState();
+        Random random = new Random(seed);
+        int[] sequence = new int[SEQUENCE_LENGTH];
+        int playerId = 1;
+
+        for (int turn = 0; turn < turns; turn++) {
+            int length = 0;
+            int mover = playerId;
+            for (int passes = 0; length < SEQUENCE_LENGTH && passes < state.getTotalPlayerCount(); ) {
+                int move = getRandomMove(state, mover, random);
+                mover = mover % state.getTotalPlayerCount() + 1;
+                if (move == EncodedMove.NO_MOVE) {
+                    passes++;
+                    continue;
+                }
+                passes = 0;
+                EncodedMove.doMove(state, move);
+                check.run();
+                sequence[length++] = move;
+            }
+            // nobody can move anymore
+            if (length == 0) return;
+
+            for (int i = length - 1; i >= 0; i--) {
+                EncodedMove.undoMove(state, sequence[i]);
+                check.run();
+            }
+            EncodedMove.doMove(state, sequence[0]);
+            check.run();
+            playerId = EncodedMove.getPlayerId(sequence[0]) % state.getTotalPlayerCount() + 1;
+        }
+    }
+
+    /**
+     * Returns a random legal move of the given {@link Player}. Override moves are chosen now and then, or if there
+     * is no regular move.
+     *
+     * @param state    the {@link GameState} to move in
+     * @param playerId the {@code id} of the {@code Player}
+     * @param random   the source of randomness
+     * @return the move encoded by {@link EncodedMove}, or {@link EncodedMove#NO_MOVE} if there is no legal move
+     */
+    private static int getRandomMove(GameState state, int playerId, Random random) {
+        MoveBuffer moves = new MoveBuffer();
+        LegalMoves.getLegalRegularMoves(state, playerId, moves);
+        if (moves.isEmpty() || random.nextInt(8) == 0) {
+            MoveBuffer overrideMoves = new MoveBuffer();
+            LegalMoves.getLegalOverrideMoves(state, playerId, overrideMoves);
+            if (!overrideMoves.isEmpty()) moves = overrideMoves;
+        }
+        if (moves.isEmpty()) return EncodedMove.NO_MOVE;
+        return moves.get(random.nextInt(moves.size()));
+    }
+}
@@ -0,0 +1,103 @@
+package bacon;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class StabilityIndexTest {
+
+    /**
+     * A corner stone and its neighbour on the edge of player 1, and a full row shared by both players.
+     */
+    private static final String STABILITY = "2\n" +
+            "0\n" +
+            "0 0\n" +
+            "4 4\n" +
+            "1 1 0 0\n" +
+            "0 0 0 0\n" +
+            "2 1 1 2\n" +
+            "0 0 0 0";
+
+    @Test
+    public void stableStones() {
+        Game.getGame().readMap(STABILITY);
+        Map map = Game.getGame().getCurrentState().getMap();
+        StabilityIndex index = map.getStabilityIndex();
+
+        // both stones on the upper edge are stable along all axes, the ones in the full row only along it
+        assertEquals(4 + 4 + 1 + 1, index.getStability(1));
+        // the ends of the full row lie on the left and right edge
+        assertEquals(3 + 3, index.getStability(2));
+
+        // a stone next to the corner on the left edge, which spreads stability to the row below diagonally
+        map.getTileAt(0, 1).setOwnerId(1);
+        assertEquals(4 + 4 + 4 + 2 + 1, index.getStability(1));
+        map.getTileAt(0, 1).setOwnerId(Player.NULL_PLAYER_ID);
+        assertEquals(4 + 4 + 1 + 1, index.getStability(1));
+
+        Game.getGame().readMap(Maps.EXAMPLE_STABILITY);
+        assertEquals(41, Game.getGame().getCurrentState().getMap().getStabilityIndex().getStability(1));
+    }
+
+    @Test
+    public void getStability() {
+        for (String mapData : new String[]{Maps.EXAMPLE, Maps.EXAMPLE_STABILITY, Maps.COMP_SQUARE, Maps.STARFISH}) {
+            Game.getGame().readMap(mapData);
+            GameState state = Game.getGame().getCurrentState();
+            Map map = state.getMap();
+
+            RandomMoves.play(5, 60, () -> {
+                for (int playerId = 1; playerId <= state.getTotalPlayerCount(); playerId++) {
+                    assertEquals("Wrong stability of player " + playerId,
+                            floodFill(map, playerId), map.getStabilityIndex().getStability(playerId));
+                }
+            });
+        }
+    }
+
+    /**
+     * Computes the stability of the given {@link Player} from scratch by a flood fill, like
+     * {@link bacon.ai.heuristics.StabilityHeuristic} did before the {@link StabilityIndex}.
+     * <p>
+     * A stone is stable along an axis, if it lies at the border of the {@link Map} along that axis or its line along
+     * that axis is full. Stability spreads along the axis to the neighbouring stones of the same {@code Player},
+     * which are stable along the axis they are entered by.
+     *
+     * @param map      the {@code Map} to examine
+     * @param playerId the {@code id} of the {@code Player}
+     * @return the number of stable pairs of stones and axes
+     */
+    private static int floodFill(Map map, int playerId) {
+        // pairs of tile and axis, the axis of a direction is its id modulo 4
+        Set<Long> stable = new HashSet<>();
+        Deque<long[]> pending = new ArrayDeque<>();
+
+        for (Tile stone : map.getStones(playerId)) {
+            TileLine[] lines = {stone.getColumn(), stone.getDiagonal(), stone.getRow(), stone.getIndiagonal()};
+            for (int axis = 0; axis < 4; axis++) {
+                boolean border = stone.getTransition(axis) == null || stone.getTransition(axis + 4) == null;
+                if (border || lines[axis].getFillLevel() == lines[axis].getLineSize()) {
+                    pending.add(new long[]{stone.index, axis});
+                }
+            }
+        }
+
+        while (!pending.isEmpty()) {
+            long[] pair = pending.poll();
+            if (!stable.add(pair[0] * 4 + pair[1])) continue;
+
+            Tile tile = map.getTile((int) pair[0]);
+            for (int direction = (int) pair[1]; direction < Direction.DIRECTION_COUNT; direction += 4) {
+                Tile neighbour = tile.getTransition(direction);
+                if (neighbour == null || neighbour.getOwnerId() != playerId) continue;
+                pending.add(new long[]{neighbour.index, tile.getArrivalDirection(direction) % 4});
+            }
+        }
+        return stable.size();
+    }
+}
@@ -0,0 +1,122 @@
+package bacon;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TileSetTest {
+
+    @Test
+    public void wordBoundaries() {
+        Tile[] tiles = getTiles(Maps.COMP_SQUARE);
+        TileSet set = new TileSet(tiles);
+        int last = tiles.length - 1;
+        int[] indices = {0, 63, 64, 127, 128, last};
+
+        for (int index : indices) {
+            assertTrue("Tile " + index + " not added", set.add(index));
+            assertFalse("Tile " + index + " added twice", set.add(index));
+        }
+        assertEquals(indices.length, set.size());
+        assertEquals(1L | 1L << 63, set.getWord(0));
+        assertEquals(1L | 1L << 63, set.getWord(1));
+        assertEquals(1L, set.getWord(2));
+        assertEquals((tiles.length + 63) / 64, set.getWordCount());
+
+        for (int index : indices) assertTrue(set.contains(index));
+        assertFalse(set.contains(1));
+        assertFalse(set.contains(62));
+        assertFalse(set.contains(65));
+        // neither negative indices nor the hole index are ever contained
+        assertFalse(set.contains(-1));
+        assertFalse(set.contains(tiles.length));
+
+        assertEquals(0, set.nextIndex(0));
+        assertEquals(63, set.nextIndex(1));
+        assertEquals(64, set.nextIndex(64));
+        assertEquals(127, set.nextIndex(65));
+        assertEquals(last, set.nextIndex(129));
+        assertEquals(-1, set.nextIndex(last + 1));
+
+        assertTrue(set.remove(63));
+        assertFalse(set.remove(63));
+        assertTrue(set.remove(64));
+        assertEquals(indices.length - 2, set.size());
+        assertEquals(127, set.nextIndex(1));
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertEquals(-1, set.nextIndex(0));
+    }
+
+    @Test
+    public void randomOperations() {
+        Tile[] tiles = getTiles(Maps.COMP_SQUARE);
+        TileSet set = new TileSet(tiles);
+        BitSet expected = new BitSet();
+        Random random = new Random(1);
+
+        for (int i = 0; i < 20000; i++) {
+            int index = random.nextInt(tiles.length);
+            if (random.nextBoolean()) {
+                assertEquals(!expected.get(index), set.add(index));
+                expected.set(index);
+            } else {
+                assertEquals(expected.get(index), set.remove(index));
+                expected.clear(index);
+            }
+            assertEquals(expected.cardinality(), set.size());
+        }
+
+        List<Tile> iterated = new ArrayList<>();
+        for (Tile tile : set) iterated.add(tile);
+        List<Tile> walked = new ArrayList<>();
+        for (int index = set.nextIndex(0); index >= 0; index = set.nextIndex(index + 1)) walked.add(tiles[index]);
+        List<Tile> reference = new ArrayList<>();
+        for (int index = expected.nextSetBit(0); index >= 0; index = expected.nextSetBit(index + 1)) {
+            reference.add(tiles[index]);
+        }
+        assertEquals(reference, iterated);
+        assertEquals(reference, walked);
+
+        for (int index = 0; index < tiles.length; index++) {
+            assertEquals(expected.get(index), set.contains(index));
+            assertEquals(expected.get(index), set.contains(tiles[index]));
+        }
+    }
+
+    @Test
+    public void containsTile() {
+        Tile[] tiles = getTiles(Maps.EXAMPLE);
+        TileSet set = new TileSet(tiles);
+        set.add(5);
+        assertTrue(set.contains(tiles[5]));
+        assertFalse(set.contains(tiles[6]));
+
+        // a Tile with the same index on another Map is not contained
+        Tile[] otherTiles = getTiles(Maps.EXAMPLE);
+        assertFalse(set.contains(otherTiles[5]));
+        assertFalse(set.contains("5"));
+    }
+
+    /**
+     * Reads the given {@link Map} and returns its {@link Tile}s in index order.
+     *
+     * @param mapData the {@code Map} to read
+     * @return the {@code Tile}s of the {@code Map}
+     */
+    private static Tile[] getTiles(String mapData) {
+        Game.getGame().readMap(mapData);
+        Map map = Game.getGame().getCurrentState().getMap();
+        Tile[] tiles = new Tile[map.getTileCount()];
+        for (int index = 0; index < tiles.length; index++) tiles[index] = map.getTile(index);
+        return tiles;
+    }
+}
@@ -0,0 +1,93 @@
+package bacon;
+
+import bacon.ai.heuristics.LegalMoves;
+import bacon.move.EncodedMove;
+import bacon.move.Move;
+import bacon.move.MoveBuffer;
+import bacon.move.RegularMove;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UndoJournalTest {
+
+    @Test
+    public void undoMove() {
+        Game.getGame().readMap(Maps.EXAMPLE);
+        GameState state = Game.getGame().getCurrentState();
+        Map map = state.getMap();
+        int size = state.getJournal().size();
+
+        // player 1 turns over the stones of players 3 and 2 to the left of (9, 6)
+        Move move = new RegularMove(state, 1, 9, 6);
+        move.doMove();
+        assertEquals(size + 3, state.getJournal().size());
+        assertEquals(1, map.getTileAt(7, 6).getOwnerId());
+        assertEquals(1, map.getTileAt(8, 6).getOwnerId());
+        assertEquals(6, state.getPlayerFromId(1).getStoneCount());
+        assertEquals(2, state.getPlayerFromId(3).getStoneCount());
+
+        move.undoMove();
+        assertEquals(size, state.getJournal().size());
+        assertEquals(2, map.getTileAt(7, 6).getOwnerId());
+        assertEquals(3, map.getTileAt(8, 6).getOwnerId());
+        assertEquals(Player.NULL_PLAYER_ID, map.getTileAt(9, 6).getOwnerId());
+        assertTrue(map.getFreeTiles().contains(map.getTileAt(9, 6).index));
+        for (int playerId = 1; playerId <= 3; playerId++) {
+            assertEquals(3, state.getPlayerFromId(playerId).getStoneCount());
+        }
+    }
+
+    @Test
+    public void undoMoves() {
+        for (String mapData : new String[]{Maps.EXAMPLE, Maps.STARFISH}) {
+            Game.getGame().readMap(mapData);
+            GameState state = Game.getGame().getCurrentState();
+            UndoJournal journal = state.getJournal();
+            MoveBuffer moves = new MoveBuffer();
+
+            RandomMoves.play(2, 30, () -> {
+                String position = describe(state);
+                int size = journal.size();
+
+                for (int playerId = 1; playerId <= state.getTotalPlayerCount(); playerId++) {
+                    moves.clear();
+                    LegalMoves.getLegalRegularMoves(state, playerId, moves);
+                    LegalMoves.getLegalOverrideMoves(state, playerId, moves);
+                    for (int i = 0; i < moves.size(); i++) {
+                        EncodedMove.doMove(state, moves.get(i));
+                        assertTrue(journal.size() > size);
+                        EncodedMove.undoMove(state, moves.get(i));
+                        assertEquals(size, journal.size());
+                        assertEquals(position, describe(state));
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns a description of everything a move changes in the given {@link GameState}.
+     *
+     * @param state the {@code GameState} to describe
+     * @return the description
+     */
+    private static String describe(GameState state) {
+        Map map = state.getMap();
+        StringBuilder builder = new StringBuilder(map.toString());
+        for (int playerId = 1; playerId <= state.getTotalPlayerCount(); playerId++) {
+            Player player = state.getPlayerFromId(playerId);
+            builder.append(map.toPhysicalId(playerId)).append(' ')
+                    .append(player.getStoneCount()).append(' ')
+                    .append(player.getOverrideStoneCount()).append(' ')
+                    .append(player.getBombCount()).append('\n');
+        }
+        builder.append(map.getFreeTiles().size()).append(' ')
+                .append(map.getOccupiedTileCount()).append(' ')
+                .append(map.getInversionTileCount()).append(' ')
+                .append(map.getChoiceTileCount()).append(' ')
+                .append(map.getBonusTileCount());
+        return builder.toString();
+    }
+}
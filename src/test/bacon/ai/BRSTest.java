@@ -1,29 +1,61 @@
 package bacon.ai;
 
+import bacon.Config;
 import bacon.Game;
+import bacon.GameState;
 import bacon.Maps;
 import bacon.Player;
+import bacon.RandomMoves;
+import bacon.ai.heuristics.Heuristics;
 import bacon.ai.heuristics.LegalMoves;
 import bacon.ai.heuristics.PancakeWatchdog;
+import bacon.move.BuildMove;
+import bacon.move.EncodedMove;
 import bacon.move.Move;
+import bacon.move.MoveBuffer;
 import bacon.move.RegularMove;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 public class BRSTest {
 
+    /**
+     * Maps along with the number of random turns played on them before searching. The turns are chosen by a seed,
+     * so each test can search positions of its own. Positions searched before would have their best moves in the
+     * transposition table.
+     */
+    private static final String[][] POSITIONS = {
+            {Maps.EXAMPLE, "2"}, {Maps.EXAMPLE, "6"}, {Maps.EXAMPLE_BRS_BONUS, "2"}, {Maps.EXAMPLE_BRS_BONUS, "5"},
+            {Maps.STARFISH, "3"}
+    };
+    /**
+     * Offsets of the limits of a staged evaluation from the exact value, up to more than the range of stability and
+     * mobility.
+     */
+    private static final int[] LIMIT_OFFSETS = {-100_000 * Heuristics.SCORE_SCALE, -1000 * Heuristics.SCORE_SCALE,
+            -Heuristics.SCORE_SCALE, -1, 0, 1, Heuristics.SCORE_SCALE, 1000 * Heuristics.SCORE_SCALE,
+            100_000 * Heuristics.SCORE_SCALE};
+    /**
+     * Search settings without any of the optional pruning and ordering techniques.
+     */
+    private static final Config PLAIN = new Config(null, 0, true, true, 0, false, 0, false);
+
     @Ignore
     @Test
     public void legal() {
         Game.getGame().readMap(Maps.EXAMPLE_CERTAIN);
         Game.getGame().getCurrentState().setMe(1);
 
-        BRSNode root = new BRSNode(4, 20, false, true, false, -Double.MAX_VALUE, Double.MAX_VALUE, new PancakeWatchdog(0));
+        BRSNode root = new BRSNode(4, 20, false, true, false, Heuristics.LOSS, Heuristics.WIN, new PancakeWatchdog(0));
         root.evaluateNode();
         Move bestMove = root.getBestMove();
 
@@ -44,7 +76,7 @@ public class BRSTest {
         Player me = Game.getGame().getCurrentState().getPlayerFromId(1);
 
         for (int i = 0; i < 10; i++) {
-            BRSNode root = new BRSNode(6, 5, true, true, false, -Double.MAX_VALUE, Double.MAX_VALUE, new PancakeWatchdog(0));
+            BRSNode root = new BRSNode(6, 5, true, true, false, Heuristics.LOSS, Heuristics.WIN, new PancakeWatchdog(0));
             root.evaluateNode();
             Move bestMove = root.getBestMove();
 
@@ -80,4 +112,265 @@ public class BRSTest {
         System.out.println("BombCount: " + me.getBombCount() + "; OverrideCount: " + me.getOverrideStoneCount());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void aspirationResearch() {
+        // a re-search after a failed aspiration window has to find the same value as a full window search
+        Game.getGame().readMap(Maps.EXAMPLE_BRS_BONUS);
+        Game.getGame().getCurrentState().setMe(1);
+        Config cfg = new Config(null, 0, true, true, 0, true, 0, false);
+
+        resetSearch();
+        new BRSNode(2, cfg, Heuristics.LOSS, Heuristics.WIN, new PancakeWatchdog(0)).evaluateNode();
+        BRSNode full = new BRSNode(3, cfg, Heuristics.LOSS, Heuristics.WIN, new PancakeWatchdog(0));
+        full.evaluateNode();
+
+        resetSearch();
+        new BRSNode(2, cfg, Heuristics.LOSS, Heuristics.WIN, new PancakeWatchdog(0)).evaluateNode();
+        int alpha = full.getValue() - 2 * Heuristics.SCORE_SCALE;
+        int beta = full.getValue() - Heuristics.SCORE_SCALE;
+        BRSNode failed = new BRSNode(3, cfg, alpha, beta, new PancakeWatchdog(0));
+        failed.evaluateNode();
+        assertTrue("Search does not fail high", failed.getValue() >= beta);
+
+        BRSNode research = new BRSNode(3, cfg, alpha, Heuristics.WIN, new PancakeWatchdog(0));
+        research.evaluateNode();
+        assertEquals("Re-search differs from full window search", full.getValue(), research.getValue());
+        assertEquals(full.getBestMove().getX(), research.getBestMove().getX());
+        assertEquals(full.getBestMove().getY(), research.getBestMove().getY());
+    }
+
+    @Test
+    public void stagedEvaluation() {
+        // a staged evaluation has to be exact between the limits and a bound of the exact value outside of them
+        Config patterns = new Config(null, 0, true, true, 0, false, 0, false, true, false, false, 0, false, false);
+        for (Config cfg : new Config[]{PLAIN, patterns}) {
+            for (String mapData : new String[]{Maps.EXAMPLE, Maps.EXAMPLE_BRS_BONUS}) {
+                Game.getGame().readMap(mapData);
+                Game.getGame().getCurrentState().setMe(1);
+                Statistics.getStatistics().init();
+
+                RandomMoves.play(11, 30, () -> {
+                    BRSNode node = new BRSNode(2, cfg, Heuristics.LOSS, Heuristics.WIN, new PancakeWatchdog(0));
+                    int value = node.evaluateCurrentState(Move.Type.REGULAR);
+                    for (int lower : LIMIT_OFFSETS) {
+                        for (int upper : LIMIT_OFFSETS) {
+                            if (upper <= lower) continue;
+                            int lowerLimit = value + lower;
+                            int upperLimit = value + upper;
+                            int staged = node.evaluateCurrentState(Move.Type.REGULAR, lowerLimit, upperLimit);
+                            String limits = " between " + lowerLimit + " and " + upperLimit;
+                            if (staged > lowerLimit && staged < upperLimit)
+                                assertEquals("Inexact value" + limits, value, staged);
+                            else if (staged <= lowerLimit)
+                                assertTrue("No upper bound" + limits, value <= staged);
+                            else
+                                assertTrue("No lower bound" + limits, value >= staged);
+                        }
+                    }
+                });
+                assertTrue("No evaluation was stopped early", Statistics.getStatistics().getSkippedEvaluationCount() > 0);
+            }
+        }
+    }
+
+    @Test
+    public void principalVariationSearch() {
+        // null window searches only speed up the search, the value of the root stays the same
+        Config pvs = new Config(null, 0, true, true, 0, false, 0, false, false, true, false, 0, false, false);
+        Statistics.getStatistics().init();
+        for (int position = 0; position < POSITIONS.length; position++) {
+            setUpPosition(position, 1);
+            resetSearch();
+            int value = search(4, pvs).getValue();
+            resetSearch();
+            assertEquals("Wrong value in position " + position, search(4, PLAIN).getValue(), value);
+        }
+        assertTrue("No move was searched again", Statistics.getStatistics().getResearchCount() > 0);
+    }
+
+    @Test
+    public void principalVariationReuse() {
+        // the principal variation and the root moves of the previous iteration only change the move order
+        for (int position = 0; position < POSITIONS.length; position++) {
+            setUpPosition(position, 2);
+            resetSearch();
+            search(3, PLAIN);
+            int value = search(4, PLAIN).getValue();
+            resetSearch();
+            assertEquals("Wrong value in position " + position, search(4, PLAIN).getValue(), value);
+        }
+    }
+
+    @Test
+    public void interruptedRoot() throws ReflectiveOperationException {
+        // an interrupted root returns no move, or a completely searched move at least as good as the choice of the
+        // previous iteration
+        setUpPosition(1, 3);
+        resetSearch();
+        Map<BuildMove, Integer> values = getExactRootValues(3);
+        resetSearch();
+        BuildMove previousMove = search(2, PLAIN).getBestMove();
+        PollingWatchdog unlimited = new PollingWatchdog(Integer.MAX_VALUE);
+        search(3, PLAIN, unlimited);
+
+        int interruptedCount = 0;
+        int returnedCount = 0;
+        for (int polls = 0; polls < unlimited.polls; polls += Math.max(1, unlimited.polls / 50)) {
+            resetSearch();
+            search(2, PLAIN);
+            PollingWatchdog watchdog = new PollingWatchdog(polls);
+            BRSNode root = search(3, PLAIN, watchdog);
+            BuildMove bestMove = root.getBestMove();
+            if (bestMove == null) {
+                interruptedCount++;
+                continue;
+            }
+
+            String message = " after " + polls + " polls";
+            assertEquals("Inexact value" + message, (int) values.get(bestMove), root.getValue());
+            assertTrue("Worse move" + message, root.getValue() >= values.get(previousMove));
+            if (watchdog.isTriggered()) returnedCount++;
+        }
+        assertTrue(interruptedCount > 0);
+        assertTrue(returnedCount > 0);
+    }
+
+    @Test
+    public void lateMoveReduction() throws ReflectiveOperationException {
+        // a reduced move that fails low is dropped, all others are searched again at full depth. So the root may miss
+        // its best move, but the value of the root is always the full depth value of the move it chose.
+        Config lmr = new Config(null, 0, true, true, 0, false, 0, false, false, false, false, 1, false, false);
+        int researchCount = 0;
+        // the turns are chosen so a reduced move has to be searched again in the second position
+        for (int position = 0; position < POSITIONS.length; position++) {
+            setUpPosition(position, 9);
+            resetSearch();
+            Statistics.getStatistics().init();
+            BRSNode reduced = search(3, lmr);
+            int reductions = Statistics.getStatistics().getReductionCount();
+            int researches = Statistics.getStatistics().getReductionResearchCount();
+            resetSearch();
+            Map<BuildMove, Integer> values = getExactRootValues(3);
+
+            assertTrue("No move was reduced in position " + position, reductions > 0);
+            assertTrue(researches <= reductions);
+            // at depth 3, only the moves of the root are reduced
+            assertEquals("Inexact value in position " + position,
+                    (int) values.get(reduced.getBestMove()), reduced.getValue());
+            researchCount += researches;
+        }
+        assertTrue("No reduced move was searched again", researchCount > 0);
+    }
+
+    @Test
+    public void futilityPruning() {
+        // the margins are learned while searching with futility pruning, so the first searches only collect them
+        Config futility = new Config(null, 0, true, true, 0, false, 0, false, false, false, false, 0, true, false);
+        for (int position = 0; position < POSITIONS.length; position++) {
+            setUpPosition(position, 5);
+            resetSearch();
+            search(4, futility);
+        }
+
+        Statistics.getStatistics().init();
+        for (int position = 0; position < POSITIONS.length; position++) {
+            setUpPosition(position, 6);
+            resetSearch();
+            BRSNode pruned = search(4, futility);
+            resetSearch();
+            assertEquals("Other move in position " + position, search(4, PLAIN).getBestMove(), pruned.getBestMove());
+        }
+        assertTrue("No move was skipped", Statistics.getStatistics().getFutileMoveCount() > 0);
+    }
+
+    @Test
+    public void internalIterativeDeepening() {
+        // the move found by a reduced search is only tried first, the value of the root stays the same
+        Config unsorted = new Config(null, 0, true, false, 0, false, 0, false);
+        Config iid = new Config(null, 0, true, false, 0, false, 0, false, false, false, false, 0, false, true);
+        Statistics.getStatistics().init();
+        for (int position = 0; position < POSITIONS.length; position++) {
+            setUpPosition(position, 7);
+            resetSearch();
+            int value = search(4, iid).getValue();
+            resetSearch();
+            assertEquals("Wrong value in position " + position, search(4, unsorted).getValue(), value);
+        }
+        assertTrue("No reduced search was done", Statistics.getStatistics().getInternalDeepeningCount() > 0);
+    }
+
+    private static void resetSearch() {
+        BRSNode.invalidateTranspositionTable();
+        BRSNode.clearMoveHistory();
+        BRSNode.clearPreviousSearch();
+    }
+
+    /**
+     * Reads the map of the given position from {@link #POSITIONS} and plays its random turns. The max player is
+     * player 1.
+     *
+     * @param position the index of the position
+     * @param seed     the seed of the random turns
+     */
+    private static void setUpPosition(int position, long seed) {
+        Game.getGame().readMap(POSITIONS[position][0]);
+        RandomMoves.play(seed, Integer.parseInt(POSITIONS[position][1]), () -> {});
+        Game.getGame().getCurrentState().setMe(1);
+    }
+
+    /**
+     * Searches the current {@link GameState} without pruning and returns the values of all moves of the root. The
+     * values are exact, as no move of the root can be cut off.
+     *
+     * @param depth the depth to search
+     * @return the moves of the root along with their values
+     * @throws ReflectiveOperationException if the recorded moves of the root cannot be read
+     */
+    private static Map<BuildMove, Integer> getExactRootValues(int depth) throws ReflectiveOperationException {
+        search(depth, new Config(null, 0, false, true, 0, false, 0, false));
+        Field recordedField = BRSNode.class.getDeclaredField("previousRootMoves");
+        recordedField.setAccessible(true);
+        MoveBuffer recorded = (MoveBuffer) recordedField.get(null);
+
+        Map<BuildMove, Integer> values = new HashMap<>();
+        for (int i = 0; i < recorded.size(); i++) {
+            values.put(EncodedMove.toMove(Game.getGame().getCurrentState(), recorded.get(i)), recorded.getValue(i));
+        }
+        return values;
+    }
+
+    private static BRSNode search(int depth, Config cfg) {
+        return search(depth, cfg, new PancakeWatchdog(0));
+    }
+
+    private static BRSNode search(int depth, Config cfg, PancakeWatchdog watchdog) {
+        BRSNode root = new BRSNode(depth, cfg, Heuristics.LOSS, Heuristics.WIN, watchdog);
+        root.evaluateNode();
+        return root;
+    }
+
+    /**
+     * A {@link PancakeWatchdog} that triggers after it was polled a given number of times.
+     */
+    private static class PollingWatchdog extends PancakeWatchdog {
+
+        private final int limit;
+        private int polls;
+
+        PollingWatchdog(int limit) {
+            super(0);
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean isPancake() {
+            if (this.polls < this.limit) this.polls++;
+            return isTriggered();
+        }
+
+        @Override
+        public boolean isTriggered() {
+            return this.polls >= this.limit;
+        }
+    }
+}
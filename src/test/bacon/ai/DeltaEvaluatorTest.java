@@ -0,0 +1,81 @@
+package bacon.ai;
+
+import bacon.Game;
+import bacon.GameState;
+import bacon.Maps;
+import bacon.RandomMoves;
+import bacon.ai.heuristics.Heuristics;
+import bacon.ai.heuristics.LegalMoves;
+import bacon.move.EncodedMove;
+import bacon.move.Move;
+import bacon.move.MoveBuffer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DeltaEvaluatorTest {
+
+    @Test
+    public void evaluate() {
+        for (String mapData : new String[]{Maps.EXAMPLE, Maps.EXAMPLE_BRS_BONUS}) {
+            Game.getGame().readMap(mapData);
+            GameState state = Game.getGame().getCurrentState();
+            state.setMe(1);
+            DeltaEvaluator evaluator = new DeltaEvaluator(BRSNode.LINE_CLUSTERING_SCALAR_DEFAULT, BRSNode.BOMB_BONUS_SCALAR);
+            MoveBuffer moves = new MoveBuffer();
+
+            RandomMoves.play(7, 40, () -> {
+                for (int playerId = 1; playerId <= state.getTotalPlayerCount(); playerId++) {
+                    moves.clear();
+                    LegalMoves.getLegalRegularMoves(state, playerId, moves);
+                    LegalMoves.getLegalOverrideMoves(state, playerId, moves);
+                    for (int i = 0; i < moves.size(); i++) {
+                        int move = moves.get(i);
+                        int rating = evaluator.evaluate(state, move);
+                        EncodedMove.doMove(state, move);
+                        assertEquals("Wrong rating of move " + move, evaluate(state, EncodedMove.getType(move)), rating);
+                        EncodedMove.undoMove(state, move);
+                    }
+                }
+            });
+        }
+    }
+
+    @Test
+    public void overrideMoves() {
+        Game.getGame().readMap(Maps.EXAMPLE);
+        GameState state = Game.getGame().getCurrentState();
+        state.setMe(1);
+        DeltaEvaluator evaluator = new DeltaEvaluator(BRSNode.LINE_CLUSTERING_SCALAR_DEFAULT, BRSNode.BOMB_BONUS_SCALAR);
+        int stoneCount = state.getMap().getOccupiedTileCount();
+
+        // the stone of player 2 on (7, 6) is taken without capturing more, so player 1 leads with 4 to 2 and 3 stones
+        assertEquals(Heuristics.toScore(4),
+                evaluator.evaluate(state, EncodedMove.override(state.getMap().getTileAt(7, 6).index, 1)));
+        // the stone of player 3 on (8, 6) encloses the ones of player 2 on (7, 6) and (8, 7), which makes 6 to 1 and 2
+        assertEquals(Heuristics.toScore(6),
+                evaluator.evaluate(state, EncodedMove.override(state.getMap().getTileAt(8, 6).index, 1)));
+        // the ratings leave the map untouched
+        assertEquals(stoneCount, state.getMap().getOccupiedTileCount());
+        assertEquals(2, state.getMap().getTileAt(7, 6).getOwnerId());
+    }
+
+    /**
+     * Evaluates the current {@link GameState} by the terms the {@link DeltaEvaluator} rates a move of the given
+     * {@link Move.Type} by. No rollouts are done, so all weights are constant.
+     *
+     * @param state the {@code GameState} after the move
+     * @param type  the {@code Type} of the move
+     * @return the value of the {@code GameState} as a score
+     */
+    private static int evaluate(GameState state, Move.Type type) {
+        int me = state.getMe();
+        double relativeStoneCount = Heuristics.relativeStoneCount(state, me);
+        if (type != Move.Type.REGULAR) return Heuristics.toScore(relativeStoneCount);
+
+        return Heuristics.toScore(Heuristics.stoneCountWeight(state, me) * relativeStoneCount
+                + BRSNode.LINE_CLUSTERING_SCALAR_DEFAULT * Heuristics.lineClustering(state, me)
+                + BRSNode.BOMB_BONUS_SCALAR * Heuristics.bonusBomb(state, me)
+                + Heuristics.bonusOverrideWeight(state, me) * Heuristics.bonusOverride(state, me));
+    }
+}
@@ -0,0 +1,88 @@
+package bacon.ai;
+
+import bacon.Game;
+import bacon.GameState;
+import bacon.Maps;
+import bacon.ai.heuristics.LegalMoves;
+import bacon.move.MoveBuffer;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MoveHistoryTest {
+
+    @Test
+    public void orderCutoffMoves() {
+        Game.getGame().readMap(Maps.EXAMPLE);
+        GameState state = Game.getGame().getCurrentState();
+        MoveBuffer moves = new MoveBuffer();
+        LegalMoves.getLegalRegularMoves(state, 1, moves);
+        assertTrue(moves.size() > 3);
+        int last = moves.get(moves.size() - 1);
+        int secondLast = moves.get(moves.size() - 2);
+
+        MoveHistory history = new MoveHistory();
+        history.prepare(state.getMap(), 4);
+        order(history, 1, moves);
+        assertEquals("Moves without cutoffs are reordered", last, moves.get(moves.size() - 1));
+
+        // the cutoff move is the killer move of its layer and has a history score in all others
+        history.addCutoff(1, last, 2);
+        order(history, 1, moves);
+        assertEquals(last, moves.get(0));
+        order(history, 3, moves);
+        assertEquals(last, moves.get(0));
+
+        // the newer killer move comes first, even though the older one has a higher history score
+        history.addCutoff(1, secondLast, 1);
+        order(history, 1, moves);
+        assertEquals(secondLast, moves.get(0));
+        assertEquals(last, moves.get(1));
+        order(history, 2, moves);
+        assertEquals(last, moves.get(0));
+        assertEquals(secondLast, moves.get(1));
+
+        history.clear();
+        for (int i = 0; i < moves.size(); i++) {
+            assertEquals(0, history.rate(1, moves.get(i)));
+            assertEquals(0, history.rate(2, moves.get(i)));
+        }
+    }
+
+    @Test
+    public void clearMoveHistory() throws ReflectiveOperationException {
+        Game.getGame().readMap(Maps.EXAMPLE);
+        GameState state = Game.getGame().getCurrentState();
+        MoveBuffer moves = new MoveBuffer();
+        LegalMoves.getLegalRegularMoves(state, 1, moves);
+
+        Field field = BRSNode.class.getDeclaredField("moveHistory");
+        field.setAccessible(true);
+        MoveHistory history = (MoveHistory) field.get(null);
+        history.prepare(state.getMap(), 4);
+        history.addCutoff(0, moves.get(0), 3);
+        assertTrue(history.rate(0, moves.get(0)) > 0);
+        assertTrue(history.rate(1, moves.get(0)) > 0);
+
+        BRSNode.clearMoveHistory();
+        assertEquals(0, history.rate(0, moves.get(0)));
+        assertEquals(0, history.rate(1, moves.get(0)));
+    }
+
+    /**
+     * Orders the given moves the way the search does at a node in the given layer.
+     *
+     * @param history the {@link MoveHistory} to rate the moves by
+     * @param layer   the layer of the node
+     * @param moves   the moves to order
+     */
+    private static void order(MoveHistory history, int layer, MoveBuffer moves) {
+        for (int i = 0; i < moves.size(); i++) {
+            moves.setValue(i, history.rate(layer, moves.get(i)));
+        }
+        moves.sortByValue(true);
+    }
+}
@@ -2,16 +2,22 @@ package bacon.ai.heuristics;
 
 import bacon.Game;
 import bacon.GamePhase;
+import bacon.GameState;
 import bacon.Maps;
+import bacon.RandomMoves;
 import bacon.Tile;
 import bacon.move.BombMove;
+import bacon.move.EncodedMove;
 import bacon.move.Move;
+import bacon.move.MoveBuffer;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class LegalMoveTest {
@@ -109,4 +115,52 @@ public class LegalMoveTest {
             assertTrue("Illegal Bomb Move at: (" + mv.getX() + "," + mv.getX() + ")", legalTiles1.contains(map.getTileAt(mv.getX(), mv.getY())));
         }
     }
+
+    @Test
+    public void mergedRegularMoves() {
+        for (String mapData : new String[]{Maps.EXAMPLE, Maps.STARFISH}) {
+            Game.getGame().readMap(mapData);
+            GameState state = Game.getGame().getCurrentState();
+            int playerCount = state.getTotalPlayerCount();
+            // all opponents of player 1, and all players in reverse order
+            int[] opponents = new int[playerCount - 1];
+            int[] reversed = new int[playerCount];
+            for (int i = 0; i < playerCount; i++) {
+                if (i > 0) opponents[i - 1] = i + 1;
+                reversed[i] = playerCount - i;
+            }
+            int[] checks = new int[1];
+
+            RandomMoves.play(10, 60, () -> {
+                int[] playerIds = checks[0]++ % 2 == 0 ? opponents : reversed;
+
+                // the player by player generation brings the index up to date for each player on its own
+                List<Set<Integer>> expected = new ArrayList<>();
+                for (int playerId : playerIds) {
+                    MoveBuffer single = new MoveBuffer();
+                    LegalMoves.getLegalRegularMoves(state, playerId, single);
+                    Set<Integer> moves = new HashSet<>();
+                    for (int i = 0; i < single.size(); i++) moves.add(single.get(i));
+                    expected.add(moves);
+                }
+
+                MoveBuffer merged = new MoveBuffer();
+                int[] moveCounts = new int[playerCount + 1];
+                LegalMoves.getLegalRegularMoves(state, playerIds, merged, moveCounts);
+
+                int start = 0;
+                for (int p = 0; p < playerIds.length; p++) {
+                    Set<Integer> actual = new HashSet<>();
+                    for (int i = start; i < start + moveCounts[playerIds[p]]; i++) {
+                        assertEquals(playerIds[p], EncodedMove.getPlayerId(merged.get(i)));
+                        assertTrue(EncodedMove.isLegal(state, merged.get(i)));
+                        actual.add(merged.get(i));
+                    }
+                    assertEquals("Wrong moves of player " + playerIds[p], expected.get(p), actual);
+                    start += moveCounts[playerIds[p]];
+                }
+                assertEquals(start, merged.size());
+            });
+        }
+    }
 }
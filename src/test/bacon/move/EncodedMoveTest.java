@@ -0,0 +1,76 @@
+package bacon.move;
+
+import bacon.Game;
+import bacon.GameState;
+import bacon.Maps;
+import bacon.Tile;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EncodedMoveTest {
+
+    @Test
+    public void roundTrip() {
+        int maxTile = (1 << 20) - 1;
+        int[] tiles = {0, 1, maxTile - 1, maxTile};
+        int[] bonuses = {0, 1, BonusRequest.BOMB_BONUS_VALUE, BonusRequest.OVERRIDE_BONUS_VALUE, 31};
+        int[] playerIds = {0, 1, 8, 15};
+
+        for (int tile : tiles) {
+            for (int playerId : playerIds) {
+                for (int bonus : bonuses) {
+                    int move = EncodedMove.regular(tile, playerId, bonus);
+                    assertEquals(tile, EncodedMove.getTileIndex(move));
+                    assertEquals(bonus, EncodedMove.getBonus(move));
+                    assertEquals(playerId, EncodedMove.getPlayerId(move));
+                    assertEquals(Move.Type.REGULAR, EncodedMove.getType(move));
+                    assertTrue("Move collides with NO_MOVE", move != EncodedMove.NO_MOVE);
+                }
+
+                int move = EncodedMove.override(tile, playerId);
+                assertEquals(tile, EncodedMove.getTileIndex(move));
+                assertEquals(0, EncodedMove.getBonus(move));
+                assertEquals(playerId, EncodedMove.getPlayerId(move));
+                assertEquals(Move.Type.OVERRIDE, EncodedMove.getType(move));
+                assertTrue("Move collides with NO_MOVE", move != EncodedMove.NO_MOVE);
+            }
+        }
+
+        // the override flag does not overlap the other fields
+        int regular = EncodedMove.regular(maxTile, 15, 31);
+        int override = EncodedMove.override(maxTile, 15);
+        assertTrue(regular != override);
+        assertEquals(regular, override & ~(1 << 29) | (31 << 20));
+    }
+
+    @Test
+    public void toMove() {
+        Game.getGame().readMap(Maps.EXAMPLE);
+        GameState state = Game.getGame().getCurrentState();
+        Tile tile = state.getMap().getTileAt(9, 6);
+
+        assertNull(EncodedMove.toMove(state, EncodedMove.NO_MOVE));
+
+        BuildMove regular = EncodedMove.toMove(state, EncodedMove.regular(tile.index, 1, BonusRequest.NONE_VALUE));
+        assertTrue(regular instanceof RegularMove);
+        assertArrayEquals(new RegularMove(state, 1, 9, 6).encodeBinary(), regular.encodeBinary());
+
+        BuildMove choice = EncodedMove.toMove(state, EncodedMove.regular(tile.index, 2, 3));
+        assertArrayEquals(new RegularMove(state, 2, 9, 6, new BonusRequest(3)).encodeBinary(), choice.encodeBinary());
+
+        BuildMove bonus = EncodedMove.toMove(state, EncodedMove.regular(tile.index, 3, BonusRequest.OVERRIDE_BONUS_VALUE));
+        assertArrayEquals(new RegularMove(state, 3, 9, 6, new BonusRequest(BonusRequest.Type.OVERRIDE_BONUS))
+                .encodeBinary(), bonus.encodeBinary());
+
+        BuildMove override = EncodedMove.toMove(state, EncodedMove.override(tile.index, 2));
+        assertTrue(override instanceof OverrideMove);
+        assertEquals(Move.Type.OVERRIDE, override.getType());
+        assertEquals(2, override.getPlayerId());
+        assertEquals(9, override.getX());
+        assertEquals(6, override.getY());
+    }
+}
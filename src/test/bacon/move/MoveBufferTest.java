@@ -0,0 +1,84 @@
+package bacon.move;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MoveBufferTest {
+
+    @Test
+    public void sortByValue() {
+        MoveBuffer buffer = new MoveBuffer();
+        int[] values = {3, 1, 3, 2, 1, 3};
+        for (int i = 0; i < 100; i++) {
+            buffer.add(i);
+            buffer.setValue(i, values[i % values.length]);
+        }
+
+        // moves with equal values keep their order
+        buffer.sortByValue(true);
+        for (int i = 1; i < buffer.size(); i++) {
+            assertTrue(buffer.getValue(i - 1) >= buffer.getValue(i));
+            if (buffer.getValue(i - 1) == buffer.getValue(i)) assertTrue(buffer.get(i - 1) < buffer.get(i));
+            assertEquals(values[buffer.get(i) % values.length], buffer.getValue(i));
+        }
+
+        buffer.sortByValue(false);
+        for (int i = 1; i < buffer.size(); i++) {
+            assertTrue(buffer.getValue(i - 1) <= buffer.getValue(i));
+            if (buffer.getValue(i - 1) == buffer.getValue(i)) assertTrue(buffer.get(i - 1) < buffer.get(i));
+        }
+    }
+
+    @Test
+    public void moveToFront() {
+        MoveBuffer buffer = new MoveBuffer();
+        for (int i = 0; i < 5; i++) {
+            buffer.add(10 + i);
+            buffer.setValue(i, i);
+        }
+
+        assertTrue(buffer.moveToFront(13));
+        int[] expected = {13, 10, 11, 12, 14};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], buffer.get(i));
+            assertEquals(expected[i] - 10, buffer.getValue(i));
+        }
+
+        assertTrue(buffer.moveToFront(13));
+        assertEquals(13, buffer.get(0));
+        assertFalse(buffer.moveToFront(20));
+        // moves after the size are not found
+        buffer.truncate(3);
+        assertFalse(buffer.moveToFront(12));
+        assertEquals(3, buffer.size());
+    }
+
+    @Test
+    public void markTile() throws ReflectiveOperationException {
+        MoveBuffer buffer = new MoveBuffer();
+        assertTrue(buffer.markTile(3));
+        assertFalse(buffer.markTile(3));
+        assertTrue(buffer.markTile(1000));
+        buffer.resetMarks();
+        assertTrue(buffer.markTile(1000));
+        assertFalse(buffer.markTile(1000));
+
+        // the first stamp is used again after the wrap around, which takes 2^32 resets otherwise
+        MoveBuffer wrapping = new MoveBuffer();
+        assertTrue(wrapping.markTile(3));
+        Field stamp = MoveBuffer.class.getDeclaredField("stamp");
+        stamp.setAccessible(true);
+        stamp.setInt(wrapping, -1);
+        assertTrue(wrapping.markTile(5));
+        wrapping.resetMarks();
+        assertEquals(1, stamp.getInt(wrapping));
+        assertTrue("Mark survived the wrap around", wrapping.markTile(3));
+        assertTrue(wrapping.markTile(5));
+        assertFalse(wrapping.markTile(3));
+    }
+}